@@ -0,0 +1,172 @@
+package tech.hootlab;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+ * AdmissionController.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Decides which newly accepted sockets become clients, so a reconnect storm (e.g. every client
+ * coming back at once after a network blip) cannot swamp the server with client threads and
+ * buffers.
+ *
+ * The accept loop hands each socket straight here and goes back to accepting. Sockets wait in a
+ * bounded backlog for a single admission thread, which lets them in at a steady rate set by a
+ * TokenBucket, with short bursts allowed. A socket is rejected straight away if the backlog is full
+ * or the server already has its maximum number of connections, and is told why with a DISCONNECT
+ * message before it is closed, so the client can back off rather than retry at once.
+ *
+ * Rejections are sent with Java serialization, which every client understands before it has chosen
+ * a codec. The connection count is kept here: it goes up as each socket is handed off, before the
+ * client is set up, and down when the connection tells us it has closed (see connectionClosed()).
+ * So clients still being set up count, and a burst of sockets cannot all squeeze in before any of
+ * them reach the controller.
+ *
+ * Designed to be thread-safe. Sockets can be offered from any thread.
+ */
+public class AdmissionController {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 0;
+    public static final int DEFAULT_ACCEPT_RATE = 1000;
+    public static final int DEFAULT_ACCEPT_BURST = 5000;
+    public static final int DEFAULT_ACCEPT_BACKLOG = 10000;
+
+    public static final String SERVER_FULL_MESSAGE = "The server is full. Please try again later.";
+    public static final String SERVER_BUSY_MESSAGE =
+            "The server is busy. Please try again in a few seconds.";
+
+    private final BlockingQueue<Socket> backlog;
+    // Null if sockets are admitted as fast as they arrive
+    private final TokenBucket acceptRate;
+    private final int maxConnections;
+    // Admitted connections not yet closed
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final Consumer<Socket> onAdmit;
+    private final ServerMetrics metrics;
+
+    private Thread admissionThread;
+
+    /**
+     * Creates an admission controller. Call start() to begin admitting sockets.
+     *
+     * @param settings The server settings, giving the limits.
+     * @param metrics  The metrics to count admissions and rejections in.
+     * @param onAdmit  Sets up an admitted socket as a client, which must call connectionClosed()
+     *                 once it closes. Runs on the admission thread, so it should be quick.
+     */
+    public AdmissionController(ServerSettings settings, ServerMetrics metrics,
+            Consumer<Socket> onAdmit) {
+        this.backlog = new ArrayBlockingQueue<>(settings.getAcceptBacklog());
+        this.acceptRate = settings.getAcceptRate() > 0
+                ? new TokenBucket(settings.getAcceptRate(), settings.getAcceptBurst())
+                : null;
+        this.maxConnections = settings.getMaxConnections();
+        this.onAdmit = onAdmit;
+        this.metrics = metrics;
+        metrics.registerAdmissionBacklog(backlog);
+    }
+
+    /**
+     * Starts the admission thread. It is a daemon, so it never keeps the JVM alive alone.
+     */
+    public synchronized void start() {
+        if (admissionThread != null) {
+            return;
+        }
+        admissionThread = new Thread(this::run, "admission");
+        admissionThread.setDaemon(true);
+        admissionThread.start();
+    }
+
+    /**
+     * Queues a newly accepted socket to be admitted, or rejects it if the server is full or the
+     * backlog is. Never blocks for long, so the accept loop can call it.
+     *
+     * @param socket The accepted socket.
+     */
+    public void offer(Socket socket) {
+        if (isFull()) {
+            reject(socket, SERVER_FULL_MESSAGE);
+        } else if (!backlog.offer(socket)) {
+            reject(socket, SERVER_BUSY_MESSAGE);
+        }
+    }
+
+    /**
+     * Frees an admitted connection's place. Must be called exactly once for each admitted socket,
+     * when its connection closes.
+     */
+    public void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    /**
+     * @return The number of admitted connections which have not yet closed.
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    private boolean isFull() {
+        return maxConnections > 0 && openConnections.get() >= maxConnections;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Socket socket = backlog.take();
+                awaitAcceptToken();
+
+                // Clients may have connected while this socket waited
+                if (isFull()) {
+                    reject(socket, SERVER_FULL_MESSAGE);
+                } else if (!socket.isClosed()) {
+                    metrics.recordConnectionAdmitted();
+                    openConnections.incrementAndGet();
+                    onAdmit.accept(socket);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shut down
+        }
+    }
+
+    private void awaitAcceptToken() throws InterruptedException {
+        if (acceptRate == null) {
+            return;
+        }
+        while (!acceptRate.tryAcquire()) {
+            TimeUnit.NANOSECONDS.sleep(acceptRate.nanosUntilAvailable());
+        }
+    }
+
+    /**
+     * Tells the client why it was turned away, then closes the socket. The message is small enough
+     * to fit the socket's send buffer, so this does not wait for the client.
+     */
+    private void reject(Socket socket, String reason) {
+        metrics.recordConnectionRejected();
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write(SocketMessageFrames.encode(
+                    new SocketMessage(SocketMessage.DISCONNECT, reason), MessageCodecs.SERIALIZED));
+            out.flush();
+        } catch (IOException e) {
+            // The client has gone already, which is fine.
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package tech.hootlab;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import tech.hootlab.client.ClientSettings;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.OddsHint;
+import tech.hootlab.core.PlayerState;
+import tech.hootlab.core.RoundState;
+
+/*
+ * BinaryMessageCodec.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A compact, hand-written wire format. Each message is a one byte opcode followed by a tagged
+ * payload. Player snapshots and cards have their own encoders (a card is a single byte), so no
+ * class descriptors or lock objects are sent, unlike Java serialization.
+ *
+ * Any other Serializable payload is still supported by falling back to Java serialization for
+ * just that payload, limited to the same classes SerializedMessageCodec accepts.
+ *
+ * Every length, ordinal and card code read is checked, so a malformed frame fails with a
+ * StreamCorruptedException rather than a runtime exception or a huge allocation.
+ */
+public class BinaryMessageCodec implements MessageCodec {
+
+    public static final byte ID = 1;
+
+    // Payload tags
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte CLIENT_SETTINGS = 2;
+    private static final byte PLAYER = 3;
+    private static final byte TABLE_SNAPSHOT = 4;
+    private static final byte PLAYER_DELTA = 5;
+    private static final byte GAME_SNAPSHOT = 6;
+    private static final byte TABLE_UPDATE = 7;
+    private static final byte ODDS_HINT = 8;
+    private static final byte SERIALIZED = 127;
+
+    @Override
+    public byte getID() {
+        return ID;
+    }
+
+    @Override
+    public void encode(SocketMessage message, DataOutputStream out) throws IOException {
+        out.writeByte(message.getCommand());
+        writePayload(message.getPayload(), out);
+    }
+
+    @Override
+    public SocketMessage decode(DataInputStream in) throws IOException {
+        int command = in.readByte();
+        return new SocketMessage(command, readPayload(in));
+    }
+
+    // Payloads
+    // --------
+
+    private void writePayload(Serializable payload, DataOutputStream out) throws IOException {
+        if (payload == null) {
+            out.writeByte(NULL);
+        } else if (payload instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) payload);
+        } else if (payload instanceof ClientSettings) {
+            out.writeByte(CLIENT_SETTINGS);
+            writeClientSettings((ClientSettings) payload, out);
+        } else if (payload instanceof PlayerSnapshot) {
+            out.writeByte(PLAYER);
+            writePlayer((PlayerSnapshot) payload, out);
+        } else if (payload instanceof PlayerDelta) {
+            out.writeByte(PLAYER_DELTA);
+            writePlayerDelta((PlayerDelta) payload, out);
+        } else if (payload instanceof TableUpdate) {
+            out.writeByte(TABLE_UPDATE);
+            writeTableUpdate((TableUpdate) payload, out);
+        } else if (payload instanceof OddsHint) {
+            out.writeByte(ODDS_HINT);
+            writeOddsHint((OddsHint) payload, out);
+        } else if (payload instanceof GameSnapshot) {
+            out.writeByte(GAME_SNAPSHOT);
+            writeGameSnapshot((GameSnapshot) payload, out);
+        } else if (payload instanceof TableSnapshot) {
+            out.writeByte(TABLE_SNAPSHOT);
+            writeTableSnapshot((TableSnapshot) payload, out);
+        } else {
+            out.writeByte(SERIALIZED);
+            writeSerialized(payload, out);
+        }
+    }
+
+    private Serializable readPayload(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+
+            case STRING:
+                return in.readUTF();
+
+            case CLIENT_SETTINGS:
+                return readClientSettings(in);
+
+            case PLAYER:
+                return readPlayer(in);
+
+            case TABLE_SNAPSHOT:
+                return readTableSnapshot(in);
+
+            case PLAYER_DELTA:
+                return readPlayerDelta(in);
+
+            case GAME_SNAPSHOT:
+                return readGameSnapshot(in);
+
+            case TABLE_UPDATE:
+                return readTableUpdate(in);
+
+            case ODDS_HINT:
+                return readOddsHint(in);
+
+            case SERIALIZED:
+                return readSerialized(in);
+
+            default:
+                throw new StreamCorruptedException("Unknown payload tag: " + tag);
+        }
+    }
+
+    // Types
+    // -----
+
+    private void writeClientSettings(ClientSettings settings, DataOutputStream out)
+            throws IOException {
+        out.writeUTF(settings.getName());
+        out.writeInt(settings.getTokens());
+        out.writeByte(settings.getCodecID());
+    }
+
+    private ClientSettings readClientSettings(DataInputStream in) throws IOException {
+        return new ClientSettings(in.readUTF(), in.readInt(), in.readByte());
+    }
+
+    private void writePlayer(PlayerSnapshot player, DataOutputStream out) throws IOException {
+        out.writeUTF(player.getID());
+        out.writeUTF(player.getName());
+        out.writeInt(player.getTokens());
+        out.writeByte(player.getStatus().ordinal());
+        writeCards(player.getCards(), out);
+    }
+
+    private PlayerSnapshot readPlayer(DataInputStream in) throws IOException {
+        String ID = in.readUTF();
+        String name = in.readUTF();
+        int tokens = in.readInt();
+        PlayerState status = readPlayerState(in);
+        return new PlayerSnapshot(ID, name, tokens, status, readCards(in));
+    }
+
+    private void writeTableSnapshot(TableSnapshot snapshot, DataOutputStream out)
+            throws IOException {
+        out.writeLong(snapshot.getSequence());
+        List<PlayerSnapshot> players = snapshot.getPlayers();
+        out.writeInt(players.size());
+        for (PlayerSnapshot player : players) {
+            writePlayer(player, out);
+        }
+    }
+
+    private TableSnapshot readTableSnapshot(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        int numPlayers = readLength(in, in.readInt());
+        List<PlayerSnapshot> players = new ArrayList<>(numPlayers);
+        for (int i = 0; i < numPlayers; i++) {
+            players.add(readPlayer(in));
+        }
+        return new TableSnapshot(sequence, players);
+    }
+
+    private void writeOptionalPlayer(PlayerSnapshot player, DataOutputStream out)
+            throws IOException {
+        out.writeBoolean(player != null);
+        if (player != null) {
+            writePlayer(player, out);
+        }
+    }
+
+    private PlayerSnapshot readOptionalPlayer(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readPlayer(in) : null;
+    }
+
+    private void writeGameSnapshot(GameSnapshot snapshot, DataOutputStream out)
+            throws IOException {
+        RoundState state = snapshot.getState();
+        out.writeByte(state == null ? -1 : state.ordinal());
+        writeTableSnapshot(snapshot.getTable(), out);
+        writeOptionalPlayer(snapshot.getDealer(), out);
+        writeOptionalPlayer(snapshot.getCurrentPlayer(), out);
+    }
+
+    private GameSnapshot readGameSnapshot(DataInputStream in) throws IOException {
+        byte stateOrdinal = in.readByte();
+        RoundState state = stateOrdinal == -1 ? null
+                : RoundState.values()[checkOrdinal(stateOrdinal, RoundState.values().length)];
+        TableSnapshot table = readTableSnapshot(in);
+        PlayerSnapshot dealer = readOptionalPlayer(in);
+        return new GameSnapshot(table, dealer, readOptionalPlayer(in), state);
+    }
+
+    private void writeTableUpdate(TableUpdate update, DataOutputStream out) throws IOException {
+        out.writeLong(update.getSequence());
+        List<PlayerDelta> deltas = update.getDeltas();
+        out.writeShort(deltas.size());
+        for (PlayerDelta delta : deltas) {
+            writePlayerDelta(delta, out);
+        }
+    }
+
+    private TableUpdate readTableUpdate(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        int size = in.readUnsignedShort();
+        List<PlayerDelta> deltas = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            deltas.add(readPlayerDelta(in));
+        }
+        return new TableUpdate(sequence, deltas);
+    }
+
+    private void writeOddsHint(OddsHint hint, DataOutputStream out) throws IOException {
+        out.writeDouble(hint.getBustProbability());
+        out.writeBoolean(hint.isAgainstDealer());
+        if (hint.isAgainstDealer()) {
+            out.writeDouble(hint.getWinProbability());
+            out.writeDouble(hint.getDrawProbability());
+            out.writeDouble(hint.getLoseProbability());
+        }
+    }
+
+    private OddsHint readOddsHint(DataInputStream in) throws IOException {
+        double bustProbability = in.readDouble();
+        if (!in.readBoolean()) {
+            return new OddsHint(bustProbability);
+        }
+        return new OddsHint(bustProbability, in.readDouble(), in.readDouble(), in.readDouble());
+    }
+
+    private void writePlayerDelta(PlayerDelta delta, DataOutputStream out) throws IOException {
+        out.writeUTF(delta.getPlayerID());
+        out.writeLong(delta.getSequence());
+        out.writeByte(delta.getKind().ordinal());
+        switch (delta.getKind()) {
+            case CARD_DEALT:
+                out.writeByte(delta.getCard().toCode());
+                break;
+
+            case TOKENS:
+                out.writeInt(delta.getTokens());
+                break;
+
+            case STATUS:
+                out.writeByte(delta.getStatus().ordinal());
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private PlayerDelta readPlayerDelta(DataInputStream in) throws IOException {
+        String playerID = in.readUTF();
+        long sequence = in.readLong();
+        PlayerDelta.Kind kind = PlayerDelta.Kind.values()[checkOrdinal(in.readByte(),
+                PlayerDelta.Kind.values().length)];
+        switch (kind) {
+            case CARD_DEALT:
+                return PlayerDelta.cardDealt(playerID, sequence, readCard(in));
+
+            case HAND_CLEARED:
+                return PlayerDelta.handCleared(playerID, sequence);
+
+            case TOKENS:
+                return PlayerDelta.tokens(playerID, sequence, in.readInt());
+
+            case STATUS:
+                return PlayerDelta.status(playerID, sequence, readPlayerState(in));
+
+            default:
+                throw new StreamCorruptedException("Unknown delta: " + kind);
+        }
+    }
+
+    private void writeCards(List<Card> cards, DataOutputStream out) throws IOException {
+        out.writeByte(cards.size());
+        for (Card card : cards) {
+            out.writeByte(card.toCode());
+        }
+    }
+
+    private List<Card> readCards(DataInputStream in) throws IOException {
+        int numCards = in.readUnsignedByte();
+        List<Card> cards = new ArrayList<>(numCards);
+        for (int i = 0; i < numCards; i++) {
+            cards.add(readCard(in));
+        }
+        return cards;
+    }
+
+    private Card readCard(DataInputStream in) throws IOException {
+        byte code = in.readByte();
+        if (code < 0 || code >= Card.DECK_SIZE) {
+            throw new StreamCorruptedException("Invalid card code: " + code);
+        }
+        return Card.fromCode(code);
+    }
+
+    private PlayerState readPlayerState(DataInputStream in) throws IOException {
+        return PlayerState.values()[checkOrdinal(in.readByte(), PlayerState.values().length)];
+    }
+
+    // Checks an enum ordinal read from the wire
+    private static int checkOrdinal(int ordinal, int numValues) throws StreamCorruptedException {
+        if (ordinal < 0 || ordinal >= numValues) {
+            throw new StreamCorruptedException("Invalid ordinal: " + ordinal);
+        }
+        return ordinal;
+    }
+
+    // Checks a length read from the wire can be no more than the bytes left in the frame
+    private static int readLength(DataInputStream in, int length) throws IOException {
+        if (length < 0 || length > Math.min(in.available(), SocketMessageFrames.MAX_FRAME_LENGTH)) {
+            throw new StreamCorruptedException("Invalid length: " + length);
+        }
+        return length;
+    }
+
+    // Fallback
+    // --------
+
+    private void writeSerialized(Serializable payload, DataOutputStream out) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(byteStream)) {
+            objectStream.writeObject(payload);
+        }
+        out.writeInt(byteStream.size());
+        byteStream.writeTo(out);
+    }
+
+    private Serializable readSerialized(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in, in.readInt())];
+        in.readFully(bytes);
+        try (ObjectInputStream objectStream =
+                SerializedMessageCodec.openFiltered(new ByteArrayInputStream(bytes))) {
+            return (Serializable) objectStream.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new StreamCorruptedException("Unknown serialized payload: " + e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package tech.hootlab;
+
+/*
+ * ClientConnection.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An interface for a single client's connection, regardless of the transport behind it. This lets
+ * the controller route messages to clients without caring whether they are served by their own
+ * threads (ClientRunner) or by a shared selector loop (NioClientConnection).
+ *
+ * Implementations must be thread-safe, as messages are sent from any thread sharing the controller.
+ */
+public interface ClientConnection {
+
+    public String getID();
+
+    /**
+     * The time the client was last heard from, used to spot dead connections (see
+     * HeartbeatMonitor). Connections start out as just heard from.
+     *
+     * @return The System.nanoTime() at which something was last read from the client.
+     */
+    public long getLastSeen();
+
+    /**
+     * Queues a message to be written to the client. This should not block on network I/O.
+     *
+     * @param message The message to send.
+     */
+    public default void sendMessage(SocketMessage message) {
+        sendFrame(new OutboundFrame(message));
+    }
+
+    /**
+     * Queues a frame to be written to the client. Implementations must encode the frame before
+     * returning, so shared frames are encoded once, on the sending thread.
+     *
+     * @param frame The frame to send.
+     */
+    public void sendFrame(OutboundFrame frame);
+
+    /**
+     * Queues a snapshot frame in place of everything waiting to be written to the client, after its
+     * queue has overflowed (see OutboundQueue). Like sendFrame, the frame is encoded before
+     * returning.
+     *
+     * @param frame The snapshot frame.
+     */
+    public void sendSnapshot(OutboundFrame frame);
+
+    /**
+     * Sets the codec used for messages sent from now on. Connections start with Java
+     * serialization, which every client understands, until the client asks for another in its
+     * CONNECT message.
+     *
+     * @param codec The codec to use.
+     */
+    public void setCodec(MessageCodec codec);
+
+    /**
+     * Closes the connection to the client.
+     */
+    public void disconnect();
+
+}
@@ -1,14 +1,17 @@
 package tech.hootlab;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import tech.hootlab.client.ClientSettings;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /*
  * ClientRunner.java
@@ -18,46 +21,173 @@ import tech.hootlab.client.ClientSettings;
  * This class manages each client's read and write thread and provides appropriate methods for
  * sending messages to the client as well as filtering the clients' messages and passing them to the
  * controller.
+ *
+ * The read and write loops only block on the socket and the message queue, never while holding a
+ * monitor, so they are safe to run on virtual threads (see ServerThreads).
+ *
+ * The writer sends everything that has queued up since its last write as one batch with a single
+ * flush, rather than flushing each frame. A deal produces a burst of updates for every client, so
+ * this turns dozens of small socket writes into a few large ones.
+ *
+ * The writer's queue is bounded (see OutboundQueue), so a client which stops reading cannot use up
+ * the server's memory.
  */
-public class ClientRunner {
+public class ClientRunner implements ClientConnection {
+
+    // Poison pill for the writer's queue. Compared by identity, so is never confused with a frame.
+    private static final byte[] POISON = new byte[0];
+
+    // Large enough that a full batch of game messages is usually sent with one socket write
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
 
     private final Socket client;
     private final String clientID;
 
     private final ClientWriter clientWriter;
+    // Uses a blocking queue as may receive messages from other threads sharing the controller.
+    // Holds encoded frames, which may be shared with other clients' writers, so are read only.
+    private final OutboundQueue<byte[]> messageQueue;
+    // Set when the server closes the socket (e.g. the client is dropped for not keeping up, or has
+    // stopped answering pings), so the reader knows the error that follows is expected
+    private volatile boolean closedByServer = false;
+    // When the reader last read a frame (see HeartbeatMonitor)
+    private volatile long lastSeen = System.nanoTime();
 
     private final Thread readThread;
     private final Thread writeThread;
 
     private ServerController controller;
+    private final ServerSettings settings;
+    private final ServerMetrics metrics;
+    // Run once the reader has finished, when the connection is closed for good
+    private final Runnable onClose;
+
+    // Read by the writer thread, set by the reader thread on CONNECT
+    private volatile MessageCodec codec = MessageCodecs.SERIALIZED;
 
     public ClientRunner(Socket client, ServerController controller) {
+        this(client, controller, Thread::new);
+    }
+
+    /**
+     * Creates a client runner whose read and write loops run on threads from the given factory.
+     *
+     * @param client        The client socket.
+     * @param controller    The server controller.
+     * @param threadFactory The factory for the read and write threads.
+     */
+    public ClientRunner(Socket client, ServerController controller, ThreadFactory threadFactory) {
+        this(client, controller, threadFactory, ServerSettings.defaults(), new ServerMetrics());
+    }
+
+    /**
+     * Creates a client runner whose writer batches according to the given settings.
+     *
+     * @param client        The client socket.
+     * @param controller    The server controller.
+     * @param threadFactory The factory for the read and write threads.
+     * @param settings      The server settings.
+     * @param metrics       The metrics to record writes and queue depth in.
+     */
+    public ClientRunner(Socket client, ServerController controller, ThreadFactory threadFactory,
+            ServerSettings settings, ServerMetrics metrics) {
+        this(client, controller, threadFactory, settings, metrics, () -> {});
+    }
+
+    /**
+     * Creates a client runner which reports when its connection closes.
+     *
+     * @param client        The client socket.
+     * @param controller    The server controller.
+     * @param threadFactory The factory for the read and write threads.
+     * @param settings      The server settings.
+     * @param metrics       The metrics to record writes and queue depth in.
+     * @param onClose       Run once, when the connection has closed (see AdmissionController).
+     */
+    public ClientRunner(Socket client, ServerController controller, ThreadFactory threadFactory,
+            ServerSettings settings, ServerMetrics metrics, Runnable onClose) {
         this.controller = controller;
+        this.settings = settings;
+        this.metrics = metrics;
+        this.onClose = onClose;
 
         this.clientID = UUID.randomUUID().toString();
         this.client = client;
 
+        try {
+            client.setTcpNoDelay(settings.isTcpNoDelay());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        messageQueue = new OutboundQueue<>(settings.getOutboundQueueCapacity(),
+                settings.getOverflowPolicy(), metrics);
+        metrics.registerQueue(clientID, messageQueue);
+
         clientWriter = new ClientWriter();
-        writeThread = new Thread(clientWriter);
+        writeThread = threadFactory.newThread(clientWriter);
         writeThread.start();
 
-        readThread = new Thread(new ClientReader());
+        readThread = threadFactory.newThread(new ClientReader());
         readThread.start();
 
     }
 
+    @Override
     public String getID() {
         return clientID;
     }
 
-    public void sendMessage(SocketMessage message) {
-        clientWriter.sendMessage(message);
+    @Override
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    @Override
+    public void sendFrame(OutboundFrame frame) {
+        try {
+            if (!messageQueue.offer(frame.encode(codec), frame.getMessage().getCommand())) {
+                onQueueOverflow();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void sendSnapshot(OutboundFrame frame) {
+        try {
+            messageQueue.reset(frame.encode(codec), frame.getMessage().getCommand());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Applies the overflow policy once this client's queue is full.
+     */
+    private void onQueueOverflow() {
+        OutboundQueue.OverflowPolicy policy = messageQueue.getPolicy();
+        metrics.recordOverflow(policy);
+        if (policy == OutboundQueue.OverflowPolicy.SNAPSHOT) {
+            controller.resync(this);
+        } else {
+            // The reader sees the socket close and removes the player
+            disconnect();
+        }
     }
 
+    @Override
+    public void setCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
     public void disconnect() {
+        closedByServer = true;
         try {
             // Send a poison pill to the blocking queue to terminate
-            sendMessage(new SocketMessage(SocketMessage.POISON, null));
+            messageQueue.offer(POISON, SocketMessage.POISON);
             // Close client connection
             client.close();
         } catch (IOException e) {
@@ -68,11 +198,11 @@ public class ClientRunner {
     // Private class so we can access instance variables
     private class ClientReader implements Runnable {
 
-        ObjectInputStream objectInputStream;
+        DataInputStream inputStream;
 
         public ClientReader() {
             try {
-                objectInputStream = new ObjectInputStream(client.getInputStream());
+                inputStream = new DataInputStream(new BufferedInputStream(client.getInputStream()));
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -82,62 +212,76 @@ public class ClientRunner {
             try {
                 SocketMessage message = null;
 
-                while ((message = (SocketMessage) objectInputStream.readObject()) != null) {
-                    switch (message.getCommand()) {
-
-                        case SocketMessage.CONNECT:
-                            controller.addPlayer(clientID, (ClientSettings) message.getPayload());
-                            break;
-
-                        case SocketMessage.HIT:
-                            controller.hit((String) clientID);
-                            break;
-
-                        case SocketMessage.STICK:
-                            controller.stick((String) clientID);
-                            break;
-
-                        case SocketMessage.DEAL:
-                            controller.deal((String) clientID);
-                            break;
-
-                        default:
-                            throw new IllegalArgumentException("API command not recognised");
-                    }
+                while ((message = SocketMessageFrames.read(inputStream)) != null) {
+                    lastSeen = System.nanoTime();
+                    controller.handleMessage(clientID, message);
                 }
 
             } catch (EOFException e) {
                 controller.removePlayer(clientID);
                 // Handles disconnecting both the read and write threads.
                 disconnect();
-            } catch (ClassNotFoundException e) {
+            } catch (RuntimeException e) {
+                // A bug triggered by this client's messages. Drop them, so their seat is freed.
                 e.printStackTrace();
+                controller.removePlayer(clientID);
+                disconnect();
             } catch (IOException e) {
-                e.printStackTrace();
+                if (closedByServer) {
+                    // We closed the socket under the reader
+                    controller.removePlayer(clientID);
+                } else {
+                    // e.g. the connection was reset, or sent a corrupt frame
+                    e.printStackTrace();
+                    controller.removePlayer(clientID);
+                    disconnect();
+                }
+            } finally {
+                onClose.run();
             }
         }
     }
 
     // Private class so we can access instance variables
     private class ClientWriter implements Runnable {
-        // Uses a blocking queue as may receive messages from other threads sharing the controller.
-        private BlockingQueue<SocketMessage> messageQueue = new LinkedBlockingQueue<>();
-        private ObjectOutputStream objectOutputStream;
+        private DataOutputStream outputStream;
+
+        // Frames in the batch being written. Only used by the writer thread.
+        private final List<byte[]> batch = new ArrayList<>();
+        private final int batchSize = settings.getWriteBatchSize();
+        private final long lingerNanos =
+                TimeUnit.MICROSECONDS.toNanos(settings.getWriteLingerMicros());
 
         public ClientWriter() {
             try {
-                objectOutputStream = new ObjectOutputStream(client.getOutputStream());
+                outputStream = new DataOutputStream(
+                        new BufferedOutputStream(client.getOutputStream(), WRITE_BUFFER_SIZE));
 
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
 
-        public void sendMessage(SocketMessage message) {
-            try {
-                messageQueue.put(message);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        /**
+         * Adds whatever else is queued to the batch, up to the batch size. If lingering is enabled,
+         * waits up to the linger time for more frames to arrive before giving up.
+         */
+        private void fillBatch() throws InterruptedException {
+            messageQueue.drainTo(batch, batchSize - batch.size());
+            if (lingerNanos == 0) {
+                return;
+            }
+
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < batchSize) {
+                long remaining = deadline - System.nanoTime();
+                byte[] frame = remaining > 0 ? messageQueue.poll(remaining, TimeUnit.NANOSECONDS)
+                        : null;
+                if (frame == null) {
+                    return;
+                }
+                batch.add(frame);
+                messageQueue.drainTo(batch, batchSize - batch.size());
             }
         }
 
@@ -149,25 +293,37 @@ public class ClientRunner {
                     // Takes from the blocking queue. I was originally using a LinkedConcurrentQueue
                     // and checking if it was empty in a loop, but this absolutely killed my CPU.
                     // Lessons learnt...
-                    SocketMessage message = messageQueue.take();
-                    if (message.getCommand().equals(SocketMessage.POISON)) {
-                        // Shut down when poison pill received from client disconnect.
-                        run = false;
-                    } else {
-                        objectOutputStream.writeObject(message);
-                        // Reset to avoid caching, as we send the same objects with different
-                        // internal states. This bug was a nightmare to find!
-                        objectOutputStream.reset();
+                    batch.add(messageQueue.take());
+                    fillBatch();
+
+                    int framesWritten = 0;
+                    for (byte[] frame : batch) {
+                        if (frame == POISON) {
+                            // Shut down when poison pill received from client disconnect.
+                            run = false;
+                            break;
+                        }
+                        // Frames were encoded when queued, so this is just a copy to the buffer.
+                        outputStream.write(frame);
+                        framesWritten++;
+                    }
+
+                    if (framesWritten > 0) {
+                        outputStream.flush();
+                        metrics.recordWriteBatch(framesWritten);
                     }
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 } catch (IOException e) {
                     e.printStackTrace();
+                } finally {
+                    batch.clear();
                 }
             }
 
+            metrics.unregisterQueue(clientID);
             try {
-                objectOutputStream.close();
+                outputStream.close();
                 client.close();
             } catch (IOException e) {
                 e.printStackTrace();
@@ -0,0 +1,66 @@
+package tech.hootlab;
+
+import java.io.Serializable;
+import java.util.List;
+import tech.hootlab.core.RoundState;
+
+/*
+ * GameSnapshot.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Everything a client needs to redraw the game from scratch: the players in the round, the dealer,
+ * the current player and the round's state.
+ *
+ * It is sent to a client whose outbound queue overflowed, in place of everything it missed. The
+ * sequence is that of the last player delta included in the snapshot, so the client can ignore any
+ * older deltas still on their way.
+ *
+ * Like the TableSnapshot it holds, it is immutable, and only built from PlayerSnapshots.
+ */
+public class GameSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final TableSnapshot table;
+    private final PlayerSnapshot dealer;
+    private final PlayerSnapshot currentPlayer;
+    // Null if no round has been set up yet
+    private final RoundState state;
+
+    public GameSnapshot(TableSnapshot table, PlayerSnapshot dealer, PlayerSnapshot currentPlayer,
+            RoundState state) {
+        this.table = table;
+        this.dealer = dealer;
+        this.currentPlayer = currentPlayer;
+        this.state = state;
+    }
+
+    public long getSequence() {
+        return table.getSequence();
+    }
+
+    public TableSnapshot getTable() {
+        return table;
+    }
+
+    public List<PlayerSnapshot> getPlayers() {
+        return table.getPlayers();
+    }
+
+    public PlayerSnapshot getDealer() {
+        return dealer;
+    }
+
+    public PlayerSnapshot getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public RoundState getState() {
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s", state, table);
+    }
+}
@@ -0,0 +1,308 @@
+package tech.hootlab;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * HashedWheelTimer.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Runs tasks after a delay, for timeouts which are nearly always cancelled before they fire (e.g.
+ * a player's turn timing out). Setting and cancelling a timeout are both O(1), however many are
+ * pending, so one timer can be shared by thousands of tables.
+ *
+ * Timeouts are kept in a wheel of buckets, each covering one tick. A single background thread
+ * wakes up every tick and fires the timeouts due in the next bucket; timeouts further away than one
+ * turn of the wheel wait for as many turns as needed. Timeouts therefore fire up to a tick late,
+ * which is fine for delays measured in seconds.
+ *
+ * New and cancelled timeouts are handed to the background thread through lock-free queues, so the
+ * buckets themselves are only ever touched by that thread and need no locks.
+ *
+ * Tasks run on the timer thread, so they must be quick. Anything longer should be passed to
+ * another executor (e.g. a table's Mailbox).
+ *
+ * Designed to be thread-safe.
+ */
+public class HashedWheelTimer {
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    // The most new or cancelled timeouts moved onto the wheel per tick, so a burst cannot stall it
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    // Set when the timer is created, so deadlines can be worked out before the thread starts
+    private final long startTime = System.nanoTime();
+    // Ticks done. Only used by the timer thread.
+    private long tick = 0;
+
+    private volatile Thread worker;
+
+    /**
+     * A task waiting on the timer, which can be cancelled until it runs.
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // Only used by the timer thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stops the task from running, if it has not already.
+         *
+         * @return true if the task will now never run.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // One bad task must not stop the timer.
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public HashedWheelTimer(String name) {
+        this(name, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a timer. Call start() to begin ticking.
+     *
+     * @param name         The name of the timer thread.
+     * @param tickDuration The length of a tick, which is the timer's precision.
+     * @param unit         The unit of the tick duration.
+     * @param wheelSize    The number of buckets, rounded up to a power of two.
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("The tick duration must be positive");
+        }
+        if (wheelSize < 1 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("The wheel size must be between 1 and 2^30");
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Starts the timer thread. It is a daemon, so it never keeps the JVM alive alone. Timeouts set
+     * before this still fire on time, once it has started.
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the timer thread. Timeouts still waiting never fire.
+     */
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Runs a task after a delay.
+     *
+     * @param task  The task, which runs on the timer thread.
+     * @param delay The delay.
+     * @param unit  The unit of the delay.
+     * @return The timeout, for cancelling the task.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // Timer thread
+    // ------------
+
+    private void run() {
+        while (true) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                // Interrupted by stop()
+                return;
+            }
+
+            removeCancelledTimeouts();
+            Bucket bucket = wheel[(int) (tick & mask)];
+            transferPendingTimeouts();
+            bucket.expireTimeouts(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the end of the current tick.
+     *
+     * @return The time the tick ended, relative to the start time, or -1 if interrupted.
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long currentTime = System.nanoTime() - startTime;
+            long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999999);
+            if (sleepMillis <= 0) {
+                return currentTime;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                return -1;
+            }
+        }
+    }
+
+    private void transferPendingTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long dueTick = (timeout.deadline - startTime) / tickNanos;
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            // Anything already overdue goes in this tick's bucket
+            long bucketTick = Math.max(dueTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = cancelledTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * The timeouts due in one tick of the wheel, in a doubly linked list so any of them can be
+     * removed in O(1). Only used by the timer thread.
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                tail = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.next = null;
+            timeout.previous = null;
+        }
+
+        /**
+         * Fires every timeout in the bucket due by the end of this tick, and brings the rest one
+         * turn of the wheel closer.
+         *
+         * @param deadline The end of this tick, relative to the start time.
+         */
+        private void expireTimeouts(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 || timeout.deadline - startTime <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
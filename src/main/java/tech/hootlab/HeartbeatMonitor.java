@@ -0,0 +1,120 @@
+package tech.hootlab;
+
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * HeartbeatMonitor.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Finds and removes dead connections. A client whose machine crashes or whose network drops never
+ * closes its socket, so without this its connection (and its seat) would be held forever.
+ *
+ * Each connection records when it last read anything from its client (see ClientConnection). A
+ * single background thread sweeps every connection once per interval: clients which have been
+ * quiet for longer than the interval are sent a PING, which a live client answers with a PONG, and
+ * clients which have been quiet for longer than the timeout are reaped. Clients which are playing
+ * are never pinged, as their game messages show they are alive.
+ *
+ * A live client is pinged at most two intervals after it was last heard from, so the timeout should
+ * be comfortably over twice the interval.
+ *
+ * Designed to be thread-safe, as long as the collection of connections is.
+ */
+public class HeartbeatMonitor {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 15000;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 45000;
+
+    // The same ping is sent to every quiet client, so it is only encoded once per codec
+    private static final OutboundFrame PING =
+            new OutboundFrame(new SocketMessage(SocketMessage.PING, null));
+
+    private final Collection<ClientConnection> connections;
+    private final Consumer<ClientConnection> reaper;
+    private final long intervalMillis;
+    private final long intervalNanos;
+    private final long timeoutNanos;
+
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a monitor. Call start() to begin sweeping.
+     *
+     * @param connections    Every connection to monitor, which may change while the monitor runs.
+     * @param reaper         Removes a dead connection. Runs on the sweeper thread.
+     * @param intervalMillis How long a client can be quiet before it is pinged.
+     * @param timeoutMillis  How long a client can be quiet before it is reaped.
+     */
+    public HeartbeatMonitor(Collection<ClientConnection> connections,
+            Consumer<ClientConnection> reaper, long intervalMillis, long timeoutMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("The heartbeat interval must be positive");
+        }
+        if (timeoutMillis <= intervalMillis) {
+            throw new IllegalArgumentException(
+                    "The heartbeat timeout must be longer than the interval");
+        }
+        this.connections = connections;
+        this.reaper = reaper;
+        this.intervalMillis = intervalMillis;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Starts the sweeper thread. It is a daemon, so it never keeps the JVM alive alone.
+     */
+    public synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep(System.nanoTime());
+            } catch (RuntimeException e) {
+                // A failed sweep must not stop the next one.
+                e.printStackTrace();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sweeper thread.
+     */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Pings every quiet connection and reaps every dead one.
+     *
+     * @param now The current System.nanoTime().
+     * @return The number of connections reaped.
+     */
+    int sweep(long now) {
+        int reaped = 0;
+        for (ClientConnection connection : connections) {
+            long quietNanos = now - connection.getLastSeen();
+            if (quietNanos > timeoutNanos) {
+                reaper.accept(connection);
+                reaped++;
+            } else if (quietNanos > intervalNanos) {
+                connection.sendFrame(PING);
+            }
+        }
+        return reaped;
+    }
+}
@@ -0,0 +1,75 @@
+package tech.hootlab;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Mailbox.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A queue of commands which are run one at a time, in the order they were submitted, on a shared
+ * executor. This makes anything only touched by a mailbox's commands single-threaded without any
+ * locks, while many mailboxes still run in parallel across the executor's threads.
+ *
+ * Only one thread drains a mailbox at once: submitting schedules a drain unless one is already
+ * scheduled. A drain runs at most THROUGHPUT commands before rescheduling itself, so one busy
+ * mailbox cannot hog an executor thread from the others. The scheduled flag is a volatile, so each
+ * drain sees everything the previous one did, even on another thread.
+ */
+public class Mailbox implements Executor {
+
+    // Commands run per drain before giving other mailboxes a turn
+    private static final int THROUGHPUT = 64;
+
+    private final Queue<Runnable> commandQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Executor executor;
+
+    public Mailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Submits a command. Returns straight away, the command is run later on the executor.
+     *
+     * @param command The command.
+     */
+    @Override
+    public void execute(Runnable command) {
+        commandQueue.add(command);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < THROUGHPUT; i++) {
+                Runnable command = commandQueue.poll();
+                if (command == null) {
+                    break;
+                }
+
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    // One bad command must not stop the rest.
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // Anything submitted while we were finishing up would have seen us as scheduled.
+            if (!commandQueue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package tech.hootlab;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/*
+ * MessageCodec.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An interface for turning SocketMessages into bytes and back. Every frame on the socket is tagged
+ * with the ID of the codec which wrote it (see SocketMessageFrames), so the receiver can always
+ * decode it, whichever codec the sender chose.
+ *
+ * Implementations must be stateless, and thus threadsafe, so one instance can be shared by all
+ * connections.
+ */
+public interface MessageCodec {
+
+    /**
+     * @return The ID written at the start of each frame body encoded by this codec.
+     */
+    public byte getID();
+
+    public void encode(SocketMessage message, DataOutputStream out) throws IOException;
+
+    public SocketMessage decode(DataInputStream in) throws IOException;
+
+}
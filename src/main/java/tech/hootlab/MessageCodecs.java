@@ -0,0 +1,57 @@
+package tech.hootlab;
+
+/*
+ * MessageCodecs.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The codecs known to this build, looked up by the ID at the start of each frame.
+ *
+ * Codec IDs run from 0 to count() - 1, so they can index arrays.
+ *
+ * Java serialization has ID 0, so that it is also what a client which does not state a preference
+ * (and so leaves the ClientSettings codec field at its default) is given.
+ */
+public final class MessageCodecs {
+
+    public static final MessageCodec SERIALIZED = new SerializedMessageCodec();
+    public static final MessageCodec BINARY = new BinaryMessageCodec();
+
+    private static final MessageCodec[] CODECS = {SERIALIZED, BINARY};
+
+    private MessageCodecs() {}
+
+    /**
+     * @return The number of codecs.
+     */
+    public static int count() {
+        return CODECS.length;
+    }
+
+    /**
+     * Looks up a codec by ID.
+     *
+     * @param codecID The codec ID.
+     * @return The codec, or null if this build does not support it.
+     */
+    public static MessageCodec forID(byte codecID) {
+        for (MessageCodec codec : CODECS) {
+            if (codec.getID() == codecID) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chooses the codec to use with a peer which asked for the given one. Falls back to Java
+     * serialization if it is not supported.
+     *
+     * @param requestedCodecID The requested codec ID.
+     * @return The codec to use.
+     */
+    public static MessageCodec negotiate(byte requestedCodecID) {
+        MessageCodec codec = forID(requestedCodecID);
+        return codec == null ? SERIALIZED : codec;
+    }
+}
@@ -0,0 +1,317 @@
+package tech.hootlab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * NioClientConnection.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A non-blocking client connection, serviced by a shared NioEventLoop rather than its own read and
+ * write threads.
+ *
+ * Incoming bytes are buffered until a full length-prefixed frame has arrived, then decoded and
+ * passed to the controller, exactly as ClientRunner's reader does. Outgoing messages are encoded on
+ * the sending thread and queued; the event loop writes them when the socket is ready. Broadcast
+ * frames are written from views of the same bytes shared with every other client.
+ *
+ * Queued frames are written in batches with a single gathering write, the non-blocking equivalent
+ * of ClientRunner's batched flush. The queue is bounded in the same way (see OutboundQueue).
+ */
+public class NioClientConnection implements ClientConnection {
+
+    private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+
+    private final String clientID;
+    private final SocketChannel channel;
+    private final NioEventLoop eventLoop;
+    private final ServerController controller;
+    private final ServerMetrics metrics;
+    // Run once, by close()
+    private final Runnable onClose;
+
+    // Encoded frames waiting to be written. Filled by any thread, drained by the event loop.
+    private final OutboundQueue<ByteBuffer> writeQueue;
+    // Stops every queued message from submitting its own write task to the loop
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile MessageCodec codec = MessageCodecs.SERIALIZED;
+    // When anything was last read from the client (see HeartbeatMonitor)
+    private volatile long lastSeen = System.nanoTime();
+
+    // Confined to the event loop
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+    // Frames taken from the write queue for the current gathering write, in order
+    private final ByteBuffer[] writeBatch;
+    private int writeBatchStart = 0;
+    private int writeBatchEnd = 0;
+
+    public NioClientConnection(SocketChannel channel, NioEventLoop eventLoop,
+            ServerController controller) {
+        this(channel, eventLoop, controller, ServerSettings.defaults(), new ServerMetrics());
+    }
+
+    public NioClientConnection(SocketChannel channel, NioEventLoop eventLoop,
+            ServerController controller, ServerSettings settings, ServerMetrics metrics) {
+        this(channel, eventLoop, controller, settings, metrics, () -> {});
+    }
+
+    /**
+     * Creates a connection which reports when it closes.
+     *
+     * @param onClose Run once, when the connection has closed (see AdmissionController).
+     */
+    public NioClientConnection(SocketChannel channel, NioEventLoop eventLoop,
+            ServerController controller, ServerSettings settings, ServerMetrics metrics,
+            Runnable onClose) {
+        this.onClose = onClose;
+        this.clientID = UUID.randomUUID().toString();
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.controller = controller;
+        this.metrics = metrics;
+        this.writeBatch = new ByteBuffer[settings.getWriteBatchSize()];
+        this.writeQueue = new OutboundQueue<>(settings.getOutboundQueueCapacity(),
+                settings.getOverflowPolicy(), metrics);
+        metrics.registerQueue(clientID, writeQueue);
+    }
+
+    @Override
+    public String getID() {
+        return clientID;
+    }
+
+    @Override
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    @Override
+    public void sendFrame(OutboundFrame frame) {
+        if (closed.get()) {
+            return;
+        }
+
+        try {
+            if (!writeQueue.offer(encode(frame), frame.getMessage().getCommand())) {
+                onQueueOverflow();
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        scheduleFlush();
+    }
+
+    @Override
+    public void sendSnapshot(OutboundFrame frame) {
+        if (closed.get()) {
+            return;
+        }
+
+        try {
+            writeQueue.reset(encode(frame), frame.getMessage().getCommand());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        scheduleFlush();
+    }
+
+    private ByteBuffer encode(OutboundFrame frame) throws IOException {
+        return frame.encodeBuffer(codec);
+    }
+
+    private void scheduleFlush() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flush);
+        }
+    }
+
+    /**
+     * Applies the overflow policy once this client's queue is full.
+     */
+    private void onQueueOverflow() {
+        OutboundQueue.OverflowPolicy policy = writeQueue.getPolicy();
+        metrics.recordOverflow(policy);
+        if (policy == OutboundQueue.OverflowPolicy.SNAPSHOT) {
+            controller.resync(this);
+        } else {
+            // Removed on the loop, not on the sending thread, which is running the table's mailbox
+            eventLoop.execute(this::removeAndClose);
+        }
+    }
+
+    @Override
+    public void setCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void disconnect() {
+        eventLoop.execute(this::close);
+    }
+
+    // Event loop methods
+    // ------------------
+
+    void register(Selector selector) throws IOException {
+        channel.configureBlocking(false);
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    void onReadable() throws IOException {
+        int bytesRead = channel.read(readBuffer);
+        if (bytesRead < 0) {
+            // End of stream, the client has gone.
+            controller.removePlayer(clientID);
+            close();
+            return;
+        }
+        // Once per read rather than per frame. Any bytes at all show the client is alive.
+        lastSeen = System.nanoTime();
+
+        readBuffer.flip();
+        while (readBuffer.remaining() >= SocketMessageFrames.HEADER_LENGTH) {
+            int frameLength = readBuffer.getInt(readBuffer.position());
+            SocketMessageFrames.checkLength(frameLength);
+
+            if (readBuffer.remaining() < SocketMessageFrames.HEADER_LENGTH + frameLength) {
+                // Wait for the rest of the frame
+                break;
+            }
+
+            readBuffer.position(readBuffer.position() + SocketMessageFrames.HEADER_LENGTH);
+            SocketMessage message = SocketMessageFrames.decode(readBuffer.array(),
+                    readBuffer.arrayOffset() + readBuffer.position(), frameLength);
+            readBuffer.position(readBuffer.position() + frameLength);
+
+            controller.handleMessage(clientID, message);
+        }
+        readBuffer.compact();
+        ensureReadCapacity();
+    }
+
+    void onWritable() throws IOException {
+        flush();
+    }
+
+    void onError(IOException e) {
+        removeAndClose();
+    }
+
+    void removeAndClose() {
+        if (!closed.get()) {
+            controller.removePlayer(clientID);
+            close();
+        }
+    }
+
+    /**
+     * Writes as much of the queue as the socket will take, then waits for OP_WRITE if needed.
+     */
+    private void flush() {
+        writeScheduled.set(false);
+        if (key == null || !key.isValid()) {
+            return;
+        }
+
+        try {
+            while (fillWriteBatch()) {
+                int batchLength = writeBatchEnd - writeBatchStart;
+                channel.write(writeBatch, writeBatchStart, batchLength);
+
+                // Drop the frames which were written in full
+                while (writeBatchStart < writeBatchEnd
+                        && !writeBatch[writeBatchStart].hasRemaining()) {
+                    writeBatch[writeBatchStart++] = null;
+                }
+                int framesWritten = batchLength - (writeBatchEnd - writeBatchStart);
+                if (framesWritten > 0) {
+                    metrics.recordWriteBatch(framesWritten);
+                }
+
+                if (writeBatchStart < writeBatchEnd) {
+                    // Socket buffer is full. Carry on when it is writable again.
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    /**
+     * Moves any unwritten frames to the front of the batch, then tops it up from the write queue.
+     *
+     * @return Whether there is anything to write.
+     */
+    private boolean fillWriteBatch() {
+        if (writeBatchStart > 0) {
+            int pending = writeBatchEnd - writeBatchStart;
+            System.arraycopy(writeBatch, writeBatchStart, writeBatch, 0, pending);
+            Arrays.fill(writeBatch, pending, writeBatchEnd, null);
+            writeBatchStart = 0;
+            writeBatchEnd = pending;
+        }
+
+        ByteBuffer frame;
+        while (writeBatchEnd < writeBatch.length && (frame = writeQueue.poll()) != null) {
+            writeBatch[writeBatchEnd++] = frame;
+        }
+        return writeBatchEnd > 0;
+    }
+
+    /**
+     * Grows the read buffer if a single frame is larger than it.
+     */
+    private void ensureReadCapacity() throws IOException {
+        if (readBuffer.position() < SocketMessageFrames.HEADER_LENGTH) {
+            return;
+        }
+
+        int frameLength = readBuffer.getInt(0);
+        SocketMessageFrames.checkLength(frameLength);
+        int required = SocketMessageFrames.HEADER_LENGTH + frameLength;
+        if (required > readBuffer.capacity()) {
+            ByteBuffer largerBuffer = ByteBuffer.allocate(required);
+            readBuffer.flip();
+            largerBuffer.put(readBuffer);
+            readBuffer = largerBuffer;
+        }
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            writeQueue.clear();
+            metrics.unregisterQueue(clientID);
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            onClose.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return clientID;
+    }
+}
@@ -0,0 +1,116 @@
+package tech.hootlab;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * NioEventLoop.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A single selector thread which services the reads and writes of many NioClientConnections.
+ *
+ * Selectors and selection keys are not safe to modify from other threads while the loop is
+ * selecting, so other threads submit tasks (registrations, write requests, closes) to a concurrent
+ * queue and wake the selector. The loop runs these tasks between selects, so ALL channel and key
+ * state is confined to this thread.
+ */
+public class NioEventLoop implements Runnable {
+
+    private final Selector selector;
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+
+    public NioEventLoop() throws IOException {
+        selector = Selector.open();
+    }
+
+    /**
+     * Runs a task on the loop's thread.
+     *
+     * @param task The task to run.
+     */
+    public void execute(Runnable task) {
+        taskQueue.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Registers a newly accepted connection with this loop.
+     *
+     * @param connection The connection to register.
+     */
+    public void register(NioClientConnection connection) {
+        execute(() -> {
+            try {
+                connection.register(selector);
+            } catch (IOException e) {
+                e.printStackTrace();
+                connection.close();
+            }
+        });
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                runTasks();
+
+                Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+                while (keyIterator.hasNext()) {
+                    SelectionKey key = keyIterator.next();
+                    keyIterator.remove();
+
+                    NioClientConnection connection = (NioClientConnection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    } catch (IOException e) {
+                        // A broken connection should not take down every other client on the loop
+                        connection.onError(e);
+                    } catch (RuntimeException e) {
+                        // Nor should a bug triggered by one client's messages
+                        e.printStackTrace();
+                        connection.removeAndClose();
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // One failed task must not stop the loop
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tech.hootlab;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/*
+ * NioServer.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A non-blocking alternative to Server. Rather than two threads per client, connections are spread
+ * round-robin across a small, fixed pool of NioEventLoops. Received messages are passed to the same
+ * ServerController as the blocking server, so only the transport differs.
+ *
+ * Controller calls only queue the action on the client's table (see Table), so an event loop never
+ * waits for a game to be played.
+ *
+ * New connections are admitted by an AdmissionController, exactly as for the blocking server.
+ */
+public class NioServer implements Runnable {
+
+    private final ServerController controller;
+    private final NioEventLoop[] eventLoops;
+    private final ServerSettings settings;
+    private final ServerMetrics metrics;
+    private final AdmissionController admission;
+    private ServerSocketChannel serverChannel;
+    // Only used by the admission thread
+    private int nextEventLoop = 0;
+
+    public NioServer(ServerSettings settings) {
+        this.settings = settings;
+        controller = new ServerController(settings);
+        metrics = new ServerMetrics();
+        metrics.startReporter(settings.getMetricsInterval());
+        eventLoops = new NioEventLoop[settings.getIOThreads()];
+
+        try {
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new NioEventLoop();
+                Thread loopThread = new Thread(eventLoops[i], "nio-event-loop-" + i);
+                loopThread.start();
+            }
+
+            // Accepts block on this server's own thread, as there is nothing else for it to do.
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(settings.getPort()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        admission = new AdmissionController(settings, metrics, this::admit);
+        admission.start();
+    }
+
+    @Override
+    public void run() {
+        while (serverChannel.isOpen()) {
+            try {
+                // Still blocking, so the admission controller can write a rejection to its socket
+                admission.offer(serverChannel.accept().socket());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void admit(Socket clientSocket) {
+        try {
+            SocketChannel clientChannel = clientSocket.getChannel();
+            clientChannel.socket().setTcpNoDelay(settings.isTcpNoDelay());
+            NioEventLoop eventLoop = eventLoops[nextEventLoop];
+            nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+
+            NioClientConnection connection =
+                    new NioClientConnection(clientChannel, eventLoop, controller, settings,
+                            metrics, admission::connectionClosed);
+            // Registration is queued before the controller's CONNECT message, so the loop
+            // always knows the channel before it is asked to write to it.
+            eventLoop.register(connection);
+            controller.addClient(connection);
+        } catch (IOException e) {
+            e.printStackTrace();
+            admission.connectionClosed();
+            try {
+                clientSocket.close();
+            } catch (IOException closeException) {
+                closeException.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package tech.hootlab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * OutboundFrame.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A message on its way to one or more clients, which remembers its encoded frame for each codec.
+ *
+ * Broadcasts create one of these and hand it to every client, so the message is encoded once per
+ * codec in use (at most two) instead of once per client. The first client to ask for a codec
+ * encodes it; everyone after that shares the same immutable bytes. Payloads are immutable (e.g.
+ * PlayerSnapshots rather than live players), so it makes no difference which thread encodes them,
+ * and a table can keep a frame to send again later.
+ *
+ * The cached bytes are never modified after encoding, so they are safe to share between threads.
+ * Each encoding is published once with a compare-and-set rather than under a lock, so writers never
+ * queue on the frame. Two threads may both encode a new codec at once, but only the first result
+ * is kept and everyone shares it.
+ */
+public class OutboundFrame {
+
+    // One encoding of the frame: its bytes, and a read-only buffer over them for channel writes
+    private static final class Encoded {
+        private final byte[] bytes;
+        private final ByteBuffer buffer;
+
+        private Encoded(byte[] bytes) {
+            this.bytes = bytes;
+            this.buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+    }
+
+    private final SocketMessage message;
+
+    // Indexed by codec ID
+    private final AtomicReferenceArray<Encoded> encodings =
+            new AtomicReferenceArray<>(MessageCodecs.count());
+
+    public OutboundFrame(SocketMessage message) {
+        this.message = message;
+    }
+
+    public SocketMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns this frame encoded with the given codec. Do not modify the returned array.
+     *
+     * @param codec The codec.
+     * @return The shared frame bytes, including the length prefix.
+     * @throws IOException If the message cannot be encoded.
+     */
+    public byte[] encode(MessageCodec codec) throws IOException {
+        return encoding(codec).bytes;
+    }
+
+    /**
+     * Returns a read-only view of this frame, for a channel write. Each call gets its own position
+     * over the same shared bytes, so each client can be written to independently.
+     *
+     * @param codec The codec.
+     * @return A new read-only buffer over the shared frame.
+     * @throws IOException If the message cannot be encoded.
+     */
+    public ByteBuffer encodeBuffer(MessageCodec codec) throws IOException {
+        return encoding(codec).buffer.duplicate();
+    }
+
+    private Encoded encoding(MessageCodec codec) throws IOException {
+        int index = codec.getID();
+        Encoded encoded = encodings.get(index);
+        if (encoded == null) {
+            encodings.compareAndSet(index, null,
+                    new Encoded(SocketMessageFrames.encode(message, codec)));
+            encoded = encodings.get(index);
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,253 @@
+package tech.hootlab;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * OutboundQueue.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A bounded queue of frames waiting to be written to one client, shared by both transports.
+ *
+ * Without a bound, a client which stops reading (a frozen UI, a bad network) would have every
+ * broadcast queued for it forever, until the server runs out of heap. When this queue is full, its
+ * OverflowPolicy decides what happens:
+ *
+ * - DISCONNECT drops the slow client.
+ * - DROP_SUPERSEDED removes queued messages which a later message makes redundant (e.g. an old
+ *   player list when a newer one is queued). Player deltas can never be dropped, so if nothing is
+ *   redundant, the client is disconnected.
+ * - SNAPSHOT throws away the whole queue and replaces it with a snapshot of the game, which brings
+ *   the client up to date in one message.
+ *
+ * The queue does the dropping itself. For the other policies, offer() returns false and the
+ * connection acts on it.
+ *
+ * Guarded by a ReentrantLock rather than synchronized, as writers may be virtual threads.
+ */
+public class OutboundQueue<T> {
+
+    /**
+     * What to do when a client's queue is full.
+     */
+    public enum OverflowPolicy {
+        DISCONNECT, DROP_SUPERSEDED, SNAPSHOT
+    }
+
+    // A queued element and the command it carries
+    private static class Entry<T> {
+        final T element;
+        final int command;
+
+        Entry(T element, int command) {
+            this.element = element;
+            this.command = command;
+        }
+    }
+
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ServerMetrics metrics;
+
+    public OutboundQueue(int capacity, OverflowPolicy policy, ServerMetrics metrics) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Queues an element if there is room, first dropping superseded messages if that is the policy.
+     * Control elements (see isControl) are always queued.
+     *
+     * @param element The element.
+     * @param command The SocketMessage command it carries.
+     * @return False if the queue is full and the connection must apply its overflow policy.
+     */
+    public boolean offer(T element, int command) {
+        lock.lock();
+        try {
+            if (entries.size() >= capacity && !isControl(command)
+                    && (policy != OverflowPolicy.DROP_SUPERSEDED || dropSuperseded(command) == 0)) {
+                return false;
+            }
+            add(element, command);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces everything queued with a single element, such as a snapshot. Queued disconnects and
+     * poison pills are kept, after the new element.
+     *
+     * @param element The element.
+     * @param command The SocketMessage command it carries.
+     */
+    public void reset(T element, int command) {
+        lock.lock();
+        try {
+            entries.removeIf(entry -> !isControl(entry.command));
+            entries.addFirst(new Entry<>(element, command));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The next element, or null if the queue is empty.
+     */
+    public T poll() {
+        lock.lock();
+        try {
+            Entry<T> entry = entries.poll();
+            return entry == null ? null : entry.element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to the timeout for an element.
+     *
+     * @param timeout The timeout.
+     * @param unit    The timeout unit.
+     * @return The next element, or null if none arrived in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (entries.isEmpty()) {
+                if (remainingNanos <= 0) {
+                    return null;
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            return entries.poll().element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for an element.
+     *
+     * @return The next element.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public T take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+            return entries.poll().element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to maxElements queued elements to the given collection, without waiting.
+     *
+     * @param collection  The collection to add to.
+     * @param maxElements The maximum number of elements to move.
+     * @return The number moved.
+     */
+    public int drainTo(Collection<? super T> collection, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && !entries.isEmpty()) {
+                collection.add(entries.poll().element);
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of queued elements, i.e. how far behind the client is.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a command ends the connection, so must never be dropped or refused for lack of room.
+     *
+     * @param command The SocketMessage command.
+     * @return True for disconnects and poison pills.
+     */
+    public static boolean isControl(int command) {
+        return command == SocketMessage.DISCONNECT || command == SocketMessage.POISON;
+    }
+
+    // Must hold the lock
+    private void add(T element, int command) {
+        entries.add(new Entry<>(element, command));
+        notEmpty.signal();
+    }
+
+    /**
+     * Removes every supersedable entry which is followed by another with the same command, counting
+     * the element about to be queued as the last. Must hold the lock.
+     *
+     * @return The number of entries removed.
+     */
+    private int dropSuperseded(int newCommand) {
+        Set<Integer> laterCommands = new HashSet<>();
+        laterCommands.add(newCommand);
+
+        int dropped = 0;
+        Iterator<Entry<T>> iterator = entries.descendingIterator();
+        while (iterator.hasNext()) {
+            int command = iterator.next().command;
+            if (SocketMessage.isSupersedable(command) && !laterCommands.add(command)) {
+                iterator.remove();
+                dropped++;
+            }
+        }
+
+        metrics.recordSupersededDrops(dropped);
+        return dropped;
+    }
+}
@@ -0,0 +1,90 @@
+package tech.hootlab;
+
+import java.io.Serializable;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.PlayerState;
+
+/*
+ * PlayerDelta.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An immutable description of a single change to a player, sent instead of the whole Player
+ * object in HAND_UPDATE, TOKEN_UPDATE and STATUS_UPDATE messages. Clients apply these to their own
+ * copies of the players.
+ *
+ * Each delta carries the table's sequence number at the time of the change. These increase by one
+ * per delta, so clients can spot (and ignore) anything stale or out of order.
+ */
+public class PlayerDelta implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind {
+        CARD_DEALT, HAND_CLEARED, TOKENS, STATUS
+    }
+
+    private final Kind kind;
+    private final String playerID;
+    private final long sequence;
+
+    // Only the field relevant to the kind is set
+    private final Card card;
+    private final int tokens;
+    private final PlayerState status;
+
+    private PlayerDelta(Kind kind, String playerID, long sequence, Card card, int tokens,
+            PlayerState status) {
+        this.kind = kind;
+        this.playerID = playerID;
+        this.sequence = sequence;
+        this.card = card;
+        this.tokens = tokens;
+        this.status = status;
+    }
+
+    public static PlayerDelta cardDealt(String playerID, long sequence, Card card) {
+        return new PlayerDelta(Kind.CARD_DEALT, playerID, sequence, card, 0, null);
+    }
+
+    public static PlayerDelta handCleared(String playerID, long sequence) {
+        return new PlayerDelta(Kind.HAND_CLEARED, playerID, sequence, null, 0, null);
+    }
+
+    public static PlayerDelta tokens(String playerID, long sequence, int tokens) {
+        return new PlayerDelta(Kind.TOKENS, playerID, sequence, null, tokens, null);
+    }
+
+    public static PlayerDelta status(String playerID, long sequence, PlayerState status) {
+        return new PlayerDelta(Kind.STATUS, playerID, sequence, null, 0, status);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getPlayerID() {
+        return playerID;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    public PlayerState getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s %s", sequence, playerID, kind,
+                kind == Kind.CARD_DEALT ? card : kind == Kind.TOKENS ? tokens : status);
+    }
+}
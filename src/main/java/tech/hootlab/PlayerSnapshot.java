@@ -0,0 +1,94 @@
+package tech.hootlab;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.PlayerState;
+
+/*
+ * PlayerSnapshot.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An immutable copy of a player as they were at one moment: their ID, name, tokens, status and
+ * hand. Sent instead of the live Player object in SET_USER, ROUND_STARTED and ROUND_PLAYER_CHANGE
+ * messages, and as part of TableSnapshots and GameSnapshots.
+ *
+ * Snapshots are taken on the table's mailbox, between game actions, so they are always consistent.
+ * The messages holding them can then be encoded later on any writer thread without touching the
+ * player (or its locks), and the same snapshot can be shared by as many messages as need it.
+ */
+public class PlayerSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String ID;
+    private final String name;
+    private final int tokens;
+    private final PlayerState status;
+    private final ArrayList<Card> cards;
+
+    public PlayerSnapshot(String ID, String name, int tokens, PlayerState status,
+            List<Card> cards) {
+        this.ID = ID;
+        this.name = name;
+        this.tokens = tokens;
+        this.status = status;
+        this.cards = new ArrayList<>(cards);
+    }
+
+    /**
+     * Takes a snapshot of a player. Must be called from the only thread changing the player.
+     *
+     * @param player The player, or null.
+     * @return The snapshot, or null if the player was null.
+     */
+    public static PlayerSnapshot of(Player player) {
+        if (player == null) {
+            return null;
+        }
+        return new PlayerSnapshot(player.getID(), player.getName(), player.getTokens(),
+                player.getStatus(), player.getHand().getCardList());
+    }
+
+    public String getID() {
+        return ID;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    public PlayerState getStatus() {
+        return status;
+    }
+
+    public List<Card> getCards() {
+        return Collections.unmodifiableList(cards);
+    }
+
+    /**
+     * Builds a new Player from the snapshot, e.g. for a client's own copy of the players.
+     *
+     * @return The player.
+     */
+    public Player toPlayer() {
+        Player player = new Player(ID, name, tokens);
+        for (Card card : cards) {
+            player.addCardToHand(card);
+        }
+        player.setStatus(status);
+        return player;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %d %s %s", ID, name, tokens, status, cards);
+    }
+}
@@ -0,0 +1,77 @@
+package tech.hootlab;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+
+/*
+ * SerializedMessageCodec.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The original wire format: the whole SocketMessage written with Java serialization. It works for
+ * any Serializable payload, so it is the fallback when a peer does not support anything better.
+ *
+ * Each message gets its own object stream, so nothing is cached between frames.
+ *
+ * Frames come from untrusted peers, so only the game's own message classes may be deserialized, and
+ * the depth and array sizes of the object graph are capped. Anything else fails the frame.
+ */
+public class SerializedMessageCodec implements MessageCodec {
+
+    public static final byte ID = 0;
+
+    // The only classes a frame may contain. Arrays are matched on their element type, so
+    // java.lang.Object is for the array inside ArrayList.
+    private static final ObjectInputFilter MESSAGE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=16;maxarray=65536;maxbytes=" + SocketMessageFrames.MAX_FRAME_LENGTH
+                    + ";tech.hootlab.SocketMessage;tech.hootlab.PlayerSnapshot"
+                    + ";tech.hootlab.TableSnapshot;tech.hootlab.GameSnapshot"
+                    + ";tech.hootlab.TableUpdate;tech.hootlab.PlayerDelta"
+                    + ";tech.hootlab.PlayerDelta$Kind;tech.hootlab.client.ClientSettings"
+                    + ";tech.hootlab.core.Card;tech.hootlab.core.CardSuits"
+                    + ";tech.hootlab.core.CardRanks;tech.hootlab.core.PlayerState"
+                    + ";tech.hootlab.core.RoundState;tech.hootlab.core.OddsHint"
+                    + ";java.lang.String;java.lang.Enum;java.lang.Number;java.lang.Integer"
+                    + ";java.lang.Long;java.lang.Object;java.util.ArrayList;!*");
+
+    @Override
+    public byte getID() {
+        return ID;
+    }
+
+    @Override
+    public void encode(SocketMessage message, DataOutputStream out) throws IOException {
+        ObjectOutputStream objectStream = new ObjectOutputStream(out);
+        objectStream.writeObject(message);
+        objectStream.flush();
+    }
+
+    @Override
+    public SocketMessage decode(DataInputStream in) throws IOException {
+        ObjectInputStream objectStream = openFiltered(in);
+        try {
+            return (SocketMessage) objectStream.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new StreamCorruptedException("Frame does not contain a SocketMessage: " + e);
+        }
+    }
+
+    /**
+     * Opens an object stream which only accepts the game's message classes.
+     *
+     * @param in The stream to read.
+     * @return The object stream.
+     * @throws IOException If the stream header cannot be read.
+     */
+    static ObjectInputStream openFiltered(InputStream in) throws IOException {
+        ObjectInputStream objectStream = new ObjectInputStream(in);
+        objectStream.setObjectInputFilter(MESSAGE_FILTER);
+        return objectStream;
+    }
+}
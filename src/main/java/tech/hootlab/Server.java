@@ -3,6 +3,7 @@ package tech.hootlab;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ThreadFactory;
 
 /*
  * Server.java
@@ -10,22 +11,41 @@ import java.net.Socket;
  * Gareth Sears - 2493194S
  *
  * This class initialises the server socket and creates appropriate ClientRunners for each
- * connection.
+ * connection. Accepted sockets are passed through an AdmissionController first, which limits how
+ * fast, and how many, clients are let in.
+ *
+ * This is the default, blocking transport. Setting -Dtwentyone.transport=nio runs the NioServer
+ * instead (see ServerSettings). Setting -Dtwentyone.threads=virtual runs each client's read / write
+ * loops on virtual threads.
  */
 public class Server implements Runnable {
     public static final int SERVER_SOCKET = 1337;
 
     private ServerSocket server;
     private ServerController controller;
+    private ThreadFactory clientThreadFactory;
+    private ServerSettings settings;
+    private ServerMetrics metrics;
+    private AdmissionController admission;
 
     public Server() {
-        controller = new ServerController();
-        connect();
+        this(ServerSettings.defaults());
+    }
+
+    public Server(ServerSettings settings) {
+        this.settings = settings;
+        controller = new ServerController(settings);
+        metrics = new ServerMetrics();
+        metrics.startReporter(settings.getMetricsInterval());
+        clientThreadFactory = ServerThreads.newFactory(settings.getThreadMode(), "client-");
+        admission = new AdmissionController(settings, metrics, this::admit);
+        admission.start();
+        connect(settings.getPort());
     }
 
-    private void connect() {
+    private void connect(int port) {
         try {
-            server = new ServerSocket(SERVER_SOCKET);
+            server = new ServerSocket(port);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -34,19 +54,36 @@ public class Server implements Runnable {
     @Override
     public void run() {
         while (true) {
-            Socket clientSocket = null;
             try {
-                clientSocket = server.accept();
-                controller.addClient(new ClientRunner(clientSocket, controller));
+                admission.offer(server.accept());
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    private void admit(Socket clientSocket) {
+        // Runs on the admission thread. Setting up the runner only starts its read and write
+        // threads, so there is nothing slow to hand off.
+        controller.addClient(new ClientRunner(clientSocket, controller, clientThreadFactory,
+                settings, metrics, admission::connectionClosed));
+    }
+
     public static void main(String[] args) {
+        ServerSettings settings = ServerSettings.fromSystemProperties();
+
+        Runnable server;
+        switch (settings.getTransport()) {
+            case NIO:
+                server = new NioServer(settings);
+                break;
+
+            default:
+                server = new Server(settings);
+                break;
+        }
 
-        Thread t = new Thread(new Server());
+        Thread t = new Thread(server);
         t.start();
 
         try {
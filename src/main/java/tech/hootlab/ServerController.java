@@ -1,164 +1,326 @@
 package tech.hootlab;
 
-import java.io.Serializable;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import tech.hootlab.client.ClientSettings;
-import tech.hootlab.core.Player;
-import tech.hootlab.core.Round;
-import tech.hootlab.core.RoundState;
+import tech.hootlab.core.ShoePool;
+import tech.hootlab.core.SplittableShuffleSource;
 
 /*
  * ServerController.java
  *
  * Gareth Sears - 2493194S
  *
- * This class is responsible for routing messages between the clients and the model. As the model is
- * designed to be thread-safe, little synchronisation is done here, but it does use a
- * ConcurrentHashMap to keep track of clients.
+ * This class is responsible for routing messages between the clients and the tables they are
+ * seated at. As the tables are designed to be thread-safe, little synchronisation is done here,
+ * but it does use ConcurrentHashMaps to keep track of clients and their tables.
  *
- * It manages most of its client interactions by listening to the model.
+ * Each table manages its own client interactions by listening to its model (see Table). Players
+ * are seated by the TableManager when they connect, and their game actions are passed to their
+ * table, so tables play independently of each other.
+ *
+ * Game actions are queued on the table's mailbox rather than run here, so the calling thread (a
+ * client reader or an event loop) is free again straight away. The tables' mailboxes share one
+ * executor, sized by the server settings. The tables also share a pool of shoes, shuffled ahead of
+ * time on a background thread, and a TurnScheduler, which times out idle players on a single
+ * HashedWheelTimer.
+ *
+ * A HeartbeatMonitor sweeps every connected client, pinging quiet ones and removing any which have
+ * stopped answering, exactly as if they had disconnected.
+ *
+ * Game commands are checked before they are queued: each client has a TokenBucket limiting how
+ * many it can send a second, and the table drops commands sent out of turn (see TableView). Either
+ * way the command is dropped here, on the client's own thread, without touching the table.
  */
 public class ServerController {
 
     // This is hard coded, but could be modified in later versions.
     public final int ROUND_STAKE = 20;
 
-    // For propagating messages to all clients
-    private Map<String, ClientRunner> clientMap = new ConcurrentHashMap<>();
-    private ServerModel model;
+    // Every connected client, seated or not
+    private Map<String, ClientConnection> clientMap = new ConcurrentHashMap<>();
+    // The table each seated client is at
+    private Map<String, Table> tableMap = new ConcurrentHashMap<>();
+    private final TableManager tableManager;
+
+    // Each client's command rate limit. Only used by the thread reading that client's messages.
+    private Map<String, TokenBucket> commandLimits = new ConcurrentHashMap<>();
+    // Commands per second allowed from each client, or zero for no limit, and the longest burst
+    private volatile int commandRate = 0;
+    private volatile int commandBurst = 1;
+    private final LongAdder droppedCommands = new LongAdder();
 
     public ServerController() {
-        // Create the model locally to avoid to much shared state in multithread environment.
-        this.model = new ServerModel(ROUND_STAKE);
-
-        // Attach listeners to the model's round object.
-        // Uses anonymous lambda functions for brevity.
-        model.addRoundPropertyChangeListener(Round.CURRENT_PLAYER_CHANGE_EVENT, evt -> {
-            sendMessageToAll(SocketMessage.ROUND_PLAYER_CHANGE, (Player) evt.getNewValue());
-        });
-
-        model.addRoundPropertyChangeListener(Round.DEALER_CHANGE_EVENT, evt -> {
-            Player newDealer = (Player) evt.getNewValue();
-            model.setDealer(newDealer);
-        });
-
-        model.addRoundPropertyChangeListener(Round.STATE_CHANGE_EVENT, evt -> {
-            RoundState roundState = (RoundState) evt.getNewValue();
-            switch (roundState) {
-                case READY:
-                    sendMessageToAll(SocketMessage.SET_PLAYERS,
-                            // Cast to Serializable, as we do not know the type of List from
-                            // Collections.unmodifiableList, but it is guaranteed to be Serializable
-                            // as per docs.
-                            (Serializable) model.getPlayersInRound());
-                    sendMessageToAll(SocketMessage.ROUND_STARTED, model.getDealer());
-                    break;
+        this(ServerSettings.defaults());
+    }
 
-                case IN_PROGRESS:
-                    sendMessageToAll(SocketMessage.ROUND_IN_PROGRESS, null);
-                    break;
+    /**
+     * Creates a controller whose tables are sized and run as per the server settings.
+     *
+     * @param settings The server settings.
+     */
+    public ServerController(ServerSettings settings) {
+        this(settings.getMaxSeats(), ServerThreads.newExecutor(settings.getThreadMode(), "table-",
+                settings.getTableThreads()), newShoePool(settings), newTurnScheduler(settings));
+        limitCommands(settings.getCommandRate(), settings.getCommandBurst());
+        if (settings.getHeartbeatIntervalMillis() > 0) {
+            startHeartbeat(settings.getHeartbeatIntervalMillis(),
+                    settings.getHeartbeatTimeoutMillis());
+        }
+    }
 
-                case FINISHED:
-                    sendMessageToAll(SocketMessage.ROUND_FINISHED, null);
-                    // Kick out any dead-beat no has-moneys.
-                    List<Player> brokeList = model.removeBrokePlayers();
-                    // This will disconnect them clientside, which will in turn remove them return
-                    // an end of file connection in ClientRunner which will initialize standard
-                    // removal process.
-                    brokeList.forEach(p -> sendMessage(p.getID(), SocketMessage.DISCONNECT, null));
-
-                    // Start new round
-                    model.initialiseNextRound();
-                    break;
+    /**
+     * Creates a controller which seats at most the given number of players at each table.
+     *
+     * @param maxSeats The maximum number of players per table.
+     * @param executor The executor the tables' mailboxes run on.
+     */
+    public ServerController(int maxSeats, Executor executor) {
+        this(maxSeats, executor, ShoePool.freshDeckEachRound());
+    }
+
+    /**
+     * Creates a controller which seats at most the given number of players at each table.
+     *
+     * @param maxSeats The maximum number of players per table.
+     * @param executor The executor the tables' mailboxes run on.
+     * @param shoePool The pool of shuffled shoes the tables deal from.
+     */
+    public ServerController(int maxSeats, Executor executor, ShoePool shoePool) {
+        this(maxSeats, executor, shoePool, TurnScheduler.none());
+    }
+
+    /**
+     * Creates a controller which seats at most the given number of players at each table.
+     *
+     * @param maxSeats      The maximum number of players per table.
+     * @param executor      The executor the tables' mailboxes run on.
+     * @param shoePool      The pool of shuffled shoes the tables deal from.
+     * @param turnScheduler Times out idle players at every table.
+     */
+    public ServerController(int maxSeats, Executor executor, ShoePool shoePool,
+            TurnScheduler turnScheduler) {
+        tableManager = new TableManager(maxSeats, ROUND_STAKE, executor, shoePool, turnScheduler);
+    }
+
+    private static ShoePool newShoePool(ServerSettings settings) {
+        Long seed = settings.getShuffleSeed();
+        SplittableShuffleSource seeds =
+                seed == null ? new SplittableShuffleSource() : new SplittableShuffleSource(seed);
+        ShoePool shoePool = new ShoePool(settings.getShoeDecks(), settings.getShoePenetration(),
+                settings.getShoePoolSize(), seeds);
+        shoePool.start();
+        return shoePool;
+    }
+
+    private static TurnScheduler newTurnScheduler(ServerSettings settings) {
+        if (settings.getTurnTimeoutMillis() <= 0 && settings.getAutoDealDelayMillis() <= 0) {
+            return TurnScheduler.none();
+        }
+        HashedWheelTimer timer = new HashedWheelTimer("turn-timer", settings.getTimerTickMillis(),
+                TimeUnit.MILLISECONDS, HashedWheelTimer.DEFAULT_WHEEL_SIZE);
+        timer.start();
+        return new TurnScheduler(timer, settings.getTurnTimeoutMillis(),
+                settings.getAutoDealDelayMillis());
+    }
+
+    /**
+     * Starts pinging quiet clients, and removing those which stop answering.
+     *
+     * @param intervalMillis How long a client can be quiet before it is pinged.
+     * @param timeoutMillis  How long a client can be quiet before it is removed.
+     * @return The started monitor.
+     */
+    public HeartbeatMonitor startHeartbeat(long intervalMillis, long timeoutMillis) {
+        HeartbeatMonitor monitor =
+                new HeartbeatMonitor(clientMap.values(), this::reap, intervalMillis, timeoutMillis);
+        monitor.start();
+        return monitor;
+    }
 
-                default:
-                    throw new IllegalStateException(roundState + " is not a state that is handled");
-            }
-        });
+    /**
+     * Removes a client which has stopped answering pings, then closes their connection.
+     *
+     * @param client The dead client.
+     */
+    private void reap(ClientConnection client) {
+        removePlayer(client.getID());
+        client.disconnect();
     }
 
-    public void addClient(ClientRunner client) {
+    /**
+     * Limits how many game commands each client can send, from the next client to connect.
+     *
+     * @param commandsPerSecond The steady rate allowed, or zero for no limit.
+     * @param burst             The most commands allowed at once.
+     */
+    public void limitCommands(int commandsPerSecond, int burst) {
+        commandRate = commandsPerSecond;
+        commandBurst = burst;
+    }
+
+    public void addClient(ClientConnection client) {
         final String clientID = client.getID();
+        if (commandRate > 0) {
+            commandLimits.put(clientID, new TokenBucket(commandRate, commandBurst));
+        }
         clientMap.put(clientID, client);
         // Send the client their ID on connection
         sendMessage(clientID, new SocketMessage(SocketMessage.CONNECT, clientID));
     }
 
-    public void addPlayer(String clientID, ClientSettings settings) {
-        // No need to synchronise this, as it's all setup code which only pertains to the
-        // caller... no shared state outside of this method.
+    /**
+     * Routes a message received from a client to the appropriate controller action. This is shared
+     * by all transports, so the game logic is the same however the client is connected.
+     *
+     * Messages which make no sense (unknown commands, or a CONNECT without settings) are ignored
+     * rather than thrown, as they come from the network and must not break the caller's loop.
+     *
+     * @param clientID The ID of the client who sent the message.
+     * @param message  The message received.
+     */
+    public void handleMessage(String clientID, SocketMessage message) {
+        switch (message.getCommand()) {
+
+            case SocketMessage.CONNECT:
+                if (!(message.getPayload() instanceof ClientSettings)) {
+                    break;
+                }
+                ClientSettings settings = (ClientSettings) message.getPayload();
+                // Switch to the client's preferred codec (if we support it) before anything else
+                // is sent to them as a player.
+                ClientConnection client = clientMap.get(clientID);
+                if (client != null) {
+                    client.setCodec(MessageCodecs.negotiate(settings.getCodecID()));
+                }
+                addPlayer(clientID, settings);
+                break;
 
-        // Create player and listen for changes to propogate to clients
-        Player player = new Player(clientID, settings.getName(), settings.getTokens());
+            case SocketMessage.HIT:
+                if (isWithinLimit(clientID)) {
+                    hit(clientID);
+                }
+                break;
 
-        // Attach listeners to the player object
-        // These generally indicate changes to clients
-        player.addPropertyChangeListener(Player.HAND_CHANGE_EVENT, evt -> {
-            sendMessageToAll(SocketMessage.HAND_UPDATE, (Player) evt.getSource());
-        });
+            case SocketMessage.STICK:
+                if (isWithinLimit(clientID)) {
+                    stick(clientID);
+                }
+                break;
 
-        player.addPropertyChangeListener(Player.TOKEN_CHANGE_EVENT, evt -> {
-            sendMessageToAll(SocketMessage.TOKEN_UPDATE, (Player) evt.getSource());
-        });
+            case SocketMessage.DEAL:
+                if (isWithinLimit(clientID)) {
+                    deal(clientID);
+                }
+                break;
 
-        player.addPropertyChangeListener(Player.STATUS_CHANGE_EVENT, evt -> {
-            sendMessageToAll(SocketMessage.STATUS_UPDATE, (Player) evt.getSource());
-        });
+            case SocketMessage.PING:
+                sendMessage(clientID, new SocketMessage(SocketMessage.PONG, null));
+                break;
 
-        // Send the client their player object.
-        sendMessage(clientID, SocketMessage.SET_USER, player);
-        // Send the client a list of the current players so they can spectate round in
-        // progress
-        sendMessage(clientID, SocketMessage.SET_PLAYERS, (Serializable) model.getPlayersInRound());
+            case SocketMessage.PONG:
+                // Reading it was enough to show the client is alive
+                break;
 
-        // This is internally thread-safe. Delays getting here should be tolerable as in the
-        // totally unlikely worst case scenario, the player will miss a round or two, but the
-        // game's logic will be sound. Like all concurrent things... we'll 'eventually' be good.
-        model.addPlayer(player);
+            default:
+                // Not a command clients send, so ignore it
+                break;
+        }
+    }
+
+    /**
+     * Takes one of a client's commands from their rate limit.
+     *
+     * @param clientID The client's ID.
+     * @return Whether the command is allowed, otherwise it is counted as dropped.
+     */
+    private boolean isWithinLimit(String clientID) {
+        TokenBucket limit = commandLimits.get(clientID);
+        if (limit == null || limit.tryAcquire()) {
+            return true;
+        }
+        droppedCommands.increment();
+        return false;
+    }
+
+    public void addPlayer(String clientID, ClientSettings settings) {
+        ClientConnection client = clientMap.get(clientID);
+        if (client == null || tableMap.containsKey(clientID)) {
+            // Already gone, or already seated
+            return;
+        }
+
+        Table table = tableManager.seat();
+        tableMap.put(clientID, table);
+        table.addPlayer(client, settings);
     }
 
     public void removePlayer(String clientID) {
         // Remove client from map so they are not updated with subsequent messages
         clientMap.remove(clientID);
-        // This is internally thread-safe
-        model.removePlayer(clientID);
+        commandLimits.remove(clientID);
 
+        Table table = tableMap.remove(clientID);
+        if (table != null) {
+            table.removePlayer(clientID);
+            tableManager.leave(table);
+        }
     }
 
     public void hit(String ID) {
-        model.hitWithCurrentPlayer();
+        Table table = tableMap.get(ID);
+        if (table != null && !table.hit(ID)) {
+            droppedCommands.increment();
+        }
     }
 
     public void stick(String ID) {
-        model.stickWithCurrentPlayer();
+        Table table = tableMap.get(ID);
+        if (table != null && !table.stick(ID)) {
+            droppedCommands.increment();
+        }
     }
 
     public void deal(String ID) {
-        model.startRound();
+        Table table = tableMap.get(ID);
+        if (table != null && !table.deal(ID)) {
+            droppedCommands.increment();
+        }
     }
 
-    private void sendMessageToAll(String message, Serializable payload) {
-        sendMessageToAll(new SocketMessage(message, payload));
+    /**
+     * Replaces everything queued for a client with a snapshot of their table. Called when a slow
+     * client's outbound queue overflows (see OutboundQueue).
+     *
+     * @param client The client to bring up to date.
+     */
+    public void resync(ClientConnection client) {
+        Table table = tableMap.get(client.getID());
+        if (table != null) {
+            table.resync(client);
+        }
     }
 
-    private void sendMessageToAll(SocketMessage messageObject) {
-        // In spec: Iterators are designed to be only used by one thread at a time
-        // so we lock the map here.
-        synchronized (clientMap) {
-            clientMap.values().forEach(client -> {
-                client.sendMessage(messageObject);
-            });
-        }
+    /**
+     * @return The number of game commands dropped, for going over a client's rate limit or being
+     *         sent out of turn.
+     */
+    public long getDroppedCommands() {
+        return droppedCommands.sum();
     }
 
-    private void sendMessage(String ID, String message, Serializable payload) {
-        sendMessage(ID, new SocketMessage(message, payload));
+    /**
+     * @return The number of tables currently open.
+     */
+    public int getTableCount() {
+        return tableManager.getTableCount();
     }
 
     private void sendMessage(String ID, SocketMessage messageObject) {
-        ClientRunner client = clientMap.get(ID);
+        ClientConnection client = clientMap.get(ID);
         if (client != null) {
             client.sendMessage(messageObject);
         }
@@ -0,0 +1,211 @@
+package tech.hootlab;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * ServerMetrics.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Counters describing how the server's transports are behaving, shared by every client connection.
+ *
+ * Writers record each batch of frames they send to a client with a single flush (or gathering
+ * write). From this we get the average batch size, and roughly how many socket writes batching has
+ * saved compared to flushing every frame on its own. These are what to watch when tuning the write
+ * batch size and linger time (see ServerSettings).
+ *
+ * Each client's outbound queue is also registered here, so its depth shows how far behind that
+ * client is. Queue overflows are counted by what was done about them.
+ *
+ * New connections are counted as they are admitted or rejected (see AdmissionController), and the
+ * admission backlog's length shows how many are waiting.
+ *
+ * LongAdders are used as every writer updates them, so they must not become a point of contention.
+ */
+public class ServerMetrics {
+
+    private final LongAdder writeBatches = new LongAdder();
+    private final LongAdder framesWritten = new LongAdder();
+
+    private final Map<String, OutboundQueue<?>> queues = new ConcurrentHashMap<>();
+    private final LongAdder supersededDrops = new LongAdder();
+    private final LongAdder overflowDisconnects = new LongAdder();
+    private final LongAdder overflowSnapshots = new LongAdder();
+
+    private final LongAdder connectionsAdmitted = new LongAdder();
+    private final LongAdder connectionsRejected = new LongAdder();
+    private volatile Collection<?> admissionBacklog = Collections.emptyList();
+
+    /**
+     * Records a batch of frames written to a client with one flush.
+     *
+     * @param frameCount The number of frames in the batch.
+     */
+    public void recordWriteBatch(int frameCount) {
+        writeBatches.increment();
+        framesWritten.add(frameCount);
+    }
+
+    public long getWriteBatches() {
+        return writeBatches.sum();
+    }
+
+    public long getFramesWritten() {
+        return framesWritten.sum();
+    }
+
+    /**
+     * @return The average number of frames per flush, or 0 if nothing has been written.
+     */
+    public double getAverageBatchSize() {
+        long batches = getWriteBatches();
+        return batches == 0 ? 0 : (double) getFramesWritten() / batches;
+    }
+
+    /**
+     * @return The number of flushes avoided by batching, compared to one flush per frame.
+     */
+    public long getSyscallsSaved() {
+        return getFramesWritten() - getWriteBatches();
+    }
+
+    // Outbound queues
+    // ---------------
+
+    public void registerQueue(String clientID, OutboundQueue<?> queue) {
+        queues.put(clientID, queue);
+    }
+
+    public void unregisterQueue(String clientID) {
+        queues.remove(clientID);
+    }
+
+    /**
+     * @param clientID The client ID.
+     * @return The number of frames waiting to be written to the client, or 0 if it is unknown.
+     */
+    public int getQueueDepth(String clientID) {
+        OutboundQueue<?> queue = queues.get(clientID);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Lists the clients with the most frames waiting, deepest first. Clients with empty queues are
+     * not listed.
+     *
+     * @param limit The maximum number of clients to list.
+     * @return Client ID and queue depth pairs.
+     */
+    public List<Map.Entry<String, Integer>> getLaggingClients(int limit) {
+        List<Map.Entry<String, Integer>> depths = new ArrayList<>();
+        queues.forEach((clientID, queue) -> {
+            int depth = queue.size();
+            if (depth > 0) {
+                depths.add(new SimpleEntry<>(clientID, depth));
+            }
+        });
+        depths.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        return depths.subList(0, Math.min(limit, depths.size()));
+    }
+
+    public void recordSupersededDrops(int count) {
+        supersededDrops.add(count);
+    }
+
+    /**
+     * Records a client's queue overflowing and what was done about it.
+     *
+     * @param policy The policy applied. Superseded drops are counted separately, as they are
+     *               recorded by the queue itself.
+     */
+    public void recordOverflow(OutboundQueue.OverflowPolicy policy) {
+        if (policy == OutboundQueue.OverflowPolicy.SNAPSHOT) {
+            overflowSnapshots.increment();
+        } else {
+            overflowDisconnects.increment();
+        }
+    }
+
+    public long getSupersededDrops() {
+        return supersededDrops.sum();
+    }
+
+    public long getOverflowDisconnects() {
+        return overflowDisconnects.sum();
+    }
+
+    public long getOverflowSnapshots() {
+        return overflowSnapshots.sum();
+    }
+
+    // Admission
+    // ---------
+
+    public void recordConnectionAdmitted() {
+        connectionsAdmitted.increment();
+    }
+
+    public void recordConnectionRejected() {
+        connectionsRejected.increment();
+    }
+
+    public void registerAdmissionBacklog(Collection<?> backlog) {
+        admissionBacklog = backlog;
+    }
+
+    public long getConnectionsAdmitted() {
+        return connectionsAdmitted.sum();
+    }
+
+    public long getConnectionsRejected() {
+        return connectionsRejected.sum();
+    }
+
+    /**
+     * @return The number of accepted connections waiting to be admitted.
+     */
+    public int getConnectionsQueued() {
+        return admissionBacklog.size();
+    }
+
+    /**
+     * Prints these metrics to standard out every interval, on a daemon thread.
+     *
+     * @param intervalSeconds The reporting interval. Nothing is reported if this is not positive.
+     */
+    public void startReporter(int intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            return;
+        }
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.out.println(this), intervalSeconds,
+                intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "[metrics] frames: %d, batches: %d, avg batch: %.2f, syscalls saved: %d, "
+                        + "superseded dropped: %d, overflow disconnects: %d, snapshots: %d, "
+                        + "lagging: %s, connections admitted: %d, rejected: %d, queued: %d",
+                getFramesWritten(), getWriteBatches(), getAverageBatchSize(), getSyscallsSaved(),
+                getSupersededDrops(), getOverflowDisconnects(), getOverflowSnapshots(),
+                getLaggingClients(5), getConnectionsAdmitted(), getConnectionsRejected(),
+                getConnectionsQueued());
+    }
+}
@@ -1,13 +1,16 @@
 package tech.hootlab;
 
-import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.OddsEngine;
+import tech.hootlab.core.OddsHint;
 import tech.hootlab.core.Player;
+import tech.hootlab.core.Roster;
 import tech.hootlab.core.Round;
 import tech.hootlab.core.RoundState;
+import tech.hootlab.core.ShoePool;
 
 /*
  * ServerModel.java
@@ -15,118 +18,146 @@ import tech.hootlab.core.RoundState;
  * Gareth Sears - 2493194S
  *
  * This class acts as an intermediary between the round (game logic) and the various players
- * (connections). It ensures appropriate locking on the Round object and its state is designed to
- * act as a 'lobby', so when players connect they join at the start of the the next round. This
- * avoids tricky ordering problems between players.
+ * (connections). Its state is designed to act as a 'lobby', so when players connect they join at
+ * the start of the the next round. This avoids tricky ordering problems between players.
  *
  * It also manages round and dealer state when players connect / disconnect.
  *
- * It is designed to be threadsafe, as it is shared between multiple client connections. Thus, it
- * only returns immutable lists for processing (which in turn contain only threadsafe classes).
+ * It is NOT thread safe, and needs no locks: it belongs to a single Table, and is only ever used by
+ * that table's Mailbox, which runs one command at a time. Round events therefore fire on the
+ * mailbox thread too, so they can call straight back into this class. It still only returns
+ * immutable lists for processing.
+ *
+ * The lobby is a Roster, so players are found and removed by ID without scanning it.
  */
 public class ServerModel {
 
-    private List<Player> lobbyPlayerList = new LinkedList<>();
+    private final Roster lobby = new Roster();
 
     // Due to its complexity and interrelated state, this is NOT thread safe.
-    // It's locked down in this class.
-    private Round round = new Round();
+    // It's confined to the table's mailbox with the rest of this class.
+    private final Round round;
 
     private final int stake;
 
+    // Odds for the current player, from the cards left in the round's shoe. Every table's engine
+    // shares one cache.
+    private final OddsEngine oddsEngine = new OddsEngine();
+    private final int[] rankCounts = new int[CardRanks.values().length];
+
     // Store a reference to the current dealer and next dealer.
     // If a dealer leaves the game, play automatically continues until the next round when.
     private Player dealer;
-    private final Object dealerLock = new Object();
 
     public ServerModel(int stake) {
+        this(stake, new Round());
+    }
+
+    /**
+     * Creates a model whose rounds deal from the given table's shoes.
+     *
+     * @param stake The stake for each round.
+     * @param shoes The table's shuffled shoes, from the pool shared by every table.
+     */
+    public ServerModel(int stake, ShoePool.TableShoes shoes) {
+        this(stake, new Round(shoes));
+    }
+
+    private ServerModel(int stake, Round round) {
         this.stake = stake;
+        this.round = round;
+    }
+
+    /**
+     * @return The seed of the shoe the current round started from (see Round.getShoeSeed()).
+     */
+    public long getShoeSeed() {
+        return round.getShoeSeed();
+    }
+
+    /**
+     * @return How many cards the shoe had dealt before the current round.
+     */
+    public int getShoeOffset() {
+        return round.getShoeOffset();
     }
 
     public List<Player> getPlayersInRound() {
-        // Return read only list from round. Internal players are thread-safe.
+        // Return read only list from round.
         // (Round deals with its own state and is confined in this class).
         return Collections.unmodifiableList(round.getPlayerList());
     }
 
+    public RoundState getRoundState() {
+        return round.getState();
+    }
+
+    /**
+     * @return The dealer of the current round, as opposed to the next dealer (see getDealer).
+     */
+    public Player getRoundDealer() {
+        return round.getDealer();
+    }
+
+    public Player getCurrentPlayer() {
+        return round.getCurrentPlayer();
+    }
+
     public List<Player> getPlayersInLobby() {
-        // Return read only list. Internal players are thread-safe.
-        return Collections.unmodifiableList(lobbyPlayerList);
+        // Return read only list.
+        return Collections.unmodifiableList(lobby.getActivePlayers());
     }
 
     // Players added and removed from the game should be added on next round.
     public void addPlayer(Player player) {
-        synchronized (lobbyPlayerList) {
-            lobbyPlayerList.add(player);
+        lobby.add(player);
 
-            // If it's the first player, they're the dealer!
-            if (lobbyPlayerList.size() == 1) {
-                setDealer(player);
-            }
+        // If it's the first player, they're the dealer!
+        if (lobby.activeCount() == 1) {
+            setDealer(player);
+        }
 
-            // We've got enough players to play
-            if (lobbyPlayerList.size() == 2) {
-                initialiseNextRound();
-            }
+        // We've got enough players to play
+        if (lobby.activeCount() == 2) {
+            initialiseNextRound();
         }
     }
 
     public void removePlayer(String ID) {
-        synchronized (lobbyPlayerList) {
-            // Players are comparable by ID
-            Player playerToRemove = null;
-            Iterator<Player> iterator = lobbyPlayerList.iterator();
-            while (playerToRemove == null && iterator.hasNext()) {
-                Player player = iterator.next();
-                if (ID.equals(player.getID())) {
-                    playerToRemove = player;
-                }
-            }
-
-
-            removePlayer(playerToRemove);
-
-        }
+        removePlayer(lobby.get(ID));
     }
 
     public void removePlayer(Player player) {
         if (player != null) {
-            synchronized (lobbyPlayerList) {
-                lobbyPlayerList.remove(player);
-                int lobbySize = lobbyPlayerList.size();
-                if (dealer.equals(player) && lobbySize > 0) {
-                    dealer = lobbyPlayerList.get(0);
-                }
-
-                // RoundPlayer removals handled separately, to ensure the player
-                // 'remains' until the end of the round, though their actions are
-                // automated. This avoids rage quitting.
-
-                synchronized (round) {
-                    round.removePlayer(player);
-                    // Restart round if finished...
-                    // Stays in lock because this is contingent on round size
-                    if (round.getState() == RoundState.FINISHED && lobbyPlayerList.size() > 1) {
-                        initialiseNextRound();
-                    }
-                }
+            lobby.remove(player.getID());
+            lobby.compactIfSparse();
+            if (dealer.equals(player) && lobby.activeCount() > 0) {
+                dealer = lobby.get(lobby.nextActiveSeat(0));
+            }
+
+            // RoundPlayer removals handled separately, to ensure the player
+            // 'remains' until the end of the round, though their actions are
+            // automated. This avoids rage quitting.
+            round.removePlayer(player);
+
+            // Restart round if finished...
+            if (round.getState() == RoundState.FINISHED && lobby.activeCount() > 1) {
+                initialiseNextRound();
             }
         }
     }
 
     public List<Player> removeBrokePlayers() {
-        List<Player> eliminatedPlayers = new LinkedList<>();
+        List<Player> eliminatedPlayers = new ArrayList<>();
 
-        synchronized (lobbyPlayerList) {
-            for (Player player : lobbyPlayerList) {
-                if (player.getTokens() == 0) {
-                    eliminatedPlayers.add(player);
-                }
+        for (Player player : lobby.getActivePlayers()) {
+            if (player.getTokens() == 0) {
+                eliminatedPlayers.add(player);
             }
+        }
 
-            for (Player eliminatedPlayer : eliminatedPlayers) {
-                removePlayer(eliminatedPlayer);
-            }
+        for (Player eliminatedPlayer : eliminatedPlayers) {
+            removePlayer(eliminatedPlayer);
         }
 
         // Return immutable list for safety
@@ -134,57 +165,73 @@ public class ServerModel {
     }
 
     public Player getDealer() {
-        synchronized (dealerLock) {
-            return dealer;
-        }
+        return dealer;
     }
 
     public void setDealer(Player player) {
-        synchronized (dealerLock) {
-            dealer = player;
-        }
+        dealer = player;
     }
 
     // Gameplay functions
 
     public void initialiseNextRound() {
-        // Passes lobbyPlayerList as unmodifiable, just in case any future round changes risk
+        // Passes the lobby's players as unmodifiable, just in case any future round changes risk
         // mutation.
-        synchronized (lobbyPlayerList) {
-            // Starts new game if lobby is greater than 1
-            if (lobbyPlayerList.size() > 1) {
-                synchronized (round) {
-                    round.reset(Collections.unmodifiableList(lobbyPlayerList), dealer, stake);
-                }
-            }
+        // Starts new game if lobby is greater than 1
+        if (lobby.activeCount() > 1) {
+            round.reset(Collections.unmodifiableList(lobby.getActivePlayers()), dealer, stake);
         }
     }
 
     public void startRound() {
-        synchronized (round) {
-            round.start();
-        }
+        round.start();
     }
 
     public void hitWithCurrentPlayer() {
-        synchronized (round) {
-            round.hitWithCurrentPlayer();
-        }
+        round.hitWithCurrentPlayer();
     }
 
     public void stickWithCurrentPlayer() {
-        synchronized (round) {
-            round.stickWithCurrentPlayer();
+        round.stickWithCurrentPlayer();
+    }
+
+    /**
+     * Works out the odds for the current player's turn, from the cards left in the shoe.
+     *
+     * @return The odds, or null if nobody is playing a turn.
+     */
+    public OddsHint getCurrentPlayerOdds() {
+        Player currentPlayer = round.getCurrentPlayer();
+        if (currentPlayer == null || round.getState() != RoundState.IN_PROGRESS) {
+            return null;
         }
+
+        round.countRemainingCards(rankCounts);
+        Player roundDealer = round.getDealer();
+        return oddsEngine.getHint(currentPlayer.getHandSummary(),
+                currentPlayer.equals(roundDealer) ? null : roundDealer.getHandSummary(),
+                rankCounts, round.getShoeDecks());
     }
 
     // Add Round listeners here
-    // These are done in the model constructor, so don't need thread safety yet.
-    public void addRoundPropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
-        round.addPropertyChangeListener(propertyName, pcl);
+    // These are done in the table constructor, before the model is shared.
+    public void addRoundStateListener(Round.StateListener listener) {
+        round.addStateListener(listener);
+    }
+
+    public void addCurrentPlayerListener(Round.CurrentPlayerListener listener) {
+        round.addCurrentPlayerListener(listener);
+    }
+
+    public void addDealerListener(Round.DealerListener listener) {
+        round.addDealerListener(listener);
+    }
+
+    public void addBatchListener(Round.BatchListener listener) {
+        round.addBatchListener(listener);
     }
 
-    public void removeRoundPropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
-        round.removePropertyChangeListener(propertyName, pcl);
+    public void addSettlementListener(Round.SettlementListener listener) {
+        round.addSettlementListener(listener);
     }
 }
@@ -0,0 +1,303 @@
+package tech.hootlab;
+
+import java.util.Properties;
+import tech.hootlab.OutboundQueue.OverflowPolicy;
+import tech.hootlab.ServerThreads.ThreadMode;
+
+/*
+ * ServerSettings.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An immutable 'bean' containing the server's deployment settings. Values are read from system
+ * properties prefixed with 'twentyone.' (e.g. -Dtwentyone.transport=nio), falling back to the
+ * defaults below, so the server can be tuned per deployment without recompiling.
+ */
+public class ServerSettings {
+
+    private static final String PREFIX = "twentyone.";
+
+    /**
+     * The socket transport used to talk to clients.
+     */
+    public enum Transport {
+        // A read and write thread per client (ClientRunner)
+        BLOCKING,
+        // A small pool of selector event loops shared by all clients (NioServer)
+        NIO
+    }
+
+    // Defaults
+    public static final int DEFAULT_PORT = Server.SERVER_SOCKET;
+    public static final Transport DEFAULT_TRANSPORT = Transport.BLOCKING;
+    public static final int DEFAULT_IO_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final ThreadMode DEFAULT_THREAD_MODE = ThreadMode.PLATFORM;
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 64;
+    public static final int DEFAULT_WRITE_LINGER_MICROS = 0;
+    public static final boolean DEFAULT_TCP_NO_DELAY = true;
+    public static final int DEFAULT_METRICS_INTERVAL = 0;
+    public static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 1024;
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.SNAPSHOT;
+    public static final int DEFAULT_MAX_SEATS = 7;
+    public static final int DEFAULT_TABLE_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_SHOE_DECKS = 6;
+    public static final double DEFAULT_SHOE_PENETRATION = 0.75;
+    public static final int DEFAULT_SHOE_POOL_SIZE = 4;
+    public static final long DEFAULT_TURN_TIMEOUT_MILLIS =
+            TurnScheduler.DEFAULT_TURN_TIMEOUT_MILLIS;
+    public static final long DEFAULT_AUTO_DEAL_DELAY_MILLIS =
+            TurnScheduler.DEFAULT_AUTO_DEAL_DELAY_MILLIS;
+    public static final long DEFAULT_TIMER_TICK_MILLIS = HashedWheelTimer.DEFAULT_TICK_MILLIS;
+    public static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS =
+            HeartbeatMonitor.DEFAULT_INTERVAL_MILLIS;
+    public static final long DEFAULT_HEARTBEAT_TIMEOUT_MILLIS =
+            HeartbeatMonitor.DEFAULT_TIMEOUT_MILLIS;
+    public static final int DEFAULT_MAX_CONNECTIONS = AdmissionController.DEFAULT_MAX_CONNECTIONS;
+    public static final int DEFAULT_ACCEPT_RATE = AdmissionController.DEFAULT_ACCEPT_RATE;
+    public static final int DEFAULT_ACCEPT_BURST = AdmissionController.DEFAULT_ACCEPT_BURST;
+    public static final int DEFAULT_ACCEPT_BACKLOG = AdmissionController.DEFAULT_ACCEPT_BACKLOG;
+    public static final int DEFAULT_COMMAND_RATE = 20;
+    public static final int DEFAULT_COMMAND_BURST = 10;
+
+    private final int port;
+    private final Transport transport;
+    private final int ioThreads;
+    private final ThreadMode threadMode;
+
+    // Maximum frames sent to a client with one flush
+    private final int writeBatchSize;
+    // How long a writer waits for more frames before flushing a batch that is not full. Zero
+    // flushes whatever is pending straight away, favouring latency over batch size.
+    private final int writeLingerMicros;
+    // Batching already coalesces our writes, so Nagle's algorithm only adds delay
+    private final boolean tcpNoDelay;
+    // Seconds between metrics reports, or zero for none
+    private final int metricsInterval;
+    // Maximum frames queued for one client, and what to do when a client exceeds it
+    private final int outboundQueueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    // Maximum players at one table. More players are seated at new tables.
+    private final int maxSeats;
+    // Platform threads shared by every table's mailbox. Unused with virtual threads.
+    private final int tableThreads;
+    // Decks in each shoe, and how far through a shoe the cut card is (0 to 1)
+    private final int shoeDecks;
+    private final double shoePenetration;
+    // Shuffled shoes kept ready by the background shuffler, or zero to shuffle when needed
+    private final int shoePoolSize;
+    // Seeds every shuffle, so games can be replayed, or null for unpredictable shuffles
+    private final Long shuffleSeed;
+    // How long a player has for their turn, and a dealer to deal, before it is done for them.
+    // Zero waits forever.
+    private final long turnTimeoutMillis;
+    private final long autoDealDelayMillis;
+    // The precision of those timeouts
+    private final long timerTickMillis;
+    // How long a client can be quiet before it is pinged, or zero to never ping, and how long
+    // before it is removed. The timeout is kept over twice the interval (see HeartbeatMonitor).
+    private final long heartbeatIntervalMillis;
+    private final long heartbeatTimeoutMillis;
+    // Most clients connected at once, or zero for no limit
+    private final int maxConnections;
+    // New connections admitted per second, or zero for no limit, and the most let in at once
+    private final int acceptRate;
+    private final int acceptBurst;
+    // Most accepted connections waiting to be admitted. More are turned away.
+    private final int acceptBacklog;
+    // Game commands each client can send per second, or zero for no limit, and the most at once.
+    // The default suits people; automated clients playing flat out need it raised.
+    private final int commandRate;
+    private final int commandBurst;
+
+    public ServerSettings(Properties properties) {
+        this.port = getInt(properties, "port", DEFAULT_PORT);
+        this.transport = Transport
+                .valueOf(get(properties, "transport", DEFAULT_TRANSPORT.name()).toUpperCase());
+        this.ioThreads = Math.max(1, getInt(properties, "ioThreads", DEFAULT_IO_THREADS));
+        this.threadMode = ThreadMode
+                .valueOf(get(properties, "threads", DEFAULT_THREAD_MODE.name()).toUpperCase());
+        this.writeBatchSize =
+                Math.max(1, getInt(properties, "writeBatchSize", DEFAULT_WRITE_BATCH_SIZE));
+        this.writeLingerMicros =
+                Math.max(0, getInt(properties, "writeLingerMicros", DEFAULT_WRITE_LINGER_MICROS));
+        this.tcpNoDelay = Boolean.parseBoolean(
+                get(properties, "tcpNoDelay", Boolean.toString(DEFAULT_TCP_NO_DELAY)));
+        this.metricsInterval = getInt(properties, "metricsInterval", DEFAULT_METRICS_INTERVAL);
+        this.outboundQueueCapacity = Math.max(1,
+                getInt(properties, "outboundQueueCapacity", DEFAULT_OUTBOUND_QUEUE_CAPACITY));
+        this.overflowPolicy = OverflowPolicy.valueOf(
+                get(properties, "overflowPolicy", DEFAULT_OVERFLOW_POLICY.name()).toUpperCase());
+        this.maxSeats = Math.max(2, getInt(properties, "maxSeats", DEFAULT_MAX_SEATS));
+        this.tableThreads =
+                Math.max(1, getInt(properties, "tableThreads", DEFAULT_TABLE_THREADS));
+        this.shoeDecks = Math.max(1, getInt(properties, "shoeDecks", DEFAULT_SHOE_DECKS));
+        this.shoePenetration = Double.parseDouble(get(properties, "shoePenetration",
+                Double.toString(DEFAULT_SHOE_PENETRATION)));
+        this.shoePoolSize =
+                Math.max(0, getInt(properties, "shoePoolSize", DEFAULT_SHOE_POOL_SIZE));
+        String seed = get(properties, "shuffleSeed", "");
+        this.shuffleSeed = seed.isEmpty() ? null : Long.valueOf(seed);
+        this.turnTimeoutMillis =
+                Math.max(0, getLong(properties, "turnTimeoutMillis", DEFAULT_TURN_TIMEOUT_MILLIS));
+        this.autoDealDelayMillis = Math.max(0,
+                getLong(properties, "autoDealDelayMillis", DEFAULT_AUTO_DEAL_DELAY_MILLIS));
+        this.timerTickMillis =
+                Math.max(1, getLong(properties, "timerTickMillis", DEFAULT_TIMER_TICK_MILLIS));
+        this.heartbeatIntervalMillis = Math.max(0,
+                getLong(properties, "heartbeatIntervalMillis", DEFAULT_HEARTBEAT_INTERVAL_MILLIS));
+        this.heartbeatTimeoutMillis = Math.max(2 * heartbeatIntervalMillis + 1,
+                getLong(properties, "heartbeatTimeoutMillis", DEFAULT_HEARTBEAT_TIMEOUT_MILLIS));
+        this.maxConnections =
+                Math.max(0, getInt(properties, "maxConnections", DEFAULT_MAX_CONNECTIONS));
+        this.acceptRate = Math.max(0, getInt(properties, "acceptRate", DEFAULT_ACCEPT_RATE));
+        this.acceptBurst = Math.max(1, getInt(properties, "acceptBurst", DEFAULT_ACCEPT_BURST));
+        this.acceptBacklog =
+                Math.max(1, getInt(properties, "acceptBacklog", DEFAULT_ACCEPT_BACKLOG));
+        this.commandRate = Math.max(0, getInt(properties, "commandRate", DEFAULT_COMMAND_RATE));
+        this.commandBurst =
+                Math.max(1, getInt(properties, "commandBurst", DEFAULT_COMMAND_BURST));
+    }
+
+    /**
+     * Creates settings from the JVM's system properties.
+     *
+     * @return The server settings.
+     */
+    public static ServerSettings fromSystemProperties() {
+        return new ServerSettings(System.getProperties());
+    }
+
+    /**
+     * Creates settings using only the defaults.
+     *
+     * @return The server settings.
+     */
+    public static ServerSettings defaults() {
+        return new ServerSettings(new Properties());
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public int getIOThreads() {
+        return ioThreads;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getWriteLingerMicros() {
+        return writeLingerMicros;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public int getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getMaxSeats() {
+        return maxSeats;
+    }
+
+    public int getTableThreads() {
+        return tableThreads;
+    }
+
+    public int getShoeDecks() {
+        return shoeDecks;
+    }
+
+    public double getShoePenetration() {
+        return shoePenetration;
+    }
+
+    public int getShoePoolSize() {
+        return shoePoolSize;
+    }
+
+    /**
+     * @return The seed for every shuffle, or null if shuffles are unpredictable.
+     */
+    public Long getShuffleSeed() {
+        return shuffleSeed;
+    }
+
+    public long getTurnTimeoutMillis() {
+        return turnTimeoutMillis;
+    }
+
+    public long getAutoDealDelayMillis() {
+        return autoDealDelayMillis;
+    }
+
+    public long getTimerTickMillis() {
+        return timerTickMillis;
+    }
+
+    public long getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    public long getHeartbeatTimeoutMillis() {
+        return heartbeatTimeoutMillis;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getAcceptRate() {
+        return acceptRate;
+    }
+
+    public int getAcceptBurst() {
+        return acceptBurst;
+    }
+
+    public int getAcceptBacklog() {
+        return acceptBacklog;
+    }
+
+    public int getCommandRate() {
+        return commandRate;
+    }
+
+    public int getCommandBurst() {
+        return commandBurst;
+    }
+
+    // Property helpers
+
+    private static String get(Properties properties, String key, String defaultValue) {
+        return properties.getProperty(PREFIX + key, defaultValue).trim();
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        return Integer.parseInt(get(properties, key, Integer.toString(defaultValue)));
+    }
+
+    private static long getLong(Properties properties, String key, long defaultValue) {
+        return Long.parseLong(get(properties, key, Long.toString(defaultValue)));
+    }
+}
@@ -0,0 +1,100 @@
+package tech.hootlab;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * ServerThreads.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Creates the thread factories used for per-client work, depending on the configured ThreadMode.
+ *
+ * Virtual threads suit the blocking reader / writer loops well, as a blocked read or queue take
+ * unmounts the virtual thread rather than parking a whole platform thread. They are looked up
+ * reflectively so the server still builds and runs on JDKs without them, in which case it falls
+ * back to platform threads with a warning.
+ */
+public final class ServerThreads {
+
+    /**
+     * The kind of thread used for each client's read and write loops.
+     */
+    public enum ThreadMode {
+        PLATFORM, VIRTUAL
+    }
+
+    private ServerThreads() {}
+
+    /**
+     * Returns a thread factory for the given mode. Threads are named prefix-0, prefix-1...
+     *
+     * @param mode   The thread mode.
+     * @param prefix The thread name prefix.
+     * @return The factory.
+     */
+    public static ThreadFactory newFactory(ThreadMode mode, String prefix) {
+        if (mode == ThreadMode.VIRTUAL) {
+            ThreadFactory virtualFactory = newVirtualFactory(prefix);
+            if (virtualFactory != null) {
+                return virtualFactory;
+            }
+            System.err.println("Virtual threads are not supported by this JVM ("
+                    + System.getProperty("java.version") + "). Using platform threads.");
+        }
+        return newPlatformFactory(prefix);
+    }
+
+    /**
+     * Returns an executor for short tasks, such as draining a table's Mailbox. In platform mode
+     * this is a fixed pool; in virtual mode each task gets its own virtual thread, as they are too
+     * cheap to be worth pooling. The threads are daemons, so they never keep the JVM alive alone.
+     *
+     * @param mode            The thread mode.
+     * @param prefix          The thread name prefix.
+     * @param platformThreads The pool size, if platform threads are used.
+     * @return The executor.
+     */
+    public static Executor newExecutor(ThreadMode mode, String prefix, int platformThreads) {
+        ThreadFactory factory = newFactory(mode, prefix);
+        ThreadFactory daemonFactory = runnable -> {
+            Thread thread = factory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        if (mode == ThreadMode.VIRTUAL && isVirtualSupported()) {
+            return task -> daemonFactory.newThread(task).start();
+        }
+        return Executors.newFixedThreadPool(platformThreads, daemonFactory);
+    }
+
+    /**
+     * Whether this JVM supports virtual threads.
+     */
+    public static boolean isVirtualSupported() {
+        return newVirtualFactory("probe-") != null;
+    }
+
+    private static ThreadFactory newPlatformFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(runnable, prefix + count.getAndIncrement());
+    }
+
+    // Equivalent to Thread.ofVirtual().name(prefix, 0).factory() on JDK 21+
+    private static ThreadFactory newVirtualFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder,
+                    prefix, 0L);
+            Method factoryMethod = builderClass.getMethod("factory");
+            return (ThreadFactory) factoryMethod.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package tech.hootlab;
 
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 
 /*
  * SocketMessage.java
@@ -10,47 +12,59 @@ import java.io.Serializable;
  * This is an immutable wrapper class used for API messages and their respective payloads between
  * the server and the client.
  *
- * Each API message has a static class variable representing a particular message.
- *
- * For efficiency, it could have used ints, but strings helped with message debugging and it is also
- * a convention used by PropertyChangeControl. A possible future change.
+ * Each API message has a static class variable representing a particular message. These were
+ * originally strings to help with debugging, but are now small integer opcodes so the binary codec
+ * can write them as a single byte. nameOf() recovers the name for debugging.
  */
 public class SocketMessage implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     // This value is a 'poison pill' used to close blocking queues. (See Java BlockingQueue docs).
-    // I've been working on this so long, for sanity's sake I'm throwing in an easter egg to amuse
-    // myself. In the real world this would be a sensible name, like "POISON".
-    public static final String POISON = "https://www.youtube.com/watch?v=_mej5wS7viw";
+    // It is never sent over the socket.
+    public static final int POISON = -1;
+
+    public static final int CONNECT = 0;
+    public static final int SET_USER = 1;
+
+    public static final int SET_PLAYERS = 2;
+    public static final int DISCONNECT = 3;
 
-    public static final String CONNECT = "CONNECT";
-    public static final String SET_USER = "SET_USER";
+    public static final int HAND_UPDATE = 4;
+    public static final int TOKEN_UPDATE = 5;
+    public static final int STATUS_UPDATE = 6;
 
-    public static final String SET_PLAYERS = "SET_PLAYERS";
-    public static final String DISCONNECT = "DISCONNECT";
+    public static final int ROUND_STARTED = 7;
+    public static final int ROUND_PLAYER_CHANGE = 8;
+    public static final int ROUND_IN_PROGRESS = 9;
+    public static final int ROUND_FINISHED = 10;
 
-    public static final String HAND_UPDATE = "HAND_UPDATE";
-    public static final String TOKEN_UPDATE = "TOKEN_UPDATE";
-    public static final String STATUS_UPDATE = "STATUS_UPDATE";
+    public static final int HIT = 11;
+    public static final int STICK = 12;
+    public static final int DEAL = 13;
 
-    public static final String ROUND_STARTED = "ROUND_STARTED";
-    public static final String ROUND_PLAYER_CHANGE = "ROUND_PLAYER_CHANGE";
-    public static final String ROUND_IN_PROGRESS = "ROUND_IN_PROGRESS";
-    public static final String ROUND_FINISHED = "ROUND_FINISHED";
+    // Sent in place of a slow client's backlog (see OutboundQueue)
+    public static final int SNAPSHOT = 14;
 
-    public static final String HIT = "HIT";
-    public static final String STICK = "STICK";
-    public static final String DEAL = "DEAL";
+    // Several player changes at once (see TableUpdate)
+    public static final int TABLE_UPDATE = 15;
 
-    private final String command;
+    // The odds for the player whose turn it is, sent to them alone (see OddsHint)
+    public static final int ODDS_HINT = 16;
+
+    // Keep-alives. The server pings clients it has not heard from lately, who must reply with a
+    // pong (see HeartbeatMonitor). Either side answers a ping with a pong.
+    public static final int PING = 17;
+    public static final int PONG = 18;
+
+    private final int command;
     private final Serializable payload;
 
-    public SocketMessage(String command, Serializable payload) {
+    public SocketMessage(int command, Serializable payload) {
         this.command = command;
         this.payload = payload;
     }
 
-    public String getCommand() {
+    public int getCommand() {
         return command;
     }
 
@@ -58,4 +72,41 @@ public class SocketMessage implements Serializable {
         return payload;
     }
 
+    /**
+     * Whether a message with this command is made redundant by a later one with the same command,
+     * as it carries the whole of some state rather than a change to it.
+     *
+     * @param command The opcode.
+     * @return True if an earlier message can be dropped in favour of a later one.
+     */
+    public static boolean isSupersedable(int command) {
+        return command == SET_PLAYERS || command == ROUND_PLAYER_CHANGE || command == SNAPSHOT
+                || command == ODDS_HINT || command == PING;
+    }
+
+    /**
+     * Looks up the name of an opcode, for debugging.
+     *
+     * @param command The opcode.
+     * @return The name of the constant with that value.
+     */
+    public static String nameOf(int command) {
+        for (Field field : SocketMessage.class.getFields()) {
+            try {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class
+                        && field.getInt(null) == command) {
+                    return field.getName();
+                }
+            } catch (IllegalAccessException e) {
+                // Only public fields are checked
+            }
+        }
+        return "UNKNOWN(" + command + ")";
+    }
+
+    @Override
+    public String toString() {
+        return nameOf(command) + " " + payload;
+    }
+
 }
@@ -0,0 +1,138 @@
+package tech.hootlab;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+/*
+ * SocketMessageFrames.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Utility methods for the length-prefixed framing used on the socket. Each frame is a 4 byte
+ * length followed by that many bytes of body. The body starts with the ID of the MessageCodec which
+ * encoded it, followed by the encoded SocketMessage.
+ *
+ * Java serialization streams have no message boundaries, so a non-blocking server cannot tell when
+ * a message has fully arrived. Prefixing each message with its length fixes this, and as each frame
+ * is encoded on its own there is no stream state (cached objects) to reset between messages.
+ *
+ * Tagging each frame with its codec means the codec can be negotiated (and changed) while messages
+ * are in flight, without either side misreading a frame.
+ */
+public final class SocketMessageFrames {
+
+    // Size of the length prefix in bytes
+    public static final int HEADER_LENGTH = Integer.BYTES;
+
+    // Guards against corrupt or malicious length prefixes allocating huge buffers
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    private SocketMessageFrames() {}
+
+    /**
+     * Encodes a message as a complete frame, including its length prefix.
+     *
+     * @param message The message to encode.
+     * @param codec   The codec to encode the message with.
+     * @return The frame bytes.
+     * @throws IOException If the payload cannot be encoded.
+     */
+    public static byte[] encode(SocketMessage message, MessageCodec codec) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        DataOutputStream dataStream = new DataOutputStream(byteStream);
+        // Placeholder for the length, which is filled in below
+        dataStream.writeInt(0);
+        dataStream.writeByte(codec.getID());
+        codec.encode(message, dataStream);
+        dataStream.flush();
+
+        byte[] frame = byteStream.toByteArray();
+        int length = frame.length - HEADER_LENGTH;
+        checkLength(length);
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Returns the codec which encoded a frame body.
+     *
+     * @param body   The buffer containing the frame body.
+     * @param offset The offset of the body in the buffer.
+     * @return The codec.
+     * @throws StreamCorruptedException If the codec is not supported.
+     */
+    public static MessageCodec codecOf(byte[] body, int offset) throws StreamCorruptedException {
+        MessageCodec codec = MessageCodecs.forID(body[offset]);
+        if (codec == null) {
+            throw new StreamCorruptedException("Unsupported codec: " + body[offset]);
+        }
+        return codec;
+    }
+
+    /**
+     * Decodes the body of a frame (without its length prefix).
+     *
+     * @param body   The buffer containing the frame body.
+     * @param offset The offset of the body in the buffer.
+     * @param length The length of the body.
+     * @return The decoded message.
+     * @throws IOException If the body is not a valid message.
+     */
+    public static SocketMessage decode(byte[] body, int offset, int length) throws IOException {
+        if (length < 1) {
+            throw new StreamCorruptedException("Empty frame");
+        }
+        MessageCodec codec = codecOf(body, offset);
+        return codec.decode(
+                new DataInputStream(new ByteArrayInputStream(body, offset + 1, length - 1)));
+    }
+
+    /**
+     * Writes a single message frame to a blocking stream. Does not flush.
+     */
+    public static void write(DataOutputStream out, SocketMessage message, MessageCodec codec)
+            throws IOException {
+        out.write(encode(message, codec));
+    }
+
+    /**
+     * Reads a single frame body from a blocking stream.
+     *
+     * @throws java.io.EOFException If the stream closes before a full frame is read.
+     */
+    public static byte[] readBody(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return body;
+    }
+
+    /**
+     * Reads and decodes a single message frame from a blocking stream.
+     *
+     * @throws java.io.EOFException If the stream closes before a full frame is read.
+     */
+    public static SocketMessage read(DataInputStream in) throws IOException {
+        byte[] body = readBody(in);
+        return decode(body, 0, body.length);
+    }
+
+    /**
+     * Validates a frame's length prefix.
+     *
+     * @throws StreamCorruptedException If the length cannot be a valid frame.
+     */
+    public static void checkLength(int length) throws StreamCorruptedException {
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+        }
+    }
+}
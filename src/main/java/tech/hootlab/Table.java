@@ -0,0 +1,508 @@
+package tech.hootlab;
+
+import java.io.Serializable;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import tech.hootlab.client.ClientSettings;
+import tech.hootlab.core.OddsHint;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.PlayerState;
+import tech.hootlab.core.RoundState;
+import tech.hootlab.core.ShoePool;
+
+/*
+ * Table.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A single game table: one ServerModel (and so one Round) and the clients seated at it.
+ *
+ * Tables share nothing with each other. Each has its own delta sequence and its own set of
+ * clients, so broadcasts only go to the players at the table and many tables can play at once on
+ * different threads. Players are seated by the TableManager.
+ *
+ * Every action on a table (join, leave, hit, stick, deal, resync) is submitted to the table's
+ * Mailbox and run there one at a time, in the order received. The public methods just queue the
+ * action and return, so client reader threads and event loops never wait on a game in progress.
+ * All of the table's state, including its model, is only touched on the mailbox, so the game logic
+ * needs no locks and its events are broadcast in a single, deterministic order.
+ *
+ * While the round has a batch open (see Round.BatchListener), player changes are held back and sent
+ * together as one TABLE_UPDATE, rather than one message per card, token or status change. Held
+ * changes are always sent before any other broadcast, so clients see everything in the same order
+ * as before.
+ *
+ * Whenever the turn passes to a player, or they hit and play on, they alone are sent an ODDS_HINT
+ * worked out from the cards left in the shoe (see OddsEngine).
+ *
+ * Players are never sent as live objects. Messages carry PlayerSnapshots and TableSnapshots taken
+ * on the mailbox, so writer threads can encode them whenever they get to them. The last
+ * SET_PLAYERS frame is kept and resent to joining players until the table changes.
+ *
+ * A TableTimer (see TurnScheduler) sticks for a player whose turn times out, and deals a ready
+ * round the dealer has not dealt in time. It is armed whenever the turn passes, a player hits, or
+ * a round is ready, and cancelled otherwise.
+ *
+ * Whose move it is is also published as a TableView, which hit, stick and deal check before
+ * queueing anything, so commands sent out of turn never reach the mailbox. They are checked again
+ * on the mailbox, as the view can be a moment behind.
+ *
+ * The table deals from shoes shuffled from its own seed source (see ShoePool). Whenever a round is
+ * ready, the seed of its shoe and how far into the shoe it starts are logged at DEBUG, so any
+ * round can be dealt again exactly.
+ */
+public class Table {
+
+    private static final System.Logger LOG = System.getLogger(Table.class.getName());
+
+    private final int tableID;
+
+    private final Mailbox mailbox;
+    private final TurnScheduler.TableTimer turnTimer;
+    private final ShoePool.TableShoes shoes;
+
+    // For propagating messages to the clients at this table. Confined to the mailbox.
+    private Map<String, ClientConnection> clientMap = new HashMap<>();
+    private ServerModel model;
+
+    // Sequence number of the last player delta. Deltas are numbered and queued on the mailbox, so
+    // every client receives them in sequence order.
+    private long deltaSequence = 0;
+
+    // Player changes held back while the round has a batch open
+    private boolean batching = false;
+    private List<DeltaFactory> pendingDeltas = new ArrayList<>();
+
+    // The last table snapshot sent, and its SET_PLAYERS frame
+    private TableSnapshot tableSnapshot;
+    private OutboundFrame tableSnapshotFrame;
+
+    // Whose move it is. Written on the mailbox, read by any thread.
+    private volatile TableView view = TableView.EMPTY;
+
+    // Clients with a snapshot on its way, so a burst of overflows only sends one
+    private final Set<String> pendingResyncs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a table whose actions run on the given executor.
+     *
+     * @param tableID  The table's ID, for debugging.
+     * @param stake    The stake for each round.
+     * @param executor The executor shared by all tables' mailboxes.
+     * @param shoes    The table's shoes, from the pool shared by all tables.
+     */
+    public Table(int tableID, int stake, Executor executor, ShoePool.TableShoes shoes) {
+        this(tableID, stake, executor, shoes, TurnScheduler.none());
+    }
+
+    /**
+     * Creates a table whose actions run on the given executor.
+     *
+     * @param tableID       The table's ID, for debugging.
+     * @param stake         The stake for each round.
+     * @param executor      The executor shared by all tables' mailboxes.
+     * @param shoes         The table's shoes, from the pool shared by all tables.
+     * @param turnScheduler Times out idle players, for all tables.
+     */
+    public Table(int tableID, int stake, Executor executor, ShoePool.TableShoes shoes,
+            TurnScheduler turnScheduler) {
+        this.tableID = tableID;
+        this.mailbox = new Mailbox(executor);
+        this.turnTimer = turnScheduler.newTableTimer(mailbox);
+
+        // Create the model locally to avoid to much shared state in multithread environment.
+        this.shoes = shoes;
+        this.model = new ServerModel(stake, shoes);
+
+        // Attach listeners to the model's round object.
+        // Uses anonymous lambda functions for brevity.
+        model.addCurrentPlayerListener((previousPlayer, currentPlayer) -> {
+            // Published before the player hears it is their turn, so their reply is let through
+            publishView();
+            sendMessageToAll(SocketMessage.ROUND_PLAYER_CHANGE, PlayerSnapshot.of(currentPlayer));
+            sendOddsHint(currentPlayer);
+            armTurnTimer(currentPlayer);
+        });
+
+        model.addDealerListener((previousDealer, newDealer) -> {
+            model.setDealer(newDealer);
+        });
+
+        model.addBatchListener(open -> {
+            batching = open;
+            if (!batching) {
+                flushPendingDeltas();
+            }
+        });
+
+        model.addSettlementListener(settlement -> {
+            // Only what has changed is sent, inside the round's batch
+            for (int seat = 0; seat < settlement.size(); seat++) {
+                String playerID = settlement.getPlayerID(seat);
+                if (settlement.isStatusChanged(seat)) {
+                    PlayerState status = settlement.getStatus(seat);
+                    sendDeltaToAll(SocketMessage.STATUS_UPDATE,
+                            sequence -> PlayerDelta.status(playerID, sequence, status));
+                }
+                if (settlement.isTokensChanged(seat)) {
+                    int tokens = settlement.getTokens(seat);
+                    sendDeltaToAll(SocketMessage.TOKEN_UPDATE,
+                            sequence -> PlayerDelta.tokens(playerID, sequence, tokens));
+                }
+            }
+        });
+
+        model.addRoundStateListener((previousState, roundState) -> {
+            // Published first, as the round may move on again below (e.g. FINISHED -> READY)
+            publishView();
+            switch (roundState) {
+                case READY:
+                    if (LOG.isLoggable(Level.DEBUG)) {
+                        LOG.log(Level.DEBUG, "Table " + tableID + " ready: shoe seed "
+                                + model.getShoeSeed() + ", dealt " + model.getShoeOffset());
+                    }
+                    broadcast(snapshotTableFrame());
+                    sendMessageToAll(SocketMessage.ROUND_STARTED,
+                            PlayerSnapshot.of(model.getDealer()));
+                    turnTimer.armDeal(this::doAutoDeal);
+                    break;
+
+                case IN_PROGRESS:
+                    // The first turn, if any, arms the timer again
+                    turnTimer.cancel();
+                    sendMessageToAll(SocketMessage.ROUND_IN_PROGRESS, null);
+                    break;
+
+                case FINISHED:
+                    turnTimer.cancel();
+                    sendMessageToAll(SocketMessage.ROUND_FINISHED, null);
+                    // Kick out any dead-beat no has-moneys.
+                    List<Player> brokeList = model.removeBrokePlayers();
+                    // This will disconnect them clientside, which will in turn remove them return
+                    // an end of file connection in ClientRunner which will initialize standard
+                    // removal process.
+                    brokeList.forEach(p -> sendMessage(p.getID(), SocketMessage.DISCONNECT, null));
+
+                    // Start new round
+                    model.initialiseNextRound();
+                    break;
+
+                default:
+                    throw new IllegalStateException(roundState + " is not a state that is handled");
+            }
+        });
+    }
+
+    public int getTableID() {
+        return tableID;
+    }
+
+    public void addPlayer(ClientConnection client, ClientSettings settings) {
+        mailbox.execute(() -> doAddPlayer(client, settings));
+    }
+
+    public void removePlayer(String clientID) {
+        mailbox.execute(() -> doRemovePlayer(clientID));
+    }
+
+    /**
+     * Retires the table once its last player has left (see TableManager), cancelling its timer
+     * and handing back its shoes after anything already queued has run.
+     */
+    public void retire() {
+        mailbox.execute(() -> {
+            turnTimer.close();
+            shoes.close();
+        });
+    }
+
+    /**
+     * Hits for a player, unless it is not their turn.
+     *
+     * @param ID The player's ID.
+     * @return Whether the hit was queued, rather than dropped as out of turn.
+     */
+    public boolean hit(String ID) {
+        if (!view.canPlay(ID)) {
+            return false;
+        }
+        mailbox.execute(() -> doHit(ID));
+        return true;
+    }
+
+    /**
+     * Sticks for a player, unless it is not their turn.
+     *
+     * @param ID The player's ID.
+     * @return Whether the stick was queued, rather than dropped as out of turn.
+     */
+    public boolean stick(String ID) {
+        if (!view.canPlay(ID)) {
+            return false;
+        }
+        mailbox.execute(() -> doStick(ID));
+        return true;
+    }
+
+    /**
+     * Deals the round, if the player is its dealer and it has not been dealt.
+     *
+     * @param ID The player's ID.
+     * @return Whether the deal was queued, rather than dropped.
+     */
+    public boolean deal(String ID) {
+        if (!view.canDeal(ID)) {
+            return false;
+        }
+        mailbox.execute(() -> doDeal(ID));
+        return true;
+    }
+
+    /**
+     * @return Whose move it is, as of the last change.
+     */
+    public TableView getView() {
+        return view;
+    }
+
+    /**
+     * Replaces everything queued for a client with a snapshot of this table. Called when a slow
+     * client's outbound queue overflows (see OutboundQueue).
+     *
+     * @param client The client to bring up to date.
+     */
+    public void resync(ClientConnection client) {
+        if (pendingResyncs.add(client.getID())) {
+            mailbox.execute(() -> doResync(client));
+        }
+    }
+
+    // Mailbox actions
+    // ---------------
+
+    private void doAddPlayer(ClientConnection client, ClientSettings settings) {
+        final String clientID = client.getID();
+        clientMap.put(clientID, client);
+
+        // Create player and listen for changes to propogate to clients
+        Player player = new Player(clientID, settings.getName(), settings.getTokens());
+
+        // Attach listeners to the player object
+        // These generally indicate changes to clients. Only the change is sent, not the player.
+        player.addHandListener((changedPlayer, card) -> {
+            // The hand is only ever cleared or added to
+            if (card == null) {
+                sendDeltaToAll(SocketMessage.HAND_UPDATE,
+                        sequence -> PlayerDelta.handCleared(clientID, sequence));
+            } else {
+                sendDeltaToAll(SocketMessage.HAND_UPDATE,
+                        sequence -> PlayerDelta.cardDealt(clientID, sequence, card));
+            }
+        });
+
+        player.addStatusListener((changedPlayer, status) -> {
+            sendDeltaToAll(SocketMessage.STATUS_UPDATE,
+                    sequence -> PlayerDelta.status(clientID, sequence, status));
+        });
+
+        // Send the client their player.
+        sendMessage(clientID, SocketMessage.SET_USER, PlayerSnapshot.of(player));
+        // Send the client a list of the current players so they can spectate round in
+        // progress
+        client.sendFrame(snapshotTableFrame());
+
+        model.addPlayer(player);
+    }
+
+    private void doHit(String ID) {
+        if (!isTurnOf(ID)) {
+            return;
+        }
+        Player player = model.getCurrentPlayer();
+        model.hitWithCurrentPlayer();
+        // A new player has already had their hint, and their own time
+        if (player != null && player.equals(model.getCurrentPlayer())) {
+            sendOddsHint(player);
+            armTurnTimer(player);
+        }
+    }
+
+    private void doStick(String ID) {
+        if (isTurnOf(ID)) {
+            model.stickWithCurrentPlayer();
+        }
+    }
+
+    private void doDeal(String ID) {
+        Player dealer = model.getRoundDealer();
+        if (model.getRoundState() == RoundState.READY && dealer != null
+                && dealer.getID().equals(ID)) {
+            model.startRound();
+        }
+    }
+
+    /**
+     * The authoritative version of the view's check, as the view may have been out of date.
+     */
+    private boolean isTurnOf(String ID) {
+        Player player = model.getCurrentPlayer();
+        return model.getRoundState() == RoundState.IN_PROGRESS && player != null
+                && player.getID().equals(ID);
+    }
+
+    private void publishView() {
+        view = TableView.of(model.getRoundState(), model.getCurrentPlayer(),
+                model.getRoundDealer());
+    }
+
+    private void doAutoDeal() {
+        if (model.getRoundState() == RoundState.READY) {
+            model.startRound();
+        }
+    }
+
+    /**
+     * Gives a player a turn's worth of time, after which they stick. Cancels the timer if nobody
+     * is playing a turn.
+     *
+     * @param player The current player, or null.
+     */
+    private void armTurnTimer(Player player) {
+        if (player == null || model.getRoundState() != RoundState.IN_PROGRESS) {
+            turnTimer.cancel();
+            return;
+        }
+        turnTimer.armTurn(() -> {
+            if (player.equals(model.getCurrentPlayer())) {
+                model.stickWithCurrentPlayer();
+            }
+        });
+    }
+
+    private void doRemovePlayer(String clientID) {
+        // Remove client from map so they are not updated with subsequent messages
+        clientMap.remove(clientID);
+        model.removePlayer(clientID);
+    }
+
+    private void doResync(ClientConnection client) {
+        pendingResyncs.remove(client.getID());
+        if (!clientMap.containsKey(client.getID())) {
+            return;
+        }
+
+        // Nothing else runs on the table meanwhile, so the snapshot is consistent with the delta
+        // sequence and everything it replaces is already queued.
+        GameSnapshot snapshot = new GameSnapshot(snapshotTable(),
+                PlayerSnapshot.of(model.getRoundDealer()),
+                PlayerSnapshot.of(model.getCurrentPlayer()), model.getRoundState());
+        client.sendSnapshot(new OutboundFrame(new SocketMessage(SocketMessage.SNAPSHOT, snapshot)));
+    }
+
+    /**
+     * Takes a snapshot of the players in the round, or reuses the last one if nothing has changed.
+     * Any held back player changes are sent first, so the snapshot's sequence covers them.
+     *
+     * @return The snapshot.
+     */
+    private TableSnapshot snapshotTable() {
+        flushPendingDeltas();
+        List<Player> players = model.getPlayersInRound();
+        if (tableSnapshot == null || !tableSnapshot.isCurrent(deltaSequence, players)) {
+            tableSnapshot = TableSnapshot.of(deltaSequence, players);
+            tableSnapshotFrame = null;
+        }
+        return tableSnapshot;
+    }
+
+    /**
+     * @return A SET_PLAYERS frame for the current snapshot (see snapshotTable()).
+     */
+    private OutboundFrame snapshotTableFrame() {
+        TableSnapshot snapshot = snapshotTable();
+        if (tableSnapshotFrame == null) {
+            SocketMessage message = new SocketMessage(SocketMessage.SET_PLAYERS, snapshot);
+            tableSnapshotFrame = new OutboundFrame(message);
+        }
+        return tableSnapshotFrame;
+    }
+
+    private void sendOddsHint(Player player) {
+        if (player != null) {
+            OddsHint hint = model.getCurrentPlayerOdds();
+            if (hint != null) {
+                sendMessage(player.getID(), SocketMessage.ODDS_HINT, hint);
+            }
+        }
+    }
+
+    private void sendMessageToAll(int message, Serializable payload) {
+        sendMessageToAll(new SocketMessage(message, payload));
+    }
+
+    private void sendMessageToAll(SocketMessage messageObject) {
+        // Anything held back happened first
+        flushPendingDeltas();
+        broadcast(messageObject);
+    }
+
+    private void broadcast(SocketMessage messageObject) {
+        // Encoded once per codec and shared by every client's writer, so the cost of a broadcast
+        // does not grow with the number of clients.
+        broadcast(new OutboundFrame(messageObject));
+    }
+
+    private void broadcast(OutboundFrame frame) {
+        // No lock needed, as the client map is confined to the mailbox. Queueing never blocks, so
+        // the table moves on as soon as every client has the frame.
+        clientMap.values().forEach(client -> {
+            client.sendFrame(frame);
+        });
+    }
+
+    // Creates a delta for a given sequence number
+    private interface DeltaFactory {
+        PlayerDelta create(long sequence);
+    }
+
+    private void sendDeltaToAll(int message, DeltaFactory deltaFactory) {
+        if (batching) {
+            pendingDeltas.add(deltaFactory);
+        } else {
+            broadcast(new SocketMessage(message, deltaFactory.create(++deltaSequence)));
+        }
+    }
+
+    /**
+     * Sends any held back player changes as a single TABLE_UPDATE. They share one sequence number.
+     */
+    private void flushPendingDeltas() {
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+
+        long sequence = ++deltaSequence;
+        List<PlayerDelta> deltas = new ArrayList<>(pendingDeltas.size());
+        pendingDeltas.forEach(deltaFactory -> deltas.add(deltaFactory.create(sequence)));
+        pendingDeltas.clear();
+        broadcast(new SocketMessage(SocketMessage.TABLE_UPDATE, new TableUpdate(sequence, deltas)));
+    }
+
+    private void sendMessage(String ID, int message, Serializable payload) {
+        ClientConnection client = clientMap.get(ID);
+        if (client != null) {
+            client.sendMessage(new SocketMessage(message, payload));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "table-" + tableID;
+    }
+}
@@ -0,0 +1,154 @@
+package tech.hootlab;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import tech.hootlab.core.ShoePool;
+
+/*
+ * TableManager.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Seats players at tables, opening a new table when every open one is full and retiring tables
+ * once their last player has left.
+ *
+ * Players are seated at the oldest table with a free seat, so tables fill up (and start playing)
+ * before new ones are opened. A seat is held from when a player is seated until they leave,
+ * including any time spent in the table's lobby waiting for the next round.
+ *
+ * Every table runs its game on its own Mailbox, all sharing one executor, so the number of
+ * threads playing games does not grow with the number of tables.
+ */
+public class TableManager {
+
+    private final int maxSeats;
+    private final int stake;
+    private final Executor executor;
+    private final ShoePool shoePool;
+    private final TurnScheduler turnScheduler;
+
+    // Open tables, oldest first, and how many seats are taken at each
+    private final List<Table> tableList = new ArrayList<>();
+    private final Map<Table, Integer> seatsTaken = new HashMap<>();
+    private final Lock lock = new ReentrantLock();
+
+    private int nextTableID = 1;
+
+    /**
+     * Creates a table manager whose tables shuffle a fresh deck every round.
+     *
+     * @param maxSeats The maximum number of players per table.
+     * @param stake    The stake for each round.
+     * @param executor The executor each table's mailbox runs on.
+     */
+    public TableManager(int maxSeats, int stake, Executor executor) {
+        this(maxSeats, stake, executor, ShoePool.freshDeckEachRound());
+    }
+
+    /**
+     * Creates a table manager.
+     *
+     * @param maxSeats The maximum number of players per table.
+     * @param stake    The stake for each round.
+     * @param executor The executor each table's mailbox runs on.
+     * @param shoePool The pool of shuffled shoes the tables deal from.
+     */
+    public TableManager(int maxSeats, int stake, Executor executor, ShoePool shoePool) {
+        this(maxSeats, stake, executor, shoePool, TurnScheduler.none());
+    }
+
+    /**
+     * Creates a table manager.
+     *
+     * @param maxSeats      The maximum number of players per table.
+     * @param stake         The stake for each round.
+     * @param executor      The executor each table's mailbox runs on.
+     * @param shoePool      The pool of shuffled shoes the tables deal from.
+     * @param turnScheduler Times out idle players at every table.
+     */
+    public TableManager(int maxSeats, int stake, Executor executor, ShoePool shoePool,
+            TurnScheduler turnScheduler) {
+        if (maxSeats < 2) {
+            throw new IllegalArgumentException("A table needs at least two seats");
+        }
+        this.maxSeats = maxSeats;
+        this.stake = stake;
+        this.executor = executor;
+        this.shoePool = shoePool;
+        this.turnScheduler = turnScheduler;
+    }
+
+    /**
+     * Takes a seat at a table with room, opening a new table if there is none.
+     *
+     * @return The table the seat is at.
+     */
+    public Table seat() {
+        lock.lock();
+        try {
+            for (Table table : tableList) {
+                int seats = seatsTaken.get(table);
+                if (seats < maxSeats) {
+                    seatsTaken.put(table, seats + 1);
+                    return table;
+                }
+            }
+
+            // Tables split their seeds from the pool in the order they open, so a seeded server
+            // deals the same shoes to the same tables on every run
+            Table table = new Table(nextTableID++, stake, executor, shoePool.forTable(),
+                    turnScheduler);
+            tableList.add(table);
+            seatsTaken.put(table, 1);
+            return table;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives up a seat taken with seat(), retiring the table if it is now empty.
+     *
+     * @param table The table the seat was at.
+     */
+    public void leave(Table table) {
+        lock.lock();
+        try {
+            Integer seats = seatsTaken.get(table);
+            if (seats == null) {
+                return;
+            }
+
+            if (seats > 1) {
+                seatsTaken.put(table, seats - 1);
+            } else {
+                seatsTaken.remove(table);
+                tableList.remove(table);
+                table.retire();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSeats() {
+        return maxSeats;
+    }
+
+    /**
+     * @return The number of open tables.
+     */
+    public int getTableCount() {
+        lock.lock();
+        try {
+            return tableList.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
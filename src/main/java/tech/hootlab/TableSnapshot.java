@@ -0,0 +1,80 @@
+package tech.hootlab;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import tech.hootlab.core.Player;
+
+/*
+ * TableSnapshot.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An immutable copy of the players in a round, in turn order, sent in SET_PLAYERS messages in place
+ * of the round's live player list.
+ *
+ * The sequence is that of the last player delta included in the snapshot, so a client can ignore
+ * any older deltas still on their way. As nothing in a snapshot changes without a new delta, the
+ * table keeps its last snapshot and reuses it until the sequence or the players move on.
+ */
+public class TableSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+    private final ArrayList<PlayerSnapshot> players;
+
+    public TableSnapshot(long sequence, List<PlayerSnapshot> players) {
+        this.sequence = sequence;
+        this.players = new ArrayList<>(players);
+    }
+
+    /**
+     * Takes a snapshot of every player in a list. Must be called from the only thread changing
+     * them.
+     *
+     * @param sequence The sequence of the last player delta.
+     * @param players  The players, in turn order.
+     * @return The snapshot.
+     */
+    public static TableSnapshot of(long sequence, List<Player> players) {
+        List<PlayerSnapshot> snapshots = new ArrayList<>(players.size());
+        for (Player player : players) {
+            snapshots.add(PlayerSnapshot.of(player));
+        }
+        return new TableSnapshot(sequence, snapshots);
+    }
+
+    /**
+     * Checks whether this is still a snapshot of the table, i.e. no deltas have been sent since and
+     * the same players are seated in the same order.
+     *
+     * @param sequence The sequence of the last player delta.
+     * @param players  The players, in turn order.
+     * @return true if this snapshot can be reused.
+     */
+    public boolean isCurrent(long sequence, List<Player> players) {
+        if (sequence != this.sequence || players.size() != this.players.size()) {
+            return false;
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).getID().equals(this.players.get(i).getID())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<PlayerSnapshot> getPlayers() {
+        return Collections.unmodifiableList(players);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s", sequence, players);
+    }
+}
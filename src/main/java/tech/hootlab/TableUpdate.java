@@ -0,0 +1,80 @@
+package tech.hootlab;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import tech.hootlab.PlayerDelta.Kind;
+
+/*
+ * TableUpdate.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Every player change from one of the round's batches (e.g. the deal), sent as a single
+ * TABLE_UPDATE message instead of a HAND_UPDATE, TOKEN_UPDATE or STATUS_UPDATE per change.
+ *
+ * The whole update has one sequence number, shared by its deltas, and is applied in order. Changes
+ * made redundant by a later change in the same update are left out: an earlier token count or
+ * status for the same player, or cards dealt to a player before their hand was cleared.
+ */
+public class TableUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+    private final ArrayList<PlayerDelta> deltas;
+
+    /**
+     * Creates an update, leaving out any redundant deltas.
+     *
+     * @param sequence The table's sequence number for this update.
+     * @param deltas   The deltas, in the order they happened.
+     */
+    public TableUpdate(long sequence, List<PlayerDelta> deltas) {
+        this.sequence = sequence;
+        this.deltas = new ArrayList<>(deltas.size());
+        for (PlayerDelta delta : deltas) {
+            add(delta);
+        }
+    }
+
+    private void add(PlayerDelta delta) {
+        Iterator<PlayerDelta> iterator = deltas.iterator();
+        while (iterator.hasNext()) {
+            PlayerDelta earlier = iterator.next();
+            if (earlier.getPlayerID().equals(delta.getPlayerID())
+                    && isSupersededBy(earlier.getKind(), delta.getKind())) {
+                iterator.remove();
+            }
+        }
+        deltas.add(delta);
+    }
+
+    private static boolean isSupersededBy(Kind earlier, Kind later) {
+        switch (later) {
+            case HAND_CLEARED:
+                return earlier == Kind.HAND_CLEARED || earlier == Kind.CARD_DEALT;
+
+            case TOKENS:
+            case STATUS:
+                return earlier == later;
+
+            default:
+                return false;
+        }
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<PlayerDelta> getDeltas() {
+        return Collections.unmodifiableList(deltas);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + deltas;
+    }
+}
@@ -0,0 +1,80 @@
+package tech.hootlab;
+
+import tech.hootlab.core.Player;
+import tech.hootlab.core.RoundState;
+
+/*
+ * TableView.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An immutable summary of whose move it is at a table: the round's state, the player whose turn it
+ * is and the round's dealer.
+ *
+ * The table publishes a new view from its mailbox whenever one of these changes, before telling
+ * its clients, so any thread can read it without a lock. Commands which the view shows are not the
+ * sender's to make (e.g. hitting out of turn, or dealing when not the dealer) are dropped before
+ * they reach the mailbox, so a client spamming commands cannot hold up everyone else's.
+ *
+ * A view may be a moment out of date, so commands it lets through are checked again on the mailbox.
+ */
+public final class TableView {
+
+    public static final TableView EMPTY = new TableView(null, null, null);
+
+    private final RoundState roundState;
+    private final String currentPlayerID;
+    private final String dealerID;
+
+    private TableView(RoundState roundState, String currentPlayerID, String dealerID) {
+        this.roundState = roundState;
+        this.currentPlayerID = currentPlayerID;
+        this.dealerID = dealerID;
+    }
+
+    /**
+     * Takes a view of a table's round.
+     *
+     * @param roundState    The round's state.
+     * @param currentPlayer The player whose turn it is, or null.
+     * @param dealer        The round's dealer, or null.
+     * @return The view.
+     */
+    public static TableView of(RoundState roundState, Player currentPlayer, Player dealer) {
+        return new TableView(roundState, currentPlayer == null ? null : currentPlayer.getID(),
+                dealer == null ? null : dealer.getID());
+    }
+
+    public RoundState getRoundState() {
+        return roundState;
+    }
+
+    public String getCurrentPlayerID() {
+        return currentPlayerID;
+    }
+
+    public String getDealerID() {
+        return dealerID;
+    }
+
+    /**
+     * @param ID A player's ID.
+     * @return Whether the player can hit or stick, as it is their turn.
+     */
+    public boolean canPlay(String ID) {
+        return roundState == RoundState.IN_PROGRESS && ID.equals(currentPlayerID);
+    }
+
+    /**
+     * @param ID A player's ID.
+     * @return Whether the player can deal, as they are the dealer of a round waiting to start.
+     */
+    public boolean canDeal(String ID) {
+        return roundState == RoundState.READY && ID.equals(dealerID);
+    }
+
+    @Override
+    public String toString() {
+        return roundState + " turn: " + currentPlayerID + " dealer: " + dealerID;
+    }
+}
@@ -0,0 +1,81 @@
+package tech.hootlab;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * TokenBucket.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A rate limiter which allows short bursts. The bucket holds up to a given number of tokens and is
+ * refilled at a steady rate; each permitted action takes a token, and actions are refused while the
+ * bucket is empty.
+ *
+ * Rather than counting tokens, the bucket keeps the time at which it would next be full, and moves
+ * it on by one token's worth of time for each action (the 'generic cell rate algorithm'). So there
+ * is no refill to schedule, and checking the bucket is a little long arithmetic.
+ *
+ * This is NOT thread safe. Each bucket belongs to the single thread it limits (e.g. the admission
+ * thread, or a client's reader).
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+
+    // When the bucket would next be full, if nothing else is taken. Never far behind the clock.
+    private long fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param tokensPerSecond The refill rate, which must be positive.
+     * @param capacity        The most tokens held, so the longest burst allowed.
+     */
+    public TokenBucket(int tokensPerSecond, int capacity) {
+        if (tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("The token rate must be positive");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The bucket must hold at least one token");
+        }
+        this.nanosPerToken = Math.max(1, TimeUnit.SECONDS.toNanos(1) / tokensPerSecond);
+        this.capacityNanos = nanosPerToken * capacity;
+        this.fullAt = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, if there is one.
+     *
+     * @return Whether a token was taken.
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Takes a token, if there is one at the given time.
+     *
+     * @param now The current System.nanoTime().
+     * @return Whether a token was taken.
+     */
+    boolean tryAcquire(long now) {
+        long nextFullAt = Math.max(fullAt, now) + nanosPerToken;
+        if (nextFullAt - now > capacityNanos) {
+            return false;
+        }
+        fullAt = nextFullAt;
+        return true;
+    }
+
+    /**
+     * @return How long until a token can be taken, in nanoseconds, or zero if one can be now.
+     */
+    public long nanosUntilAvailable() {
+        return nanosUntilAvailable(System.nanoTime());
+    }
+
+    long nanosUntilAvailable(long now) {
+        return Math.max(0, Math.max(fullAt, now) + nanosPerToken - capacityNanos - now);
+    }
+}
@@ -0,0 +1,142 @@
+package tech.hootlab;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import tech.hootlab.HashedWheelTimer.Timeout;
+
+/*
+ * TurnScheduler.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Keeps tables moving when players do not: the current player sticks automatically if they take
+ * too long over their turn, and a round which is ready is dealt if the dealer has not dealt it in
+ * time. Otherwise a single idle player could hold up their whole table forever.
+ *
+ * One scheduler, and its HashedWheelTimer, is shared by every table. Each table has its own
+ * TableTimer, which holds at most one timeout at a time (a table is only ever waiting for one
+ * thing), so arming it cancels whatever it was waiting for before. Both are O(1).
+ *
+ * When a timeout fires, its action is queued on the table's Mailbox rather than run on the timer
+ * thread. A timeout can fire just as it is being cancelled, so every action is tagged with the
+ * table timer's generation when it was armed, and is dropped if the timer has been armed or
+ * cancelled since.
+ *
+ * Designed to be thread-safe. Each TableTimer is only used on its table's mailbox.
+ */
+public class TurnScheduler {
+
+    public static final long DEFAULT_TURN_TIMEOUT_MILLIS = 30000;
+    public static final long DEFAULT_AUTO_DEAL_DELAY_MILLIS = 15000;
+
+    private static final TurnScheduler NONE = new TurnScheduler(null, 0, 0);
+
+    private final HashedWheelTimer timer;
+    private final long turnTimeoutMillis;
+    private final long autoDealDelayMillis;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param timer               The timer shared by every table, which must be started.
+     * @param turnTimeoutMillis   How long a player has for each turn, or zero for as long as they
+     *                            like.
+     * @param autoDealDelayMillis How long a round waits to be dealt, or zero to wait for the
+     *                            dealer.
+     */
+    public TurnScheduler(HashedWheelTimer timer, long turnTimeoutMillis, long autoDealDelayMillis) {
+        this.timer = timer;
+        this.turnTimeoutMillis = turnTimeoutMillis;
+        this.autoDealDelayMillis = autoDealDelayMillis;
+    }
+
+    /**
+     * A scheduler which never times anything out, so tables wait for their players as they always
+     * used to.
+     *
+     * @return The scheduler.
+     */
+    public static TurnScheduler none() {
+        return NONE;
+    }
+
+    /**
+     * Creates the timer for a single table.
+     *
+     * @param mailbox The table's mailbox, which runs the timed out actions.
+     * @return The table's timer.
+     */
+    public TableTimer newTableTimer(Executor mailbox) {
+        return new TableTimer(mailbox);
+    }
+
+    /**
+     * A single table's timeouts. NOT thread safe: only use it on the table's mailbox.
+     */
+    public final class TableTimer {
+        private final Executor mailbox;
+
+        private Timeout timeout;
+        private long generation = 0;
+        // Set once the table is retired, after which nothing is armed again
+        private boolean closed = false;
+
+        private TableTimer(Executor mailbox) {
+            this.mailbox = mailbox;
+        }
+
+        /**
+         * Waits for the current player, in place of anything this was waiting for before.
+         *
+         * @param onTimeout Sticks for the player, run on the mailbox if their turn times out.
+         */
+        public void armTurn(Runnable onTimeout) {
+            arm(onTimeout, turnTimeoutMillis);
+        }
+
+        /**
+         * Waits for the dealer to deal, in place of anything this was waiting for before.
+         *
+         * @param onTimeout Deals the round, run on the mailbox if the dealer has not dealt in time.
+         */
+        public void armDeal(Runnable onTimeout) {
+            arm(onTimeout, autoDealDelayMillis);
+        }
+
+        /**
+         * Stops waiting for anything.
+         */
+        public void cancel() {
+            generation++;
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+
+        /**
+         * Stops waiting for anything, for good. Called when the table is retired, so a timeout
+         * still on its way does not act on an empty table, and the wheel lets go of it.
+         */
+        public void close() {
+            closed = true;
+            cancel();
+        }
+
+        private void arm(Runnable onTimeout, long delayMillis) {
+            cancel();
+            if (closed || timer == null || delayMillis <= 0) {
+                return;
+            }
+
+            long armedGeneration = generation;
+            timeout = timer.newTimeout(() -> mailbox.execute(() -> {
+                // Drop it if it was cancelled or replaced while on its way
+                if (generation == armedGeneration) {
+                    timeout = null;
+                    onTimeout.run();
+                }
+            }), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
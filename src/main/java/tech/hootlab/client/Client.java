@@ -31,6 +31,8 @@ public class Client {
         try {
             // Connect
             server = new Socket("127.0.0.1", Server.SERVER_SOCKET);
+            // Commands are single small frames, so send them without waiting to coalesce
+            server.setTcpNoDelay(true);
 
             // Prompt user for their details. Could be put in GUI, but swing is painful enough.
             Scanner scanner = new Scanner(System.in);
@@ -1,17 +1,32 @@
 package tech.hootlab.client;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.Socket;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import javax.swing.SwingWorker;
+import tech.hootlab.GameSnapshot;
+import tech.hootlab.MessageCodec;
+import tech.hootlab.MessageCodecs;
+import tech.hootlab.PlayerDelta;
+import tech.hootlab.PlayerSnapshot;
 import tech.hootlab.SocketMessage;
+import tech.hootlab.SocketMessageFrames;
+import tech.hootlab.TableSnapshot;
+import tech.hootlab.TableUpdate;
+import tech.hootlab.core.OddsHint;
 import tech.hootlab.core.Player;
+import tech.hootlab.core.RoundState;
 
 /*
  * ClientController.java
@@ -20,6 +35,8 @@ import tech.hootlab.core.Player;
  *
  * This class handles inputs / outputs to the view class, including managing the socket API.
  *
+ * It keeps a local copy of each player, which PlayerSnapshot messages replace and PlayerDelta
+ * messages update. This is only touched on the Swing thread, so needs no locking.
  */
 public class ClientController {
 
@@ -35,6 +52,10 @@ public class ClientController {
             "Round in progress... Aim for that 21 buddy!";
     private final static String ROUND_FINISHED_MESSAGE =
             "Round finished! Waiting for players for next round...";
+    private final static String DEALER_ODDS_MESSAGE =
+            "Your turn! Chance of busting on a hit: %.0f%%";
+    private final static String PLAYER_ODDS_MESSAGE =
+            DEALER_ODDS_MESSAGE + ". Sticking: %.0f%% win, %.0f%% draw, %.0f%% lose";
     private final static String NO_TOKEN_DISCONNECT_MESSAGE =
             "No dead-beat-no-has-moneys allowed here.\nCome back when you've got more tokens!";
 
@@ -44,8 +65,17 @@ public class ClientController {
     private String userID;
     private ClientView view;
 
+    // Local player models, by ID
+    private Map<String, Player> playerMap = new HashMap<>();
+    // Sequence number of the last delta applied
+    private long lastDeltaSequence = 0;
+
     private WriteWorker writeWorker;
 
+    // The codec of the last frame from the server. Replies use the same codec, so the client only
+    // switches to its preferred codec once the server has accepted it in the CONNECT handshake.
+    private volatile MessageCodec serverCodec = MessageCodecs.SERIALIZED;
+
     public ClientController(Socket server, ClientSettings clientSettings) {
         this.clientSettings = clientSettings;
         this.server = server;
@@ -72,12 +102,13 @@ public class ClientController {
      */
     private class WriteWorker extends SwingWorker<Void, SocketMessage> {
 
-        private ObjectOutputStream objectOutputStream;
+        private DataOutputStream outputStream;
         private BlockingQueue<SocketMessage> messageQueue = new LinkedBlockingQueue<>();
 
         public WriteWorker(Socket server) {
             try {
-                objectOutputStream = new ObjectOutputStream(server.getOutputStream());
+                outputStream =
+                        new DataOutputStream(new BufferedOutputStream(server.getOutputStream()));
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -103,12 +134,12 @@ public class ClientController {
             boolean run = true;
             while (run) {
                 SocketMessage message = messageQueue.take();
-                String messageCommand = message.getCommand();
-                if (messageCommand.equals(SocketMessage.POISON)) {
+                if (message.getCommand() == SocketMessage.POISON) {
                     // Shut down worker on poison pill
                     run = false;
                 } else {
-                    objectOutputStream.writeObject(message);
+                    SocketMessageFrames.write(outputStream, message, serverCodec);
+                    outputStream.flush();
                 }
             }
 
@@ -118,11 +149,11 @@ public class ClientController {
     }
 
     private class ReadWorker extends SwingWorker<Void, SocketMessage> {
-        private ObjectInputStream inputStream;
+        private DataInputStream inputStream;
 
         public ReadWorker(Socket server) {
             try {
-                inputStream = new ObjectInputStream(server.getInputStream());
+                inputStream = new DataInputStream(new BufferedInputStream(server.getInputStream()));
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -136,16 +167,16 @@ public class ClientController {
             boolean run = true;
             try {
                 while (run) {
-                    SocketMessage message = (SocketMessage) inputStream.readObject();
-                    if (message.getCommand().equals(SocketMessage.DISCONNECT)) {
+                    byte[] body = SocketMessageFrames.readBody(inputStream);
+                    serverCodec = SocketMessageFrames.codecOf(body, 0);
+                    SocketMessage message = SocketMessageFrames.decode(body, 0, body.length);
+                    if (message.getCommand() == SocketMessage.DISCONNECT) {
                         run = false;
                     }
                     publish(message);
                 }
             } catch (EOFException e) {
                 disconnect(SERVER_DISCONNECT_MESSAGE);
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
             } catch (IOException e) {
                 e.printStackTrace();
             } finally {
@@ -173,10 +204,8 @@ public class ClientController {
          *
          * @param message The API message
          */
-        @SuppressWarnings("unchecked")
         protected void handleServerMessage(SocketMessage message) {
-            String command = message.getCommand();
-            switch (command) {
+            switch (message.getCommand()) {
 
                 // Connection Actions
                 case SocketMessage.CONNECT:
@@ -184,25 +213,27 @@ public class ClientController {
                     break;
 
                 case SocketMessage.DISCONNECT:
-                    disconnect(NO_TOKEN_DISCONNECT_MESSAGE);
+                    // The server says why, unless the player has simply run out of tokens
+                    String reason = (String) message.getPayload();
+                    disconnect(reason != null ? reason : NO_TOKEN_DISCONNECT_MESSAGE);
                     break;
 
                 // Global Actions
                 case SocketMessage.SET_USER:
-                    setUser((Player) message.getPayload());
+                    setUser((PlayerSnapshot) message.getPayload());
                     break;
 
                 case SocketMessage.SET_PLAYERS:
-                    updateOtherPlayers((List<Player>) message.getPayload());
+                    applyTableSnapshot((TableSnapshot) message.getPayload());
                     break;
 
                 // Round Actions
                 case SocketMessage.ROUND_PLAYER_CHANGE:
-                    updateCurrentPlayer((Player) message.getPayload());
+                    updateCurrentPlayer((PlayerSnapshot) message.getPayload());
                     break;
 
                 case SocketMessage.ROUND_STARTED:
-                    roundStarted((Player) message.getPayload());
+                    roundStarted((PlayerSnapshot) message.getPayload());
                     break;
 
                 case SocketMessage.ROUND_IN_PROGRESS:
@@ -215,15 +246,29 @@ public class ClientController {
 
                 // Player Actions
                 case SocketMessage.HAND_UPDATE:
-                    updateHand((Player) message.getPayload());
+                case SocketMessage.TOKEN_UPDATE:
+                case SocketMessage.STATUS_UPDATE:
+                    applyPlayerDelta((PlayerDelta) message.getPayload());
                     break;
 
-                case SocketMessage.TOKEN_UPDATE:
-                    updatePlayerTokens((Player) message.getPayload());
+                case SocketMessage.TABLE_UPDATE:
+                    applyTableUpdate((TableUpdate) message.getPayload());
                     break;
 
-                case SocketMessage.STATUS_UPDATE:
-                    updatePlayerStatus((Player) message.getPayload());
+                case SocketMessage.SNAPSHOT:
+                    applySnapshot((GameSnapshot) message.getPayload());
+                    break;
+
+                case SocketMessage.ODDS_HINT:
+                    showOdds((OddsHint) message.getPayload());
+                    break;
+
+                // Keep-alives
+                case SocketMessage.PING:
+                    sendMessage(SocketMessage.PONG);
+                    break;
+
+                case SocketMessage.PONG:
                     break;
 
                 default:
@@ -255,14 +300,26 @@ public class ClientController {
 
     // Global Handlers
 
-    private void setUser(Player userPlayer) {
+    private void setUser(PlayerSnapshot snapshot) {
+        Player userPlayer = snapshot.toPlayer();
+        playerMap.put(userPlayer.getID(), userPlayer);
         view.setUser(userPlayer);
         view.displayMessage(USER_CONNECTED_MESSAGE);
     }
 
-    private void updateOtherPlayers(List<Player> playerList) {
+    private void applyTableSnapshot(TableSnapshot snapshot) {
+        // Anything older is already reflected in the snapshot
+        lastDeltaSequence = Math.max(lastDeltaSequence, snapshot.getSequence());
+        updateOtherPlayers(snapshot.getPlayers());
+    }
+
+    private void updateOtherPlayers(List<PlayerSnapshot> playerList) {
         view.clearPlayers();
-        for (Player player : playerList) {
+        // Forget players who have left, but keep the user
+        playerMap.keySet().retainAll(Collections.singleton(userID));
+        for (PlayerSnapshot snapshot : playerList) {
+            Player player = snapshot.toPlayer();
+            playerMap.put(player.getID(), player);
             if (!userID.equals(player.getID())) {
                 view.addPlayer(player);
             }
@@ -270,18 +327,30 @@ public class ClientController {
     }
 
     // Round Handlers
-    private void updateCurrentPlayer(Player currentPlayer) {
-        view.setCurrentPlayer(currentPlayer);
+    private void updateCurrentPlayer(PlayerSnapshot currentPlayer) {
+        String currentPlayerID = currentPlayer == null ? null : currentPlayer.getID();
+        view.setCurrentPlayer(currentPlayerID);
 
-        if (currentPlayer != null && currentPlayer.getID().equals(userID)) {
+        if (userID.equals(currentPlayerID)) {
             view.setPlayerControl();
         } else {
             view.disableControl();
         }
     }
 
-    private void roundStarted(Player dealer) {
-        view.setDealer(dealer);
+    private void showOdds(OddsHint hint) {
+        if (hint.isAgainstDealer()) {
+            view.displayMessage(String.format(PLAYER_ODDS_MESSAGE,
+                    hint.getBustProbability() * 100, hint.getWinProbability() * 100,
+                    hint.getDrawProbability() * 100, hint.getLoseProbability() * 100));
+        } else {
+            view.displayMessage(
+                    String.format(DEALER_ODDS_MESSAGE, hint.getBustProbability() * 100));
+        }
+    }
+
+    private void roundStarted(PlayerSnapshot dealer) {
+        view.setDealer(dealer.getID());
 
         if (dealer.getID().equals(userID)) {
             view.setDealerControl();
@@ -305,16 +374,108 @@ public class ClientController {
 
     // Player handlers
 
-    private void updateHand(Player player) {
-        view.updateHand(player);
+    /**
+     * Applies a change to the local copy of a player, then updates their view.
+     *
+     * @param delta The change.
+     */
+    private void applyPlayerDelta(PlayerDelta delta) {
+        if (delta.getSequence() <= lastDeltaSequence) {
+            // Stale, we have already seen this or something newer.
+            return;
+        }
+        lastDeltaSequence = delta.getSequence();
+        applyChange(delta);
+    }
+
+    /**
+     * Applies every change in a batched update, in order.
+     *
+     * @param update The update.
+     */
+    private void applyTableUpdate(TableUpdate update) {
+        if (update.getSequence() <= lastDeltaSequence) {
+            return;
+        }
+        lastDeltaSequence = update.getSequence();
+        update.getDeltas().forEach(this::applyChange);
     }
 
-    private void updatePlayerTokens(Player player) {
-        view.updateTokens(player);
+    private void applyChange(PlayerDelta delta) {
+        // Players we are not showing yet (e.g. waiting in the lobby) are sent in full later.
+        Player player = playerMap.get(delta.getPlayerID());
+        if (player == null) {
+            return;
+        }
+
+        switch (delta.getKind()) {
+            case CARD_DEALT:
+                player.addCardToHand(delta.getCard());
+                view.updateHand(player);
+                break;
+
+            case HAND_CLEARED:
+                player.clearHand();
+                view.updateHand(player);
+                break;
+
+            case TOKENS:
+                player.setTokens(delta.getTokens());
+                view.updateTokens(player);
+                break;
+
+            case STATUS:
+                player.setStatus(delta.getStatus());
+                view.updateStatus(player);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown player change received");
+        }
     }
 
-    private void updatePlayerStatus(Player player) {
-        view.updateStatus(player);
+    /**
+     * Redraws the game from a snapshot. The server sends these instead of the messages we missed
+     * when we fell too far behind.
+     *
+     * @param snapshot The snapshot.
+     */
+    private void applySnapshot(GameSnapshot snapshot) {
+        // Anything older is already reflected in the snapshot
+        lastDeltaSequence = Math.max(lastDeltaSequence, snapshot.getSequence());
+
+        updateOtherPlayers(snapshot.getPlayers());
+        for (PlayerSnapshot player : snapshot.getPlayers()) {
+            if (player.getID().equals(userID)) {
+                view.setUser(playerMap.get(userID));
+            }
+        }
+
+        RoundState state = snapshot.getState();
+        if (state == null) {
+            // No round yet, so still waiting for players
+            return;
+        }
+
+        switch (state) {
+            case READY:
+                roundStarted(snapshot.getDealer());
+                break;
+
+            case IN_PROGRESS:
+                view.setDealer(snapshot.getDealer().getID());
+                roundInProgress();
+                updateCurrentPlayer(snapshot.getCurrentPlayer());
+                break;
+
+            case FINISHED:
+                view.setDealer(snapshot.getDealer().getID());
+                roundFinished();
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown round state received");
+        }
     }
 
     // Messages to server
@@ -331,11 +492,11 @@ public class ClientController {
     }
 
     // Helper methods for sending messages to writeWorker
-    private void sendMessage(String message) {
+    private void sendMessage(int message) {
         sendMessage(message, null);
     }
 
-    private void sendMessage(String message, Serializable payload) {
+    private void sendMessage(int message, Serializable payload) {
         writeWorker.write(new SocketMessage(message, payload));
     }
 }
@@ -1,6 +1,7 @@
 package tech.hootlab.client;
 
 import java.io.Serializable;
+import tech.hootlab.BinaryMessageCodec;
 
 /*
  * ClientSettings.java
@@ -9,16 +10,25 @@ import java.io.Serializable;
  *
  * An object 'bean' which contains the player's settings. Essentially the clientside model. At this
  * stage this is immutable because it is set when the client connects.
+ *
+ * It also carries the wire codec the client would like the server to use. Clients which predate
+ * this field deserialize it as 0, which is Java serialization, the fallback.
  */
 public class ClientSettings implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private final String name;
     private final int tokens;
+    private final byte codecID;
 
     public ClientSettings(String name, int tokens) {
+        this(name, tokens, BinaryMessageCodec.ID);
+    }
+
+    public ClientSettings(String name, int tokens, byte codecID) {
         this.name = name;
         this.tokens = tokens;
+        this.codecID = codecID;
     }
 
     public String getName() {
@@ -29,4 +39,8 @@ public class ClientSettings implements Serializable {
         return tokens;
     }
 
+    public byte getCodecID() {
+        return codecID;
+    }
+
 }
@@ -140,9 +140,7 @@ public class ClientView extends JFrame {
 
     // Round Action Methods
 
-    public void setDealer(Player player) {
-        String playerID = player.getID();
-
+    public void setDealer(String playerID) {
         Iterator<Entry<String, PlayerView>> iterator = playerViewMap.entrySet().iterator();
         while (iterator.hasNext()) {
             Entry<String, PlayerView> entry = iterator.next();
@@ -156,10 +154,9 @@ public class ClientView extends JFrame {
         }
     }
 
-    public void setCurrentPlayer(Player player) {
+    public void setCurrentPlayer(String playerID) {
 
         // If the current player doesn't exist, all players will be reset.
-        String playerID = player == null ? null : player.getID();
 
         Iterator<Entry<String, PlayerView>> iterator = playerViewMap.entrySet().iterator();
         while (iterator.hasNext()) {
@@ -6,16 +6,46 @@ import java.io.Serializable;
  * Card.java Gareth Sears - 2493194S
  *
  * A class representing a playing card. This is immutable, thus threadsafe.
+ *
+ * There are only ever 52 cards: one per suit and rank, created up front and shared. Get them with
+ * Card.of() or Card.fromCode(), so dealing never allocates and cards can be compared with ==.
  */
 public class Card implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    public static final int DECK_SIZE = CardSuits.values().length * CardRanks.values().length;
+
+    // Indexed by code
+    private static final Card[] CARDS = new Card[DECK_SIZE];
+
+    static {
+        for (CardSuits suit : CardSuits.values()) {
+            for (CardRanks rank : CardRanks.values()) {
+                Card card = new Card(suit, rank);
+                CARDS[card.code] = card;
+            }
+        }
+    }
+
     private final CardSuits suit;
     private final CardRanks rank;
+    private final byte code;
 
-    public Card(CardSuits suit, CardRanks rank) {
+    private Card(CardSuits suit, CardRanks rank) {
         this.suit = suit;
         this.rank = rank;
+        this.code = (byte) (suit.ordinal() * CardRanks.values().length + rank.ordinal());
+    }
+
+    /**
+     * Returns the shared card for a suit and rank.
+     *
+     * @param suit The card's suit.
+     * @param rank The card's rank.
+     * @return The card.
+     */
+    public static Card of(CardSuits suit, CardRanks rank) {
+        return CARDS[suit.ordinal() * CardRanks.values().length + rank.ordinal()];
     }
 
     public CardSuits getSuit() {
@@ -26,6 +56,33 @@ public class Card implements Serializable {
         return rank;
     }
 
+    /**
+     * Encodes this card as a single byte (0 - 51) for compact network messages.
+     *
+     * @return The card's code.
+     */
+    public byte toCode() {
+        return code;
+    }
+
+    /**
+     * Returns the shared card for a code given by toCode().
+     *
+     * @param code The card's code.
+     * @return The card.
+     */
+    public static Card fromCode(byte code) {
+        if (code < 0 || code >= DECK_SIZE) {
+            throw new IllegalArgumentException("Invalid card code: " + code);
+        }
+        return CARDS[code];
+    }
+
+    // Deserialized cards are swapped for the shared instance
+    private Object readResolve() {
+        return of(suit, rank);
+    }
+
     @Override
     public String toString() {
         return String.format("{%s of %s}", rank, suit);
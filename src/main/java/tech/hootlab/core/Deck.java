@@ -1,6 +1,7 @@
 package tech.hootlab.core;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -13,7 +14,7 @@ import java.util.List;
  * A class representing a collection of cards. Note: this doesn't necessarily mean the standard '52'
  * card deck, rather a 'collection' of cards of any size / combination.
  *
- * Designed to be thread-safe.
+ * Designed to be thread-safe. Rounds use the faster PackedDeck instead.
  */
 public class Deck implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -37,7 +38,7 @@ public class Deck implements Serializable {
         Deck deck = new Deck();
         for (CardSuits suit : CardSuits.values()) {
             for (CardRanks rank : CardRanks.values()) {
-                deck.add(new Card(suit, rank));
+                deck.add(Card.of(suit, rank));
             }
         }
         return deck;
@@ -58,9 +59,27 @@ public class Deck implements Serializable {
      * Shuffle the deck.
      */
     public Deck shuffle() {
+        // A fresh generator, rather than the shared Random behind Collections.shuffle
+        return shuffle(new SplittableShuffleSource());
+    }
+
+    /**
+     * Shuffle the deck (Fisher-Yates) with the given randomness.
+     *
+     * @param source The source of randomness.
+     */
+    public Deck shuffle(ShuffleSource source) {
         // Lock the list so it cannot be read/written to during shuffle
         synchronized (cardList) {
-            Collections.shuffle(cardList);
+            Card[] cards = cardList.toArray(new Card[0]);
+            for (int i = cards.length - 1; i > 0; i--) {
+                int j = source.nextInt(i + 1);
+                Card card = cards[i];
+                cards[i] = cards[j];
+                cards[j] = card;
+            }
+            cardList.clear();
+            cardList.addAll(Arrays.asList(cards));
         }
         return this;
     }
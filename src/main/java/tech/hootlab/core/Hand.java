@@ -7,43 +7,40 @@ package tech.hootlab.core;
  *
  * A class which represents a players hand.
  *
+ * The hand's value is kept as a HandSummary, updated as each card is added, so reading the value
+ * never iterates over the cards. The summary is immutable and published through a volatile, so it
+ * can be read (and hands compared) without taking any locks.
+ *
  * Designed to be thread-safe.
  */
 public class Hand extends Deck implements Comparable<Hand> {
     private static final long serialVersionUID = 1L;
 
-    // Uses empty object array, as this is serializable
-    // https://stackoverflow.com/questions/15638972/is-it-okay-to-to-make-the-lock-transient-for-a-serializable-class
-    private static final Object tieLock = new Object[0];
-    private int value = 0;
+    private volatile HandSummary summary = HandSummary.EMPTY;
 
     /**
-     * Adds a card to the deck, but also increments the value of the hand with it.
+     * Adds a card to the deck, but also updates the value of the hand with it.
      */
     @Override
     public void add(Card card) {
-        CardRanks rank = card.getRank();
         synchronized (this) {
-            value += rank.getValue();
+            summary = summary.add(card);
         }
         super.add(card);
     }
 
+    /**
+     * @return The hand's value, with aces counted as 1 where 11 would go bust.
+     */
     public int getValue() {
-        // Could have synchronized whole method, but haven't for consistency
-        // Whole calculation relies on consistent value, thus lock.
-        synchronized (this) {
-            int aceAdjustedValue = value;
-            if (value > 21) {
-                // For each ace, subtract 10
-                for (Card card : getCardList()) {
-                    if (card.getRank() == CardRanks.ACE) {
-                        aceAdjustedValue -= 10;
-                    }
-                }
-            }
-            return aceAdjustedValue;
-        }
+        return summary.getTotal();
+    }
+
+    /**
+     * @return A summary of the hand as it is now.
+     */
+    public HandSummary getSummary() {
+        return summary;
     }
 
     /**
@@ -51,34 +48,7 @@ public class Hand extends Deck implements Comparable<Hand> {
      */
     @Override
     public int compareTo(Hand otherHand) {
-
-        // Because of nested synchronised statements, we use hashCodes to
-        // enforce an order on the locks. This prevents deadlocks from two
-        // comparisons happening simultaneously but with reversed objects.
-        // If there is a hash conflict, the static tielock ensures no deadlocks.
-        int thisHash = System.identityHashCode(this);
-        int otherHash = System.identityHashCode(otherHand);
-
-        if (thisHash < otherHash) {
-            synchronized (this) {
-                synchronized (otherHand) {
-                    return value - otherHand.getValue();
-                }
-            }
-        } else if (thisHash > otherHash) {
-            synchronized (otherHand) {
-                synchronized (this) {
-                    return value - otherHand.getValue();
-                }
-            }
-        } else {
-            synchronized (tieLock) {
-                synchronized (this) {
-                    synchronized (otherHand) {
-                        return value - otherHand.getValue();
-                    }
-                }
-            }
-        }
+        // Each summary is a consistent snapshot, so no locks are needed
+        return summary.compareTo(otherHand.getSummary());
     }
 }
@@ -0,0 +1,86 @@
+package tech.hootlab.core;
+
+import java.io.Serializable;
+
+/*
+ * HandSummary.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * An immutable summary of a hand at one moment: its ace adjusted total, whether an ace is still
+ * counted as 11 (a 'soft' hand), how many cards it has and whether it is a blackjack (21 from the
+ * first two cards). Hands keep one of these up to date as cards are added, so reading it is cheap
+ * and needs no locks. This is immutable, thus threadsafe.
+ */
+public final class HandSummary implements Serializable, Comparable<HandSummary> {
+    private static final long serialVersionUID = 1L;
+
+    public static final int HAND_MAXIMUM = 21;
+
+    public static final HandSummary EMPTY = new HandSummary(0, 0, 0);
+
+    // How much less an ace is worth when counted as 1
+    static final int ACE_REDUCTION = 10;
+
+    private final int total;
+    // Aces still counted as 11
+    private final int softAces;
+    private final int cardCount;
+
+    private HandSummary(int total, int softAces, int cardCount) {
+        this.total = total;
+        this.softAces = softAces;
+        this.cardCount = cardCount;
+    }
+
+    /**
+     * Returns the summary of this hand with another card added. Aces count as 11 until that would
+     * go bust, then drop to 1 one at a time.
+     *
+     * @param card The card added.
+     * @return The new summary.
+     */
+    public HandSummary add(Card card) {
+        int newTotal = total + card.getRank().getValue();
+        int newSoftAces = card.getRank() == CardRanks.ACE ? softAces + 1 : softAces;
+        while (newTotal > HAND_MAXIMUM && newSoftAces > 0) {
+            newTotal -= ACE_REDUCTION;
+            newSoftAces--;
+        }
+        return new HandSummary(newTotal, newSoftAces, cardCount + 1);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isSoft() {
+        return softAces > 0;
+    }
+
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    public boolean isBlackjack() {
+        return cardCount == 2 && total == HAND_MAXIMUM;
+    }
+
+    public boolean isBust() {
+        return total > HAND_MAXIMUM;
+    }
+
+    /**
+     * Compares hands by their totals.
+     */
+    @Override
+    public int compareTo(HandSummary other) {
+        return Integer.compare(total, other.total);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%d (%d cards)%s", isSoft() ? "soft " : "", total, cardCount,
+                isBlackjack() ? " blackjack" : "");
+    }
+}
@@ -0,0 +1,80 @@
+package tech.hootlab.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * ListenerList.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The listeners for one kind of event (e.g. Player.HandListener), held in a copy-on-write array.
+ * Adding or removing a listener copies the array under a lock, but firing an event just loops over
+ * whatever array is current, with no lock, no event object and no lookup by property name.
+ * Listeners are rarely added compared to how often events fire, so this suits them well.
+ *
+ * Listeners are not serialized with their subject (e.g. a Player sent to a client), just as
+ * PropertyChangeSupport skipped them, so a deserialized list starts empty.
+ *
+ * Designed to be thread-safe.
+ */
+public final class ListenerList<L> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Empty, of the listener type, to start (and restart) from
+    private final L[] none;
+    private transient volatile L[] listeners;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates an empty list.
+     *
+     * @param none An empty array of the listener type, e.g. new HandListener[0].
+     */
+    public ListenerList(L[] none) {
+        this.none = none;
+        this.listeners = none;
+    }
+
+    public void add(L listener) {
+        lock.lock();
+        try {
+            L[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+            updated[listeners.length] = listener;
+            listeners = updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(L listener) {
+        lock.lock();
+        try {
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] == listener) {
+                    L[] updated = Arrays.copyOf(listeners, listeners.length - 1);
+                    System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                    listeners = updated;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The listeners now, to fire an event to in order. Must not be modified.
+     */
+    public L[] get() {
+        return listeners;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        listeners = none;
+    }
+}
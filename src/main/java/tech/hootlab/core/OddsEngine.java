@@ -0,0 +1,325 @@
+package tech.hootlab.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * OddsEngine.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Works out the odds for an OddsHint from the cards left in the shoe. The chance of going bust on
+ * a hit only needs one pass over the card values. The odds against the dealer come from every way
+ * the dealer could play out their hand, by dynamic programming over the counts of each card value
+ * left.
+ *
+ * In this game the dealer is just another player, free to hit or stick as they like, so there is
+ * no telling exactly how they will play. The odds against them assume they play like a casino
+ * dealer, hitting until they have at least 17. They are a guide for the player, not a promise.
+ *
+ * The dealer's outcomes for each (hand, shoe composition) are cached, so the many hands the dealer
+ * could pass through on the way are only worked out once, and asking again before another card is
+ * dealt (e.g. for the next player after a stick) is a single lookup. By default every engine shares
+ * one cache of a fixed size, so the memory used does not grow with the number of tables, and
+ * tables dealing from similar shoes share their work. The cache is a lock-free table indexed by a
+ * hash of the key, where a new entry simply replaces whatever was in its slot.
+ *
+ * Cards dealt to other players before the dealer plays are not accounted for. If the shoe runs
+ * out, the next card comes from a new shoe of the same number of decks.
+ *
+ * This is NOT thread safe, as it works in a scratch array. Each table has its own engine, though
+ * the shared cache is thread safe.
+ */
+public class OddsEngine {
+
+    // The total the dealer is taken to stick on (see above)
+    public static final int DEALER_STANDS_ON = 17;
+    // Entries in the shared cache, each a key and an array of outcomes (about 100 bytes)
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private static final int HAND_MAXIMUM = HandSummary.HAND_MAXIMUM;
+
+    // Card values, by index: aces (counted as 11 until they would bust), 2 to 9, then all 10s
+    private static final int ACE = 0;
+    private static final int[] VALUES = {11, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+    private static final int NUM_VALUES = VALUES.length;
+    private static final int[] FRESH_DECK = {4, 4, 4, 4, 4, 4, 4, 4, 4, 16};
+
+    private static final OutcomeCache SHARED_CACHE = new OutcomeCache(DEFAULT_CACHE_SIZE);
+
+    // The dealer's outcomes: standing on 17 to 21, then bust
+    private static final int NUM_OUTCOMES = HAND_MAXIMUM - DEALER_STANDS_ON + 2;
+    private static final int BUST = NUM_OUTCOMES - 1;
+    private static final double[][] FINAL_OUTCOMES = new double[NUM_OUTCOMES][NUM_OUTCOMES];
+    static {
+        for (int outcome = 0; outcome < NUM_OUTCOMES; outcome++) {
+            FINAL_OUTCOMES[outcome][outcome] = 1;
+        }
+    }
+
+    // Packed composition fields: 6 bits for each value but 10s, which have 8
+    private static final int COUNT_BITS = 6;
+    private static final int TENS_BITS = 8;
+
+    // The composition being worked on, by value index
+    private final int[] counts = new int[NUM_VALUES];
+    // The number of decks in a new shoe, for the hint being worked on
+    private int shoeDecks = 1;
+    // Null if nothing is cached
+    private final OutcomeCache cache;
+
+    /**
+     * Creates an engine which shares the cache of every other engine created this way.
+     */
+    public OddsEngine() {
+        this.cache = SHARED_CACHE;
+    }
+
+    /**
+     * Creates an engine with a cache of its own.
+     *
+     * @param cacheSize The most dealer outcomes to keep, or zero to cache nothing.
+     */
+    public OddsEngine(int cacheSize) {
+        this.cache = cacheSize > 0 ? new OutcomeCache(cacheSize) : null;
+    }
+
+    /**
+     * Works out the odds for a player's turn, taking a new shoe to be a single deck.
+     *
+     * @param hand       The player's hand.
+     * @param dealerHand The dealer's hand, or null if the player is the dealer.
+     * @param rankCounts The number of cards of each rank left in the shoe, by ordinal.
+     * @return The odds.
+     */
+    public OddsHint getHint(HandSummary hand, HandSummary dealerHand, int[] rankCounts) {
+        return getHint(hand, dealerHand, rankCounts, 1);
+    }
+
+    /**
+     * Works out the odds for a player's turn.
+     *
+     * @param hand       The player's hand.
+     * @param dealerHand The dealer's hand, or null if the player is the dealer.
+     * @param rankCounts The number of cards of each rank left in the shoe, by ordinal.
+     * @param shoeDecks  The number of decks in a new shoe, dealt from if this one runs out.
+     * @return The odds.
+     */
+    public OddsHint getHint(HandSummary hand, HandSummary dealerHand, int[] rankCounts,
+            int shoeDecks) {
+        this.shoeDecks = Math.max(1, shoeDecks);
+        int remaining = loadCounts(rankCounts);
+        int handState = handState(hand.getTotal(), hand.isSoft());
+
+        double bustProbability = 0;
+        if (remaining > 0) {
+            for (int value = 0; value < NUM_VALUES; value++) {
+                if (total(addCard(handState, value)) > HAND_MAXIMUM) {
+                    bustProbability += counts[value];
+                }
+            }
+            bustProbability /= remaining;
+        } else {
+            // Next card from a new shoe
+            bustProbability =
+                    getHint(hand, null, freshRankCounts(), shoeDecks).getBustProbability();
+        }
+
+        if (dealerHand == null) {
+            return new OddsHint(bustProbability);
+        }
+
+        double[] outcomes =
+                dealerOutcomes(handState(dealerHand.getTotal(), dealerHand.isSoft()), remaining);
+        int total = hand.getTotal();
+        double win = outcomes[BUST];
+        double draw = 0;
+        double lose = 0;
+        for (int outcome = 0; outcome < BUST; outcome++) {
+            int dealerTotal = DEALER_STANDS_ON + outcome;
+            if (total > dealerTotal) {
+                win += outcomes[outcome];
+            } else if (total == dealerTotal) {
+                draw += outcomes[outcome];
+            } else {
+                lose += outcomes[outcome];
+            }
+        }
+        return new OddsHint(bustProbability, win, draw, lose);
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Works out the chance of each of the dealer's outcomes from a hand, by drawing each card value
+     * left in turn. The counts are put back as they were before returning.
+     *
+     * @param handState The dealer's hand (see handState()).
+     * @param remaining The number of cards left.
+     * @return The chance of each outcome, by outcome index. Must not be modified.
+     */
+    private double[] dealerOutcomes(int handState, int remaining) {
+        int total = total(handState);
+        if (total > HAND_MAXIMUM) {
+            return FINAL_OUTCOMES[BUST];
+        }
+        if (total >= DEALER_STANDS_ON) {
+            return FINAL_OUTCOMES[total - DEALER_STANDS_ON];
+        }
+        if (remaining == 0) {
+            for (int value = 0; value < NUM_VALUES; value++) {
+                counts[value] = FRESH_DECK[value] * shoeDecks;
+            }
+            double[] outcomes = dealerOutcomes(handState, Card.DECK_SIZE * shoeDecks);
+            Arrays.fill(counts, 0);
+            return outcomes;
+        }
+
+        long composition = cache == null ? -1 : packCounts();
+        if (composition >= 0) {
+            double[] cached = cache.get(handState, composition);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        double[] outcomes = new double[NUM_OUTCOMES];
+        for (int value = 0; value < NUM_VALUES; value++) {
+            int count = counts[value];
+            if (count == 0) {
+                continue;
+            }
+
+            counts[value]--;
+            double[] next = dealerOutcomes(addCard(handState, value), remaining - 1);
+            counts[value]++;
+
+            double probability = (double) count / remaining;
+            for (int outcome = 0; outcome < NUM_OUTCOMES; outcome++) {
+                outcomes[outcome] += probability * next[outcome];
+            }
+        }
+
+        if (composition >= 0) {
+            cache.put(handState, composition, outcomes);
+        }
+        return outcomes;
+    }
+
+    // Hands are packed into an int: the total, then whether an ace still counts as 11
+
+    private static int handState(int total, boolean soft) {
+        return total << 1 | (soft ? 1 : 0);
+    }
+
+    private static int total(int handState) {
+        return handState >> 1;
+    }
+
+    // As HandSummary.add(). At most one ace can still count as 11.
+    private static int addCard(int handState, int value) {
+        int total = total(handState) + VALUES[value];
+        int softAces = (handState & 1) + (value == ACE ? 1 : 0);
+        while (total > HAND_MAXIMUM && softAces > 0) {
+            total -= HandSummary.ACE_REDUCTION;
+            softAces--;
+        }
+        return handState(total, softAces > 0);
+    }
+
+    /**
+     * Sets the working composition from counts by rank.
+     *
+     * @return The number of cards.
+     */
+    private int loadCounts(int[] rankCounts) {
+        Arrays.fill(counts, 0);
+        int remaining = 0;
+        for (CardRanks rank : CardRanks.values()) {
+            int value = rank.getValue();
+            counts[rank == CardRanks.ACE ? ACE : value - 1] += rankCounts[rank.ordinal()];
+            remaining += rankCounts[rank.ordinal()];
+        }
+        return remaining;
+    }
+
+    private int[] freshRankCounts() {
+        int[] rankCounts = new int[CardRanks.values().length];
+        Arrays.fill(rankCounts, CardSuits.values().length * shoeDecks);
+        return rankCounts;
+    }
+
+    /**
+     * Packs the working composition into a long.
+     *
+     * @return The packed composition, or -1 if a count is too big to pack (a shoe of more than 15
+     *         decks), in which case it is not cached.
+     */
+    private long packCounts() {
+        long packed = 0;
+        for (int value = 0; value < NUM_VALUES; value++) {
+            int bits = value == NUM_VALUES - 1 ? TENS_BITS : COUNT_BITS;
+            if (counts[value] >= 1 << bits) {
+                return -1;
+            }
+            packed = packed << bits | counts[value];
+        }
+        return packed;
+    }
+
+    /**
+     * The dealer's outcomes, by hand and shoe composition. Each key hashes to one slot, and a new
+     * entry replaces whatever was there, so the cache never holds more than its size and needs no
+     * eviction. Entries are immutable and published atomically, so any thread can read and write.
+     */
+    private static final class OutcomeCache {
+        private final AtomicReferenceArray<Entry> entries;
+        private final int shift;
+
+        private OutcomeCache(int size) {
+            // A power of two, so a slot is the top bits of the hash
+            int capacity = Math.max(2, Integer.highestOneBit(size));
+            this.entries = new AtomicReferenceArray<>(capacity);
+            this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        private int slot(int handState, long composition) {
+            return (int) (((composition ^ (long) handState << 56) * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        private double[] get(int handState, long composition) {
+            Entry entry = entries.get(slot(handState, composition));
+            return entry != null && entry.handState == handState
+                    && entry.composition == composition ? entry.outcomes : null;
+        }
+
+        private void put(int handState, long composition, double[] outcomes) {
+            entries.set(slot(handState, composition), new Entry(handState, composition, outcomes));
+        }
+
+        private void clear() {
+            for (int i = 0; i < entries.length(); i++) {
+                entries.set(i, null);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final int handState;
+        private final long composition;
+        private final double[] outcomes;
+
+        private Entry(int handState, long composition, double[] outcomes) {
+            this.handState = handState;
+            this.composition = composition;
+            this.outcomes = outcomes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package tech.hootlab.core;
+
+import java.io.Serializable;
+
+/*
+ * OddsHint.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The odds shown to the player whose turn it is (see OddsEngine): the chance of going bust if they
+ * hit, and the chances of winning, drawing or losing against the dealer if they stick now. The
+ * dealer has no one to play against, so their hints only have the first.
+ *
+ * This is immutable, thus threadsafe.
+ */
+public final class OddsHint implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double bustProbability;
+    private final boolean againstDealer;
+    private final double winProbability;
+    private final double drawProbability;
+    private final double loseProbability;
+
+    /**
+     * Creates a hint for the dealer.
+     *
+     * @param bustProbability The chance of going bust on a hit.
+     */
+    public OddsHint(double bustProbability) {
+        this(bustProbability, false, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Creates a hint for a player against the dealer.
+     *
+     * @param bustProbability The chance of going bust on a hit.
+     * @param winProbability  The chance of beating the dealer if sticking.
+     * @param drawProbability The chance of drawing with the dealer if sticking.
+     * @param loseProbability The chance of losing to the dealer if sticking.
+     */
+    public OddsHint(double bustProbability, double winProbability, double drawProbability,
+            double loseProbability) {
+        this(bustProbability, true, winProbability, drawProbability, loseProbability);
+    }
+
+    private OddsHint(double bustProbability, boolean againstDealer, double winProbability,
+            double drawProbability, double loseProbability) {
+        this.bustProbability = bustProbability;
+        this.againstDealer = againstDealer;
+        this.winProbability = winProbability;
+        this.drawProbability = drawProbability;
+        this.loseProbability = loseProbability;
+    }
+
+    public double getBustProbability() {
+        return bustProbability;
+    }
+
+    /**
+     * @return Whether the hint has odds against the dealer, i.e. it is not for the dealer.
+     */
+    public boolean isAgainstDealer() {
+        return againstDealer;
+    }
+
+    public double getWinProbability() {
+        return winProbability;
+    }
+
+    public double getDrawProbability() {
+        return drawProbability;
+    }
+
+    public double getLoseProbability() {
+        return loseProbability;
+    }
+
+    /**
+     * @return The expected tokens won (or, if negative, lost) per token staked, if sticking.
+     */
+    public double getExpectedOutcome() {
+        return winProbability - loseProbability;
+    }
+
+    @Override
+    public String toString() {
+        if (!againstDealer) {
+            return String.format("bust %.3f", bustProbability);
+        }
+        return String.format("bust %.3f, stick: win %.3f draw %.3f lose %.3f", bustProbability,
+                winProbability, drawProbability, loseProbability);
+    }
+}
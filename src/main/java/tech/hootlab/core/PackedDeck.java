@@ -0,0 +1,135 @@
+package tech.hootlab.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * PackedDeck.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * One or more standard 52 card decks held as card codes (see Card.toCode()) in a byte array, with
+ * a cursor marking the top of the deck. Dealing just moves the cursor and looks up the shared
+ * Card, so it is O(1) and allocates nothing, and the same deck can be reset and reshuffled rather
+ * than built again.
+ *
+ * Unlike Deck, this is NOT thread safe. It belongs to a single Round.
+ */
+public class PackedDeck {
+
+    private final byte[] cards;
+    // Index of the next card to deal
+    private int cursor;
+
+    public PackedDeck() {
+        this(1);
+    }
+
+    /**
+     * Creates an unshuffled deck made of several standard decks.
+     *
+     * @param decks The number of standard decks.
+     */
+    public PackedDeck(int decks) {
+        if (decks < 1) {
+            throw new IllegalArgumentException("A deck needs at least one set of cards");
+        }
+        cards = new byte[decks * Card.DECK_SIZE];
+        restack();
+    }
+
+    /**
+     * Gathers every dealt card back into the deck, in its original unshuffled order, so a
+     * shuffle that follows depends only on its randomness.
+     *
+     * @return This deck, for chaining.
+     */
+    public PackedDeck restack() {
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = (byte) (i % Card.DECK_SIZE);
+        }
+        cursor = 0;
+        return this;
+    }
+
+    /**
+     * Gathers every dealt card back into the deck. The cards stay in their last shuffled order.
+     *
+     * @return This deck, for chaining.
+     */
+    public PackedDeck reset() {
+        cursor = 0;
+        return this;
+    }
+
+    /**
+     * Shuffles the cards left in the deck (Fisher-Yates).
+     *
+     * @param random The source of randomness.
+     * @return This deck, for chaining.
+     */
+    public PackedDeck shuffle(Random random) {
+        return shuffle(random::nextInt);
+    }
+
+    /**
+     * Shuffles the cards left in the deck (Fisher-Yates).
+     *
+     * @param source The source of randomness.
+     * @return This deck, for chaining.
+     */
+    public PackedDeck shuffle(ShuffleSource source) {
+        for (int i = cards.length - 1; i > cursor; i--) {
+            int j = cursor + source.nextInt(i - cursor + 1);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+        return this;
+    }
+
+    /**
+     * Takes the top card off the deck and returns it.
+     *
+     * @return The card, or null if the deck is empty.
+     */
+    public Card deal() {
+        if (cursor == cards.length) {
+            return null;
+        }
+        return Card.fromCode(cards[cursor++]);
+    }
+
+    /**
+     * @return The number of cards left to deal.
+     */
+    public int size() {
+        return cards.length - cursor;
+    }
+
+    /**
+     * Counts the cards left to deal, by rank.
+     *
+     * @param rankCounts Filled with the number of cards left of each rank, by ordinal.
+     */
+    public void countRemaining(int[] rankCounts) {
+        Arrays.fill(rankCounts, 0);
+        for (int i = cursor; i < cards.length; i++) {
+            rankCounts[Card.fromCode(cards[i]).getRank().ordinal()]++;
+        }
+    }
+
+    /**
+     * @return The number of cards dealt since the last reset.
+     */
+    public int dealt() {
+        return cursor;
+    }
+
+    /**
+     * @return The number of cards in the full deck.
+     */
+    public int capacity() {
+        return cards.length;
+    }
+}
@@ -1,7 +1,5 @@
 package tech.hootlab.core;
 
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.io.Serializable;
 import java.util.UUID;
 
@@ -12,27 +10,27 @@ import java.util.UUID;
  *
  * A class representing the state of a player, their hand, and their tokens.
  *
- * The class is observable using the Java Beans property change listener (thread safe), with static
- * properties containing the property change events. This allows the controller to easily keep track
- * of state changes. However, in multithread environments there is no guarantee of the order of
- * updates. That said, this shouldn't matter as far as user experience goes, as the end result will
- * be the same.
+ * The class is observable through a typed listener for each kind of change (hand, tokens and
+ * status), held in copy-on-write ListenerLists (thread safe). This allows the controller to easily
+ * keep track of state changes. However, in multithread environments there is no guarantee of the
+ * order of updates. That said, this shouldn't matter as far as user experience goes, as the end
+ * result will be the same.
  *
- * The current implementation always fires update events with the old value as 'null'. This was for
- * ease in making the class thread-safe, as we want to fire event changes outside of syncrhonised
- * blocks to prevent potential deadlocks (i.e. if another thread tried accessing the object in the
- * callback function). This could potentially be improved going forward.
+ * Listeners are only passed the new value, and are called outside of the synchronised blocks to
+ * prevent potential deadlocks (i.e. if another thread tried accessing the object in the callback
+ * function).
  *
  * Designed to be thread-safe, so can be passed around.
  */
-public class Player implements PropertyChangeObservable, Serializable {
+public class Player implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private final String ID;
     private final String name;
 
     private int tokens;
-    private Hand hand;
+    // Volatile so the summary can be read without the hand lock
+    private volatile Hand hand;
     private PlayerState status = PlayerState.PLAYING;
 
     // Uses empty object array, as this is serializable
@@ -41,12 +39,38 @@ public class Player implements PropertyChangeObservable, Serializable {
     private final Object handLock = new Object[0];
     private final Object statusLock = new Object[0];
 
-    // Observable properties
-    public static final String HAND_CHANGE_EVENT = "PLAYER_HAND_CHANGE";
-    public static final String TOKEN_CHANGE_EVENT = "PLAYER_TOKEN_CHANGE";
-    public static final String STATUS_CHANGE_EVENT = "PLAYER_STATUS_CHANGE";
+    /**
+     * Told when a card is dealt to a player, or their hand is cleared.
+     */
+    public interface HandListener {
+        /**
+         * @param player The player.
+         * @param card   The card dealt, or null if the hand was cleared.
+         */
+        void handChanged(Player player, Card card);
+    }
+
+    /**
+     * Told when a player's tokens are set (but not when a round settles them, see Round).
+     */
+    public interface TokenListener {
+        void tokensChanged(Player player, int tokens);
+    }
 
-    private PropertyChangeSupport propertyChangeSupport;
+    /**
+     * Told when a player's status is set (but not when a round settles it, see Round).
+     */
+    public interface StatusListener {
+        void statusChanged(Player player, PlayerState status);
+    }
+
+    // Observable properties
+    private final ListenerList<HandListener> handListeners =
+            new ListenerList<>(new HandListener[0]);
+    private final ListenerList<TokenListener> tokenListeners =
+            new ListenerList<>(new TokenListener[0]);
+    private final ListenerList<StatusListener> statusListeners =
+            new ListenerList<>(new StatusListener[0]);
 
     public Player(String name, int initialTokens) {
         // Each player is identified by a unique ID
@@ -58,7 +82,6 @@ public class Player implements PropertyChangeObservable, Serializable {
         this.name = name;
         this.tokens = initialTokens;
         this.hand = new Hand();
-        propertyChangeSupport = new PropertyChangeSupport(this);
     }
 
     public String getID() {
@@ -76,24 +99,28 @@ public class Player implements PropertyChangeObservable, Serializable {
     }
 
     public int getHandValue() {
-        synchronized (handLock) {
-            return hand.getValue();
-        }
+        return hand.getValue();
+    }
+
+    /**
+     * @return A summary of the player's hand as it is now. Needs no locks.
+     */
+    public HandSummary getHandSummary() {
+        return hand.getSummary();
     }
 
     public void addCardToHand(Card card) {
         synchronized (handLock) {
             hand.add(card);
         }
-        firePropertyChange(HAND_CHANGE_EVENT, null, hand.getCardList());
-
+        fireHandChanged(card);
     }
 
     public synchronized void clearHand() {
         synchronized (handLock) {
             hand = new Hand();
         }
-        firePropertyChange(HAND_CHANGE_EVENT, null, hand.getCardList());
+        fireHandChanged(null);
     }
 
     public PlayerState getStatus() {
@@ -106,7 +133,25 @@ public class Player implements PropertyChangeObservable, Serializable {
         synchronized (statusLock) {
             this.status = status;
         }
-        firePropertyChange(STATUS_CHANGE_EVENT, null, status);
+        for (StatusListener listener : statusListeners.get()) {
+            listener.statusChanged(this, status);
+        }
+    }
+
+    /**
+     * Sets the player's status and tokens from a RoundSettlement, without firing any events. The
+     * round reports the whole settlement in one event instead.
+     *
+     * @param status The new status.
+     * @param tokens The new balance.
+     */
+    void settle(PlayerState status, int tokens) {
+        synchronized (statusLock) {
+            this.status = status;
+        }
+        synchronized (tokenLock) {
+            this.tokens = tokens;
+        }
     }
 
     public int getTokens() {
@@ -115,81 +160,51 @@ public class Player implements PropertyChangeObservable, Serializable {
         }
     }
 
+    /**
+     * Sets the player's tokens. Transfers between players go through the round's TokenLedger, and
+     * are applied when the round is settled, without this.
+     *
+     * @param tokens The new balance.
+     */
     public void setTokens(int tokens) {
         synchronized (tokenLock) {
             this.tokens = tokens;
         }
+        for (TokenListener listener : tokenListeners.get()) {
+            listener.tokensChanged(this, tokens);
+        }
     }
 
-    public void transferTokens(Player target, int numTokens) {
-        // Do nothing if the target player is the same as this player
-        if (!target.equals(this)) {
-
-            // A helper class which embeds the transfer function.
-            // This pattern is used in the Java Concurrency in Practice book
-
-            class Helper {
-                public void transfer() {
-                    if (numTokens > tokens) {
-                        // Transfers as many tokens as they can, rinse them out!
-                        target.tokens += tokens;
-                        tokens = 0;
-                    } else {
-                        target.tokens += numTokens;
-                        tokens -= numTokens;
-                    }
-                }
-            }
-
-            // As we are using nested locks, we need to take into account the case where
-            // the transferTokens function is called simultaneously by different threads, but with
-            // the Player objects reversed (this -> target, and vice versa). Therefore, we need to
-            // induce order on the locks. We do this by ordering the locks via the players'
-            // immutable ID values.
-
-            int lockOrderComparison = this.getID().compareTo(target.getID());
-            if (lockOrderComparison < 0) {
-                synchronized (this.tokenLock) {
-                    synchronized (target.tokenLock) {
-                        new Helper().transfer();
-                    }
-                }
-            } else if (lockOrderComparison > 0) {
-                synchronized (target.tokenLock) {
-                    synchronized (this.tokenLock) {
-                        new Helper().transfer();
-                    }
-                }
-            }
-
-            target.firePropertyChange(TOKEN_CHANGE_EVENT, null, target.tokens);
-            firePropertyChange(TOKEN_CHANGE_EVENT, null, tokens);
+    private void fireHandChanged(Card card) {
+        for (HandListener listener : handListeners.get()) {
+            listener.handChanged(this, card);
         }
     }
 
-    // PropertyChangeObservable implementations
-    private void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
-        propertyChangeSupport.firePropertyChange(propertyName, oldValue, newValue);
+    // Listener registration
+
+    public void addHandListener(HandListener listener) {
+        handListeners.add(listener);
     }
 
-    @Override
-    public void addPropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
-        propertyChangeSupport.addPropertyChangeListener(propertyName, pcl);
+    public void removeHandListener(HandListener listener) {
+        handListeners.remove(listener);
     }
 
-    @Override
-    public void addPropertyChangeListener(PropertyChangeListener pcl) {
-        propertyChangeSupport.addPropertyChangeListener(pcl);
+    public void addTokenListener(TokenListener listener) {
+        tokenListeners.add(listener);
     }
 
-    @Override
-    public void removePropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
-        propertyChangeSupport.removePropertyChangeListener(propertyName, pcl);
+    public void removeTokenListener(TokenListener listener) {
+        tokenListeners.remove(listener);
     }
 
-    @Override
-    public void removePropertyChangeListener(PropertyChangeListener pcl) {
-        propertyChangeSupport.removePropertyChangeListener(pcl);
+    public void addStatusListener(StatusListener listener) {
+        statusListeners.add(listener);
+    }
+
+    public void removeStatusListener(StatusListener listener) {
+        statusListeners.remove(listener);
     }
 
     @Override
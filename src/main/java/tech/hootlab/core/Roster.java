@@ -0,0 +1,233 @@
+package tech.hootlab.core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/*
+ * Roster.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The players at a table or in a round, each in a numbered seat. Seats are held in an array, in the
+ * order players were added, with a map from player ID to seat and a bit set of seats whose players
+ * have left.
+ *
+ * Looking a player up by ID, removing them and finding the next seat still in play are all O(1)
+ * (the bit set is scanned a word of 64 seats at a time), so nothing slows down as a table grows.
+ *
+ * Removing a player only marks their seat, so seat numbers never change and a round can keep using
+ * them (e.g. as TokenLedger slots) after a player leaves. A lobby, which only cares about the
+ * players still there, can compact the roster to reclaim the seats.
+ *
+ * This is NOT thread safe. It belongs to a single ServerModel or Round.
+ */
+public class Roster {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private Player[] seats;
+    private int size;
+    private final Map<String, Integer> seatsByID;
+    private final BitSet removedSeats = new BitSet();
+    private int numRemoved;
+
+    public Roster() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty roster.
+     *
+     * @param capacity The number of seats to make room for.
+     */
+    public Roster(int capacity) {
+        seats = new Player[Math.max(1, capacity)];
+        seatsByID = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Creates a roster seating the players in order.
+     *
+     * @param players The players.
+     */
+    public Roster(List<Player> players) {
+        this(players.size());
+        for (Player player : players) {
+            add(player);
+        }
+    }
+
+    /**
+     * Seats a player after everyone else.
+     *
+     * @param player The player.
+     * @return Their seat.
+     */
+    public int add(Player player) {
+        Integer seat = seatsByID.get(player.getID());
+        if (seat != null) {
+            if (!removedSeats.get(seat)) {
+                throw new IllegalArgumentException(player.getID() + " is already seated");
+            }
+            // They left and came back, so their old seat has to go first
+            compact();
+        }
+
+        if (size == seats.length) {
+            seats = Arrays.copyOf(seats, size * 2);
+        }
+        seats[size] = player;
+        seatsByID.put(player.getID(), size);
+        return size++;
+    }
+
+    /**
+     * Marks a player's seat as left. The seat keeps its number, and its player can still be looked
+     * up, until the roster is compacted.
+     *
+     * @param ID The player's ID.
+     * @return The player, or null if they were not seated or had already left.
+     */
+    public Player remove(String ID) {
+        int seat = seatOf(ID);
+        if (seat < 0 || removedSeats.get(seat)) {
+            return null;
+        }
+        removedSeats.set(seat);
+        numRemoved++;
+        return seats[seat];
+    }
+
+    /**
+     * @param ID The player's ID.
+     * @return Their seat (even if they have left), or -1 if they are not in the roster.
+     */
+    public int seatOf(String ID) {
+        Integer seat = seatsByID.get(ID);
+        return seat == null ? -1 : seat;
+    }
+
+    /**
+     * @param ID The player's ID.
+     * @return The player, if seated and not left, otherwise null.
+     */
+    public Player get(String ID) {
+        int seat = seatOf(ID);
+        return seat < 0 || removedSeats.get(seat) ? null : seats[seat];
+    }
+
+    /**
+     * @param seat The seat.
+     * @return The seat's player, even if they have left.
+     */
+    public Player get(int seat) {
+        if (seat < 0 || seat >= size) {
+            throw new IndexOutOfBoundsException("No seat " + seat);
+        }
+        return seats[seat];
+    }
+
+    /**
+     * @param seat The seat.
+     * @return Whether the seat's player has left.
+     */
+    public boolean isRemoved(int seat) {
+        return removedSeats.get(seat);
+    }
+
+    /**
+     * Finds the first seat from the given one whose player has not left.
+     *
+     * @param fromSeat The seat to start from, inclusive.
+     * @return The seat, or -1 if there are none.
+     */
+    public int nextActiveSeat(int fromSeat) {
+        int seat = removedSeats.nextClearBit(fromSeat);
+        return seat < size ? seat : -1;
+    }
+
+    /**
+     * @return The number of seats, including those whose players have left.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of players who have not left.
+     */
+    public int activeCount() {
+        return size - numRemoved;
+    }
+
+    /**
+     * @return A read only view of every seat's player, including those who have left, by seat.
+     */
+    public List<Player> asList() {
+        return new SeatList();
+    }
+
+    /**
+     * @return A new list of the players who have not left, in seat order.
+     */
+    public List<Player> getActivePlayers() {
+        List<Player> players = new ArrayList<>(activeCount());
+        for (int seat = nextActiveSeat(0); seat >= 0; seat = nextActiveSeat(seat + 1)) {
+            players.add(seats[seat]);
+        }
+        return players;
+    }
+
+    /**
+     * Drops the seats of players who have left, moving everyone else up. Seat numbers change.
+     */
+    public void compact() {
+        if (numRemoved == 0) {
+            return;
+        }
+
+        int next = 0;
+        for (int seat = 0; seat < size; seat++) {
+            if (removedSeats.get(seat)) {
+                seatsByID.remove(seats[seat].getID());
+            } else {
+                seats[next] = seats[seat];
+                seatsByID.put(seats[next].getID(), next);
+                next++;
+            }
+        }
+        Arrays.fill(seats, next, size, null);
+        size = next;
+        removedSeats.clear();
+        numRemoved = 0;
+    }
+
+    /**
+     * Compacts the roster once the players who have left outnumber those still seated, so the cost
+     * is spread over the removals.
+     */
+    public void compactIfSparse() {
+        if (numRemoved > activeCount()) {
+            compact();
+        }
+    }
+
+    // A view of the seats, so rounds can hand out their players without copying them
+    private class SeatList extends AbstractList<Player> implements RandomAccess {
+        @Override
+        public Player get(int seat) {
+            return Roster.this.get(seat);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
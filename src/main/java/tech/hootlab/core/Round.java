@@ -1,9 +1,7 @@
 package tech.hootlab.core;
 
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /*
@@ -13,44 +11,119 @@ import java.util.List;
  *
  * A class which encapsulates the game logic for 21 as it relates to each round. This class is
  * designed to provide updates to its state via the observer pattern, so only key interaction points
- * are provided to the controller.
+ * are provided to the controller. Each kind of update has its own listener interface, held in a
+ * ListenerList, so firing one is a loop over an array rather than a PropertyChangeEvent.
  *
  * This is NOT threadsafe in the least, because of the complexity of its state. However, the items
- * that it passes via its firePropertyChange actions ARE threadsafe. It is the owning class's
- * responsibility to ensure appropriate locking on this class. In this case, this is the ServerModel
- * class.
+ * that it passes to its listeners ARE threadsafe. It is the owning class's
+ * responsibility to ensure only one thread uses this class at a time. In this case, this is the
+ * ServerModel class, which is confined to its table's mailbox.
+ *
+ * The phases which change many players at once (starting, dealing and ending the round) are
+ * wrapped in a batch. BatchListeners are told true before the first change and false after the
+ * last, so listeners can collect the player changes in between and pass them on together. Batches
+ * may nest, but only the outermost fires.
+ *
+ * Tokens change hands through a TokenLedger opened when the round starts. The round is settled by
+ * a RoundSettlement, worked out from a snapshot of every seat, which sets the players' statuses
+ * and tokens in one go. SettlementListeners are then told once about the whole settlement, rather
+ * than per player per transfer.
+ *
+ * Players sit in a Roster in turn order, so each player's seat is also their slot in the ledger and
+ * the settlement. Players who leave mid-round keep their seat but are marked as removed, and turns
+ * skip straight past them.
  */
-public class Round implements PropertyChangeObservable {
+public class Round {
 
     // Constants
     // ---------
-    private static final int HAND_MAXIMUM = 21;
+    private static final int HAND_MAXIMUM = HandSummary.HAND_MAXIMUM;
     private static final int NUM_DEALT_CARDS = 2;
 
-    // Observable events
-    // -----------------
-    public static final String STATE_CHANGE_EVENT = "ROUND_STATE_CHANGE";
-    public static final String CURRENT_PLAYER_CHANGE_EVENT = "ROUND_CURRENT_PLAYER_CHANGE";
-    public static final String DEALER_CHANGE_EVENT = "ROUND_DEALER_CHANGE";
+    // Listeners
+    // ---------
+    /**
+     * Told when the round moves to a new state.
+     */
+    public interface StateListener {
+        void stateChanged(RoundState previousState, RoundState state);
+    }
+
+    /**
+     * Told when the turn passes to another player, or to nobody (null).
+     */
+    public interface CurrentPlayerListener {
+        void currentPlayerChanged(Player previousPlayer, Player currentPlayer);
+    }
+
+    /**
+     * Told when a natural 21 takes the deal.
+     */
+    public interface DealerListener {
+        void dealerChanged(Player previousDealer, Player dealer);
+    }
 
-    private PropertyChangeSupport propertyChangeSupport;
+    /**
+     * Told when a batch of player changes opens (true) and when it is committed (false).
+     */
+    public interface BatchListener {
+        void batchChanged(boolean open);
+    }
+
+    /**
+     * Told when the round (or the deal) is settled, once the players' statuses and tokens are set.
+     */
+    public interface SettlementListener {
+        void settled(RoundSettlement settlement);
+    }
+
+    private final ListenerList<StateListener> stateListeners =
+            new ListenerList<>(new StateListener[0]);
+    private final ListenerList<CurrentPlayerListener> currentPlayerListeners =
+            new ListenerList<>(new CurrentPlayerListener[0]);
+    private final ListenerList<DealerListener> dealerListeners =
+            new ListenerList<>(new DealerListener[0]);
+    private final ListenerList<BatchListener> batchListeners =
+            new ListenerList<>(new BatchListener[0]);
+    private final ListenerList<SettlementListener> settlementListeners =
+            new ListenerList<>(new SettlementListener[0]);
 
     // Round variables
     // ---------------
-    // The list of players currently in the round.
-    private List<Player> playerList = new LinkedList<>();
-    // When players quit mid-game, they are added to this for skipping, token
-    // handling, etc.
-    private List<Player> removedPlayerList = new LinkedList<>();
+    // The players currently in the round, seated in turn order. When players quit mid-game, their
+    // seat is marked as removed, for skipping, token handling, etc.
+    private Roster roster = new Roster();
     private RoundState state;
     private Player dealer;
     private Player currentPlayer;
-    private Iterator<Player> playerTurnIterator;
+    // The seat whose turn it is, or -1 before the first turn
+    private int turnSeat = -1;
     private int stake;
-    private Deck deck;
+    // Rounds deal from a shoe until its cut card comes out, then swap it for a shuffled one
+    private final ShoePool.TableShoes shoes;
+    private Shoe shoe;
+    // Where this round started dealing: the shoe's seed, and how many cards it had dealt by then
+    private long shoeSeed;
+    private int shoeOffset;
+    // Token balances for this round, with a slot for each seat
+    private TokenLedger ledger;
+    // How many batches are open
+    private int batchDepth = 0;
 
+    /**
+     * Creates a round which shuffles a fresh single deck every round.
+     */
     public Round() {
-        propertyChangeSupport = new PropertyChangeSupport(this);
+        this(ShoePool.freshDeckEachRound().forTable());
+    }
+
+    /**
+     * Creates a round which deals from a table's shoes.
+     *
+     * @param shoes The table's shuffled shoes (see ShoePool).
+     */
+    public Round(ShoePool.TableShoes shoes) {
+        this.shoes = shoes;
     }
 
     // Public Methods
@@ -62,7 +135,7 @@ public class Round implements PropertyChangeObservable {
      * <li>Setting the dealer and stake each player is to put in.</li>
      * <li>Initialising player order so they are in sequence from the dealer.</li>
      * <li>Removing any current player state</li>
-     * <li>Fetching a new deck of cards and shuffling it.</li>
+     * <li>Swapping the shoe for a shuffled one, if its cut card has come out.</li>
      * <li>Setting the round state to 'READY'</li>
      * </ul>
      *
@@ -76,14 +149,18 @@ public class Round implements PropertyChangeObservable {
     public void reset(List<Player> initialPlayerList, Player dealer, int stake) {
         this.dealer = dealer;
         this.stake = stake;
-        this.playerList = orderPlayerList(initialPlayerList);
-        this.playerTurnIterator = playerList.iterator();
+        this.roster = orderPlayers(initialPlayerList);
+        this.turnSeat = -1;
 
         // No initial player (may not get a turn if natural 21)
         this.currentPlayer = null;
-        propertyChangeSupport.firePropertyChange(CURRENT_PLAYER_CHANGE_EVENT, null, null);
+        fireCurrentPlayerChanged(null);
 
-        this.deck = Deck.getStandardDeck().shuffle();
+        if (shoe == null || shoe.isCutCardReached()) {
+            replaceShoe();
+        }
+        shoeSeed = shoe.getSeed();
+        shoeOffset = shoe.dealt();
         setRoundState(RoundState.READY);
     }
 
@@ -91,6 +168,53 @@ public class Round implements PropertyChangeObservable {
         return state;
     }
 
+    public Player getDealer() {
+        return dealer;
+    }
+
+    /**
+     * @return The player whose turn it is, or null if nobody's.
+     */
+    public Player getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Counts the cards left in the shoe, by rank, e.g. for an OddsEngine.
+     *
+     * @param rankCounts Filled with the number of cards left of each rank, by ordinal.
+     */
+    public void countRemainingCards(int[] rankCounts) {
+        if (shoe == null) {
+            Arrays.fill(rankCounts, 0);
+        } else {
+            shoe.countRemaining(rankCounts);
+        }
+    }
+
+    /**
+     * @return The seed of the shoe this round started dealing from. A Shoe shuffled from it and
+     *         dealt getShoeOffset() cards deals this round's cards, and if it runs out, the table's
+     *         next shoe follows.
+     */
+    public long getShoeSeed() {
+        return shoeSeed;
+    }
+
+    /**
+     * @return How many cards the shoe had dealt before this round.
+     */
+    public int getShoeOffset() {
+        return shoeOffset;
+    }
+
+    /**
+     * @return The number of decks in the round's shoe, so in the shoe which would replace it.
+     */
+    public int getShoeDecks() {
+        return shoe == null ? 1 : shoe.capacity() / Card.DECK_SIZE;
+    }
+
     /**
      * This signals the start of a round. All the previous round's player attributes are reset and
      * cards are dealt.
@@ -99,16 +223,22 @@ public class Round implements PropertyChangeObservable {
      * normal round flow.
      */
     public void start() {
-        // Player states and hands are cleared here and not on reset.
-        // This allows any views to 'see' the results of the previous rounds.
-        for (Player player : playerList) {
-            player.clearHand();
-            player.setStatus(PlayerState.PLAYING);
-        }
+        beginBatch();
+        try {
+            // Player states and hands are cleared here and not on reset.
+            // This allows any views to 'see' the results of the previous rounds.
+            for (Player player : roster.asList()) {
+                player.clearHand();
+                player.setStatus(PlayerState.PLAYING);
+            }
 
-        deal();
-        setRoundState(RoundState.IN_PROGRESS);
-        checkForDealWinners();
+            openLedger();
+            deal();
+            setRoundState(RoundState.IN_PROGRESS);
+            checkForDealWinners();
+        } finally {
+            commitBatch();
+        }
     }
 
     /**
@@ -117,10 +247,11 @@ public class Round implements PropertyChangeObservable {
      * This may not always be synchronised with the model, as users may connect but to maintain
      * round order integrity, they are only permitted to join at the beginning of a new round.
      *
-     * @return The list of players currently active in the round.
+     * @return A read only list of the players in the round, in turn order, including any who have
+     *         left mid-round.
      */
     public List<Player> getPlayerList() {
-        return playerList;
+        return roster.asList();
     }
 
     /**
@@ -133,7 +264,7 @@ public class Round implements PropertyChangeObservable {
      * @param player The player who has been removed from the model.
      */
     public void removePlayer(Player player) {
-        removedPlayerList.add(player);
+        roster.remove(player.getID());
 
         if (player.equals(dealer) && state == RoundState.READY) {
             // Force deal to start if the dealer leaves before the game is started
@@ -152,16 +283,16 @@ public class Round implements PropertyChangeObservable {
     public void hitWithCurrentPlayer() {
 
         // Add the top card to the player's hand.
-        Card newCard = deck.deal();
+        Card newCard = dealCard();
         currentPlayer.addCardToHand(newCard);
-        int handValue = currentPlayer.getHandValue();
+        HandSummary hand = currentPlayer.getHandSummary();
 
-        if (handValue > HAND_MAXIMUM) {
+        if (hand.isBust()) {
             // Player is 'bust'. Tokens go to the dealer.
             currentPlayer.setStatus(PlayerState.LOSER);
-            currentPlayer.transferTokens(dealer, stake);
+            ledger.transfer(slotOf(currentPlayer), slotOf(dealer), stake);
             setNextPlayer();
-        } else if (handValue == HAND_MAXIMUM) {
+        } else if (hand.getTotal() == HAND_MAXIMUM) {
             // Automatically skips on a 21.
             setNextPlayer();
         }
@@ -186,23 +317,26 @@ public class Round implements PropertyChangeObservable {
      * 'positional priority' if a new dealer is to be determined. And it's classic blackjack...
      *
      * @param playerList The original list of players, out of 'round order'.
-     * @return The list of players, from the dealer's left -> others -> dealer.
+     * @return The players, seated from the dealer's left -> others -> dealer.
      */
-    private List<Player> orderPlayerList(List<Player> playerList) {
-
-        List<Player> orderedPlayerList = new LinkedList<>();
-
-        int numPlayers = playerList.size();
-        int dealerIndex = playerList.indexOf(dealer);
+    private Roster orderPlayers(List<Player> playerList) {
+        // Copied once, so the lookups below are O(1) whatever kind of list is passed in
+        Player[] players = playerList.toArray(new Player[0]);
+        int numPlayers = players.length;
+
+        int dealerIndex = -1;
+        for (int i = 0; i < numPlayers && dealerIndex < 0; i++) {
+            if (players[i].equals(dealer)) {
+                dealerIndex = i;
+            }
+        }
 
         // Cyclic array style
+        Roster orderedRoster = new Roster(numPlayers);
         for (int i = 1; i < numPlayers + 1; i++) {
-            int playerIndex = (dealerIndex + i) % numPlayers;
-            Player player = playerList.get(playerIndex);
-            orderedPlayerList.add(player);
+            orderedRoster.add(players[(dealerIndex + i) % numPlayers]);
         }
-
-        return orderedPlayerList;
+        return orderedRoster;
     }
 
     /**
@@ -210,44 +344,82 @@ public class Round implements PropertyChangeObservable {
      * <ul>
      * <li>If the player has been removed from the game, they are skipped.</li>
      *
+     * <li>If there are no more players, the end round state is triggered.</li>
+     *
      * <li>If the new player is the dealer, and everyone else is bust, the dealer automatically wins
      * and the end round state is triggered.</li>
-     *
-     * <li>If there are no more players, the end round state is triggered.</li>
      * </ul>
      */
     private void setNextPlayer() {
+        int nextSeat = roster.nextActiveSeat(turnSeat + 1);
+        if (nextSeat < 0) {
+            // No players left.
+            turnSeat = roster.size();
+            endRound();
+            return;
+        }
 
-        if (playerTurnIterator.hasNext()) {
-            Player previousPlayer = currentPlayer;
-            currentPlayer = playerTurnIterator.next();
-            propertyChangeSupport.firePropertyChange(CURRENT_PLAYER_CHANGE_EVENT, previousPlayer,
-                    currentPlayer);
-
-            if (removedPlayerList.contains(currentPlayer)) {
-                setNextPlayer();
-            }
+        turnSeat = nextSeat;
+        Player previousPlayer = currentPlayer;
+        currentPlayer = roster.get(nextSeat);
+        fireCurrentPlayerChanged(previousPlayer);
 
-            // If the player is the dealer and there are no players left, end round
-            if (currentPlayer.equals(dealer)) {
-                boolean playersLeft = false;
+        // If the player is the dealer and there are no players left, end round
+        if (currentPlayer.equals(dealer)) {
+            boolean playersLeft = false;
 
-                // Because player list is ordered, these will all be non-dealers.
-                for (int i = 0; i < playerList.size() - 1; i++) {
-                    if (playerList.get(i).getStatus() == PlayerState.PLAYING) {
-                        playersLeft = true;
-                        break;
-                    }
+            // Because players are seated in order, these will all be non-dealers.
+            for (int seat = 0; seat < roster.size() - 1; seat++) {
+                if (roster.get(seat).getStatus() == PlayerState.PLAYING) {
+                    playersLeft = true;
+                    break;
                 }
+            }
 
-                // End round if the dealer is the only winner.
-                if (!playersLeft) {
-                    endRound();
-                }
+            // End round if the dealer is the only winner.
+            if (!playersLeft) {
+                endRound();
             }
-        } else {
-            // No players left.
-            endRound();
+        }
+    }
+
+    /**
+     * Deals the next card from the shoe. If the shoe runs out mid-round, it is replaced there and
+     * then.
+     *
+     * @return The card.
+     */
+    private Card dealCard() {
+        Card card = shoe.deal();
+        if (card == null) {
+            replaceShoe();
+            card = shoe.deal();
+        }
+        return card;
+    }
+
+    private void replaceShoe() {
+        if (shoe != null) {
+            shoes.recycle(shoe);
+        }
+        shoe = shoes.take();
+    }
+
+    /**
+     * Opens a batch of player changes, alerting listeners if it is the outermost.
+     */
+    private void beginBatch() {
+        if (batchDepth++ == 0) {
+            fireBatchChanged(true);
+        }
+    }
+
+    /**
+     * Closes a batch opened with beginBatch(), alerting listeners if it is the outermost.
+     */
+    private void commitBatch() {
+        if (--batchDepth == 0) {
+            fireBatchChanged(false);
         }
     }
 
@@ -257,17 +429,25 @@ public class Round implements PropertyChangeObservable {
      * @param state The new round state.
      */
     private void setRoundState(RoundState state) {
-        propertyChangeSupport.firePropertyChange(STATE_CHANGE_EVENT, this.state, state);
+        // Set before firing, as listeners may move the round on again (e.g. FINISHED -> READY),
+        // and that later state must not be overwritten when they return.
+        RoundState previousState = this.state;
         this.state = state;
+        // As before, nothing fires if the state is unchanged
+        if (previousState != state) {
+            for (StateListener listener : stateListeners.get()) {
+                listener.stateChanged(previousState, state);
+            }
+        }
     }
 
     /**
      * Deals 2 cards to each player as per standard.
      */
     private void deal() {
-        for (Player player : playerList) {
+        for (Player player : roster.asList()) {
             for (int i = 0; i < NUM_DEALT_CARDS; i++) {
-                Card card = deck.deal();
+                Card card = dealCard();
                 player.addCardToHand(card);
             }
         }
@@ -277,44 +457,35 @@ public class Round implements PropertyChangeObservable {
      * Checks for winners after the deal.
      */
     private void checkForDealWinners() {
-
-        List<Player> winnerList = new LinkedList<>();
-
-        for (Player player : playerList) {
-            if (player.getHandValue() == HAND_MAXIMUM) {
-                player.setStatus(PlayerState.WINNER);
-                winnerList.add(player);
-            }
+        beginBatch();
+        try {
+            settleDeal();
+        } finally {
+            commitBatch();
         }
+    }
 
-        int numWinners = winnerList.size();
+    /**
+     * Pays out any natural 21s after the deal, or starts the first turn if there are none.
+     */
+    private void settleDeal() {
+        RoundSettlement settlement =
+                RoundSettlement.settleDeal(snapshotSeats(), slotOf(dealer), stake);
 
-        // No winners on deal
-        if (numWinners == 0) {
+        if (!settlement.isRoundOver()) {
+            // No winners on deal
             setNextPlayer();
         } else {
-            // One winner on deal
-            if (numWinners == 1) {
-                Player winner = winnerList.get(0);
-
-                // Transfer double stakes to winner
-                for (Player player : playerList) {
-                    if (!player.equals(winner)) {
-                        player.transferTokens(winner, stake * 2);
-                        player.setStatus(PlayerState.LOSER);
-                    }
-                }
-            }
-
-            // If more than one winner on deal, no winners / losers or token transfer.
+            applySettlement(settlement);
 
             // Regardless of number of winners, set the new dealer.
-            if (!winnerList.contains(dealer)) {
+            Player newDealer = roster.get(settlement.getDealer());
+            if (!newDealer.equals(dealer)) {
                 Player previousDealer = dealer;
-                // Player with positional priority.
-                dealer = winnerList.get(0);
-                propertyChangeSupport.firePropertyChange(DEALER_CHANGE_EVENT, previousDealer,
-                        dealer);
+                dealer = newDealer;
+                for (DealerListener listener : dealerListeners.get()) {
+                    listener.dealerChanged(previousDealer, dealer);
+                }
             }
 
             setRoundState(RoundState.FINISHED);
@@ -325,59 +496,127 @@ public class Round implements PropertyChangeObservable {
      * End the round and do any token transfers.
      */
     private void endRound() {
+        beginBatch();
+        try {
+            settleRound();
+        } finally {
+            commitBatch();
+        }
+    }
 
-        // Get players who are not 'bust'.
-        List<Player> remainingPlayers = new LinkedList<>();
+    /**
+     * Pays out the remaining players against the dealer.
+     */
+    private void settleRound() {
+        applySettlement(RoundSettlement.settleRound(snapshotSeats(), slotOf(dealer), stake));
+        setRoundState(RoundState.FINISHED);
+    }
 
-        for (Player player : playerList) {
-            if (player.getStatus() == PlayerState.PLAYING) {
-                remainingPlayers.add(player);
-            }
+    /**
+     * Opens a ledger holding every player's current balance.
+     */
+    private void openLedger() {
+        long[] balances = new long[roster.size()];
+        for (int seat = 0; seat < roster.size(); seat++) {
+            balances[seat] = roster.get(seat).getTokens();
         }
+        ledger = new TokenLedger(balances);
+    }
 
-        // If dealer goes over 21, he pays remaining winners
-        if (dealer.getStatus() == PlayerState.LOSER) {
-            for (Player player : remainingPlayers) {
-                dealer.transferTokens(player, stake);
-                player.setStatus(PlayerState.WINNER);
-            }
-        } else {
-            // Otherwise, compare to the dealer and pay accordingly
-            for (Player player : remainingPlayers) {
-                int comparison = player.getHand().compareTo(dealer.getHand());
-                if (comparison < 0) {
-                    player.transferTokens(dealer, stake);
-                    player.setStatus(PlayerState.LOSER);
-                } else if (comparison > 0) {
-                    dealer.transferTokens(player, stake);
-                    player.setStatus(PlayerState.WINNER);
-                }
-            }
+    // Each seat has the ledger slot of the same number
+    private int slotOf(Player player) {
+        return roster.seatOf(player.getID());
+    }
+
+    /**
+     * Takes a snapshot of every seat for settlement. Seats are in turn order, which is also the
+     * order of the ledger's slots.
+     *
+     * @return The seats.
+     */
+    private List<RoundSettlement.Seat> snapshotSeats() {
+        List<RoundSettlement.Seat> seats = new ArrayList<>(roster.size());
+        for (Player player : roster.asList()) {
+            seats.add(new RoundSettlement.Seat(player.getID(), player.getHandSummary(),
+                    player.getStatus(), player.getTokens(), ledger.getBalance(slotOf(player))));
         }
+        return seats;
+    }
 
-        setRoundState(RoundState.FINISHED);
+    /**
+     * Applies a settlement to the ledger and players all at once, then reports it in one event.
+     *
+     * @param settlement The settlement.
+     */
+    private void applySettlement(RoundSettlement settlement) {
+        for (int slot = 0; slot < settlement.size(); slot++) {
+            ledger.adjust(slot, settlement.getBalanceChange(slot));
+            roster.get(slot).settle(settlement.getStatus(slot), settlement.getTokens(slot));
+        }
+        for (SettlementListener listener : settlementListeners.get()) {
+            listener.settled(settlement);
+        }
     }
 
-    // Set up property change observable functionality
+    /**
+     * Tells listeners the turn has passed to the current player, unless it was already theirs.
+     *
+     * @param previousPlayer The player whose turn it was.
+     */
+    private void fireCurrentPlayerChanged(Player previousPlayer) {
+        if (previousPlayer != null && previousPlayer.equals(currentPlayer)) {
+            return;
+        }
+        for (CurrentPlayerListener listener : currentPlayerListeners.get()) {
+            listener.currentPlayerChanged(previousPlayer, currentPlayer);
+        }
+    }
+
+    private void fireBatchChanged(boolean open) {
+        for (BatchListener listener : batchListeners.get()) {
+            listener.batchChanged(open);
+        }
+    }
+
+    // Listener registration
+
+    public void addStateListener(StateListener listener) {
+        stateListeners.add(listener);
+    }
 
-    @Override
-    public void addPropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
-        propertyChangeSupport.addPropertyChangeListener(propertyName, pcl);
+    public void removeStateListener(StateListener listener) {
+        stateListeners.remove(listener);
     }
 
-    @Override
-    public void addPropertyChangeListener(PropertyChangeListener pcl) {
-        propertyChangeSupport.addPropertyChangeListener(pcl);
+    public void addCurrentPlayerListener(CurrentPlayerListener listener) {
+        currentPlayerListeners.add(listener);
     }
 
-    @Override
-    public void removePropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
-        propertyChangeSupport.removePropertyChangeListener(propertyName, pcl);
+    public void removeCurrentPlayerListener(CurrentPlayerListener listener) {
+        currentPlayerListeners.remove(listener);
     }
 
-    @Override
-    public void removePropertyChangeListener(PropertyChangeListener pcl) {
-        propertyChangeSupport.removePropertyChangeListener(pcl);
+    public void addDealerListener(DealerListener listener) {
+        dealerListeners.add(listener);
     }
 
+    public void removeDealerListener(DealerListener listener) {
+        dealerListeners.remove(listener);
+    }
+
+    public void addBatchListener(BatchListener listener) {
+        batchListeners.add(listener);
+    }
+
+    public void removeBatchListener(BatchListener listener) {
+        batchListeners.remove(listener);
+    }
+
+    public void addSettlementListener(SettlementListener listener) {
+        settlementListeners.add(listener);
+    }
+
+    public void removeSettlementListener(SettlementListener listener) {
+        settlementListeners.remove(listener);
+    }
 }
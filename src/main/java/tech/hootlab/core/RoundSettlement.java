@@ -0,0 +1,244 @@
+package tech.hootlab.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * RoundSettlement.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Works out who won, who lost and who pays what at the end of a round (or straight after the deal,
+ * if anyone has a blackjack), from an immutable snapshot of every seat. Everything is decided in
+ * one pass over plain arrays, with no locks and no events, and the result is applied by the Round
+ * in one go. As it only depends on the seats, it can be tested and benchmarked on its own.
+ *
+ * The rules are the same as ever: everyone is settled with the dealer in seat order, each loser
+ * paying in and each winner being paid out as they come, and payers who cannot cover a debt pay
+ * what they have. So a dealer who runs short only pays winners out of what losers earlier in the
+ * seat order have paid in.
+ *
+ * This is immutable, thus threadsafe.
+ */
+public final class RoundSettlement {
+
+    /**
+     * A snapshot of one seat when the round is settled.
+     */
+    public static final class Seat {
+        private final String playerID;
+        private final HandSummary hand;
+        private final PlayerState status;
+        // The player's tokens as last announced, and their balance in the round's ledger now
+        private final long tokens;
+        private final long balance;
+
+        public Seat(String playerID, HandSummary hand, PlayerState status, long tokens,
+                long balance) {
+            this.playerID = playerID;
+            this.hand = hand;
+            this.status = status;
+            this.tokens = tokens;
+            this.balance = balance;
+        }
+
+        public String getPlayerID() {
+            return playerID;
+        }
+
+        public HandSummary getHand() {
+            return hand;
+        }
+
+        public PlayerState getStatus() {
+            return status;
+        }
+
+        public long getTokens() {
+            return tokens;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+    }
+
+    private final List<Seat> seats;
+    private final boolean roundOver;
+    private final int dealer;
+    private final PlayerState[] statuses;
+    private final long[] balances;
+
+    private RoundSettlement(List<Seat> seats, boolean roundOver, int dealer,
+            PlayerState[] statuses, long[] balances) {
+        this.seats = Collections.unmodifiableList(new ArrayList<>(seats));
+        this.roundOver = roundOver;
+        this.dealer = dealer;
+        this.statuses = statuses;
+        this.balances = balances;
+    }
+
+    /**
+     * Settles any blackjacks straight after the deal. A lone blackjack is paid double stakes by
+     * everyone else; several blackjacks just win without any tokens changing hands. Either way,
+     * the dealer passes to the first blackjack unless the dealer has one.
+     *
+     * @param seats  The seats, in turn order.
+     * @param dealer The dealer's index in seats.
+     * @param stake  The round's stake.
+     * @return The settlement. If there are no blackjacks, the round is not over and nothing
+     *         changes.
+     */
+    public static RoundSettlement settleDeal(List<Seat> seats, int dealer, int stake) {
+        int numSeats = seats.size();
+        PlayerState[] statuses = currentStatuses(seats);
+        long[] balances = currentBalances(seats);
+
+        // The first blackjack has positional priority
+        int firstWinner = -1;
+        int numWinners = 0;
+        for (int i = 0; i < numSeats; i++) {
+            if (seats.get(i).getHand().isBlackjack()) {
+                statuses[i] = PlayerState.WINNER;
+                if (numWinners++ == 0) {
+                    firstWinner = i;
+                }
+            }
+        }
+
+        if (numWinners == 0) {
+            return new RoundSettlement(seats, false, dealer, statuses, balances);
+        }
+
+        if (numWinners == 1) {
+            long total = 0;
+            for (int i = 0; i < numSeats; i++) {
+                if (i != firstWinner) {
+                    statuses[i] = PlayerState.LOSER;
+                    total += pay(balances, i, stake * 2L);
+                }
+            }
+            balances[firstWinner] += total;
+        }
+
+        int newDealer = seats.get(dealer).getHand().isBlackjack() ? dealer : firstWinner;
+        return new RoundSettlement(seats, true, newDealer, statuses, balances);
+    }
+
+    /**
+     * Settles the end of the round. Everyone still playing beats a bust dealer; otherwise they win
+     * or lose a stake to the dealer by comparing hands, and draws keep their stake. Seats are
+     * settled one at a time, in order.
+     *
+     * @param seats  The seats, in turn order.
+     * @param dealer The dealer's index in seats.
+     * @param stake  The round's stake.
+     * @return The settlement.
+     */
+    public static RoundSettlement settleRound(List<Seat> seats, int dealer, int stake) {
+        int numSeats = seats.size();
+        PlayerState[] statuses = currentStatuses(seats);
+        long[] balances = currentBalances(seats);
+        boolean dealerBust = statuses[dealer] == PlayerState.LOSER;
+        HandSummary dealerHand = seats.get(dealer).getHand();
+
+        for (int i = 0; i < numSeats; i++) {
+            if (i == dealer || seats.get(i).getStatus() != PlayerState.PLAYING) {
+                continue;
+            }
+
+            int comparison = dealerBust ? 1 : seats.get(i).getHand().compareTo(dealerHand);
+            if (comparison < 0) {
+                statuses[i] = PlayerState.LOSER;
+                balances[dealer] += pay(balances, i, stake);
+            } else if (comparison > 0) {
+                statuses[i] = PlayerState.WINNER;
+                balances[i] += pay(balances, dealer, stake);
+            }
+        }
+
+        return new RoundSettlement(seats, true, dealer, statuses, balances);
+    }
+
+    private static PlayerState[] currentStatuses(List<Seat> seats) {
+        PlayerState[] statuses = new PlayerState[seats.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = seats.get(i).getStatus();
+        }
+        return statuses;
+    }
+
+    private static long[] currentBalances(List<Seat> seats) {
+        long[] balances = new long[seats.size()];
+        for (int i = 0; i < balances.length; i++) {
+            balances[i] = seats.get(i).getBalance();
+        }
+        return balances;
+    }
+
+    // Takes up to the amount from a balance, returning what was taken
+    private static long pay(long[] balances, int payer, long amount) {
+        long paid = Math.min(amount, balances[payer]);
+        balances[payer] -= paid;
+        return paid;
+    }
+
+    /**
+     * @return Whether the round is over. Only false for a deal without blackjacks.
+     */
+    public boolean isRoundOver() {
+        return roundOver;
+    }
+
+    public int size() {
+        return seats.size();
+    }
+
+    public String getPlayerID(int seat) {
+        return seats.get(seat).getPlayerID();
+    }
+
+    /**
+     * @return The index of the dealer for the next round.
+     */
+    public int getDealer() {
+        return dealer;
+    }
+
+    public PlayerState getStatus(int seat) {
+        return statuses[seat];
+    }
+
+    public boolean isStatusChanged(int seat) {
+        return statuses[seat] != seats.get(seat).getStatus();
+    }
+
+    /**
+     * @return The seat's balance once settled.
+     */
+    public long getBalance(int seat) {
+        return balances[seat];
+    }
+
+    /**
+     * @return The seat's balance once settled, as a player's token count.
+     */
+    public int getTokens(int seat) {
+        return (int) Math.min(balances[seat], Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return How the seat's ledger balance changes in this settlement.
+     */
+    public long getBalanceChange(int seat) {
+        return balances[seat] - seats.get(seat).getBalance();
+    }
+
+    /**
+     * @return Whether the seat's settled balance differs from the tokens last announced for them.
+     */
+    public boolean isTokensChanged(int seat) {
+        return balances[seat] != seats.get(seat).getTokens();
+    }
+}
@@ -0,0 +1,276 @@
+package tech.hootlab.core;
+
+/*
+ * RoundSimulator.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Plays rounds of 21 with no Players, listeners or events, for offline balance testing and
+ * capacity planning. The rules are those of Round and RoundSettlement: two cards each in turn
+ * order from the dealer's left, blackjacks settled on the deal (a lone blackjack takes double
+ * stakes and the deal), a bust pays the dealer at once, the dealer only plays if someone else is
+ * still in, and everyone left is settled against the dealer one seat at a time, in seat order.
+ *
+ * Every seat plays the same simple strategy: hit until the hand totals at least 'standOn'. A seat
+ * which goes broke is given a fresh bankroll, rather than leaving as it would at a table.
+ *
+ * Seat state is kept in primitive arrays and cards come from a Shoe reshuffled in place from a
+ * seeded source, so playing a round allocates nothing, and the same seed always plays the same
+ * rounds. A Round dealing from a table's shoes (see ShoePool.forTable()) with the same decks and
+ * penetration deals exactly the same cards, given the table's seed source, e.g. the first split of
+ * a pool's seeded source.
+ *
+ * This is NOT thread safe. Run one simulator per thread and merge their SimulationStats.
+ */
+public class RoundSimulator {
+
+    private static final int HAND_MAXIMUM = HandSummary.HAND_MAXIMUM;
+    private static final int NUM_DEALT_CARDS = 2;
+
+    private final int numSeats;
+    private final int stake;
+    private final long bankroll;
+    private final int standOn;
+
+    private final Shoe shoe;
+    private final SplittableShuffleSource seeds;
+
+    // Seat state, indexed by seat
+    private final int[] totals;
+    private final int[] softAces;
+    private final int[] cardCounts;
+    private final PlayerState[] statuses;
+    private final long[] balances;
+    private int dealer;
+
+    /**
+     * Creates a simulator.
+     *
+     * @param numSeats The number of seats, including the dealer's.
+     * @param stake    The stake for each round.
+     * @param bankroll Each seat's starting tokens.
+     * @param standOn  The total at which every seat stops hitting.
+     * @param shoe     The shoe to deal from, which is shuffled straight away.
+     * @param seeds    The source of each shuffle's seed.
+     */
+    public RoundSimulator(int numSeats, int stake, long bankroll, int standOn, Shoe shoe,
+            SplittableShuffleSource seeds) {
+        if (numSeats < 2) {
+            throw new IllegalArgumentException("A round needs at least two seats");
+        }
+        if (standOn > HAND_MAXIMUM) {
+            throw new IllegalArgumentException("Nobody can hit on " + HAND_MAXIMUM);
+        }
+        this.numSeats = numSeats;
+        this.stake = stake;
+        this.bankroll = bankroll;
+        this.standOn = standOn;
+        this.shoe = shoe;
+        this.seeds = seeds;
+
+        totals = new int[numSeats];
+        softAces = new int[numSeats];
+        cardCounts = new int[numSeats];
+        statuses = new PlayerState[numSeats];
+        balances = new long[numSeats];
+        for (int seat = 0; seat < numSeats; seat++) {
+            balances[seat] = bankroll;
+        }
+        shoe.shuffle(seeds.nextLong());
+    }
+
+    /**
+     * Plays a number of rounds, adding their outcomes to the stats.
+     *
+     * @param rounds The number of rounds.
+     * @param stats  The stats to add to.
+     */
+    public void play(long rounds, SimulationStats stats) {
+        for (long i = 0; i < rounds; i++) {
+            playRound(stats);
+        }
+    }
+
+    /**
+     * Plays a single round, adding its outcome to the stats.
+     *
+     * @param stats The stats to add to.
+     */
+    public void playRound(SimulationStats stats) {
+        stats.recordRound();
+        for (int seat = 0; seat < numSeats; seat++) {
+            if (balances[seat] == 0) {
+                balances[seat] = bankroll;
+                stats.recordRebuy();
+            }
+        }
+        if (shoe.isCutCardReached()) {
+            reshuffle(stats);
+        }
+
+        int roundDealer = dealer;
+        long dealerOpening = balances[roundDealer];
+        deal(stats);
+        if (!settleDeal(stats)) {
+            playTurns(stats);
+            settleRound(stats);
+        }
+        stats.recordDealerTakings(balances[roundDealer] - dealerOpening);
+    }
+
+    /**
+     * @return The seat which deals the next round.
+     */
+    public int getDealer() {
+        return dealer;
+    }
+
+    /**
+     * @return The seat's tokens.
+     */
+    public long getBalance(int seat) {
+        return balances[seat];
+    }
+
+    // The seat taking the given turn, from the dealer's left round to the dealer
+    private int seatAt(int turn) {
+        return (dealer + 1 + turn) % numSeats;
+    }
+
+    private void deal(SimulationStats stats) {
+        for (int turn = 0; turn < numSeats; turn++) {
+            int seat = seatAt(turn);
+            totals[seat] = 0;
+            softAces[seat] = 0;
+            cardCounts[seat] = 0;
+            statuses[seat] = PlayerState.PLAYING;
+            for (int i = 0; i < NUM_DEALT_CARDS; i++) {
+                addCard(seat, stats);
+            }
+        }
+    }
+
+    // As HandSummary.add()
+    private void addCard(int seat, SimulationStats stats) {
+        Card card = shoe.deal();
+        if (card == null) {
+            reshuffle(stats);
+            card = shoe.deal();
+        }
+        totals[seat] += card.getRank().getValue();
+        if (card.getRank() == CardRanks.ACE) {
+            softAces[seat]++;
+        }
+        while (totals[seat] > HAND_MAXIMUM && softAces[seat] > 0) {
+            totals[seat] -= HandSummary.ACE_REDUCTION;
+            softAces[seat]--;
+        }
+        cardCounts[seat]++;
+    }
+
+    private void reshuffle(SimulationStats stats) {
+        shoe.shuffle(seeds.nextLong());
+        stats.recordShuffle();
+    }
+
+    private boolean isBlackjack(int seat) {
+        return cardCounts[seat] == NUM_DEALT_CARDS && totals[seat] == HAND_MAXIMUM;
+    }
+
+    // As RoundSettlement.settleDeal(), returning whether the round is over
+    private boolean settleDeal(SimulationStats stats) {
+        int firstWinner = -1;
+        int numWinners = 0;
+        for (int turn = 0; turn < numSeats; turn++) {
+            int seat = seatAt(turn);
+            if (isBlackjack(seat)) {
+                statuses[seat] = PlayerState.WINNER;
+                if (numWinners++ == 0) {
+                    firstWinner = seat;
+                }
+            }
+        }
+
+        if (numWinners == 0) {
+            return false;
+        }
+
+        if (numWinners == 1) {
+            long total = 0;
+            for (int seat = 0; seat < numSeats; seat++) {
+                if (seat != firstWinner) {
+                    statuses[seat] = PlayerState.LOSER;
+                    total += pay(seat, stake * 2L);
+                }
+            }
+            balances[firstWinner] += total;
+        }
+
+        boolean dealerChanged = !isBlackjack(dealer);
+        stats.recordDealWin(numWinners == 1, dealerChanged);
+        if (dealerChanged) {
+            dealer = firstWinner;
+        }
+        return true;
+    }
+
+    // As the hits and sticks of Round, with every seat hitting below standOn
+    private void playTurns(SimulationStats stats) {
+        for (int turn = 0; turn < numSeats - 1; turn++) {
+            int seat = seatAt(turn);
+            while (totals[seat] < standOn) {
+                addCard(seat, stats);
+            }
+            if (totals[seat] > HAND_MAXIMUM) {
+                statuses[seat] = PlayerState.LOSER;
+                balances[dealer] += pay(seat, stake);
+                stats.recordLoss(true);
+            }
+        }
+
+        // The dealer only plays if anyone else is still in
+        for (int turn = 0; turn < numSeats - 1; turn++) {
+            if (statuses[seatAt(turn)] == PlayerState.PLAYING) {
+                while (totals[dealer] < standOn) {
+                    addCard(dealer, stats);
+                }
+                if (totals[dealer] > HAND_MAXIMUM) {
+                    statuses[dealer] = PlayerState.LOSER;
+                    stats.recordDealerBust();
+                }
+                return;
+            }
+        }
+    }
+
+    // As RoundSettlement.settleRound()
+    private void settleRound(SimulationStats stats) {
+        boolean dealerBust = statuses[dealer] == PlayerState.LOSER;
+
+        for (int seat = 0; seat < numSeats; seat++) {
+            if (seat == dealer || statuses[seat] != PlayerState.PLAYING) {
+                continue;
+            }
+
+            int comparison = dealerBust ? 1 : Integer.compare(totals[seat], totals[dealer]);
+            if (comparison < 0) {
+                statuses[seat] = PlayerState.LOSER;
+                balances[dealer] += pay(seat, stake);
+                stats.recordLoss(false);
+            } else if (comparison > 0) {
+                statuses[seat] = PlayerState.WINNER;
+                balances[seat] += pay(dealer, stake);
+                stats.recordWin();
+            } else {
+                stats.recordDraw();
+            }
+        }
+    }
+
+    // Takes up to the amount from a seat, returning what was taken
+    private long pay(int payer, long amount) {
+        long taken = Math.min(amount, balances[payer]);
+        balances[payer] -= taken;
+        return taken;
+    }
+}
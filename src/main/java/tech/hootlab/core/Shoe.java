@@ -0,0 +1,62 @@
+package tech.hootlab.core;
+
+/*
+ * Shoe.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A dealing shoe: several decks shuffled together, with a cut card placed a given fraction of the
+ * way through (the 'penetration'). Once the cut card has been dealt, the shoe is finished at the
+ * end of the round and replaced by a freshly shuffled one from the ShoePool.
+ *
+ * Each shoe remembers the seed it was last shuffled with, so its order can be dealt again exactly.
+ *
+ * Like PackedDeck, this is NOT thread safe. It belongs to a single Round until it is handed back
+ * to the pool.
+ */
+public class Shoe extends PackedDeck {
+
+    private final int cutCard;
+    private long seed;
+
+    /**
+     * Creates an unshuffled shoe.
+     *
+     * @param decks       The number of standard decks.
+     * @param penetration How far through the shoe the cut card is placed, from 0 to 1.
+     */
+    public Shoe(int decks, double penetration) {
+        super(decks);
+        if (penetration <= 0 || penetration > 1) {
+            throw new IllegalArgumentException("Penetration must be above 0 and at most 1");
+        }
+        this.cutCard = (int) Math.round(capacity() * penetration);
+    }
+
+    /**
+     * Gathers every card and shuffles the whole shoe from a seed. The same seed always gives the
+     * same order.
+     *
+     * @param seed The seed.
+     * @return This shoe, for chaining.
+     */
+    public Shoe shuffle(long seed) {
+        this.seed = seed;
+        restack().shuffle(new SplittableShuffleSource(seed));
+        return this;
+    }
+
+    /**
+     * @return The seed of the last shuffle(long).
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Whether the cut card has been dealt, so the shoe should be replaced.
+     */
+    public boolean isCutCardReached() {
+        return dealt() >= cutCard;
+    }
+}
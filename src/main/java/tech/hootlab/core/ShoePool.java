@@ -0,0 +1,246 @@
+package tech.hootlab.core;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * ShoePool.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Keeps a few shuffled Shoes ready for each table, so rounds never have to shuffle when their shoe
+ * runs out. Each table takes its shoes through its own TableShoes (see forTable()), and a single
+ * background thread, shared by every table, shuffles shoes handed back by rounds (or new ones, at
+ * first) into each table's small ready queue after the table takes one.
+ *
+ * Should a table's queue ever be empty, take() shuffles a shoe itself rather than wait, as it is
+ * called from a table's mailbox. These misses are counted, so the pool size can be tuned. A pool
+ * size of zero has no background thread and always shuffles on take().
+ *
+ * Every table has its own seed source, split from the pool's in the order the tables are created,
+ * and every shoe a table gets is shuffled from the next seed in its source (see Shoe.getSeed()).
+ * The shoes are shuffled in that order under the table's lock, whether by the background thread or
+ * on take(), so a table's n-th shoe is always the same, however the threads are timed. Seeding the
+ * pool makes every table's sequence of shoes the same on every run.
+ *
+ * Designed to be thread-safe.
+ */
+public class ShoePool {
+
+    private final int decks;
+    private final double penetration;
+    private final int poolSize;
+
+    // Finished shoes, to be shuffled again rather than thrown away
+    private final Queue<Shoe> recycledQueue = new ConcurrentLinkedQueue<>();
+    // Tables which have taken a shoe, so may need topping up by the background thread
+    private final BlockingQueue<TableShoes> refillQueue = new LinkedBlockingQueue<>();
+    private volatile boolean started = false;
+
+    // Each table's source is split from this, under the lock
+    private final SplittableShuffleSource seeds;
+    private final ReentrantLock seedLock = new ReentrantLock();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a pool. Call start() to begin shuffling in the background.
+     *
+     * @param decks       The number of decks in each shoe.
+     * @param penetration Where the cut card is placed in each shoe (see Shoe).
+     * @param poolSize    The number of shuffled shoes to keep ready for each table.
+     */
+    public ShoePool(int decks, double penetration, int poolSize) {
+        this(decks, penetration, poolSize, new SplittableShuffleSource());
+    }
+
+    /**
+     * Creates a pool. Call start() to begin shuffling in the background.
+     *
+     * @param decks       The number of decks in each shoe.
+     * @param penetration Where the cut card is placed in each shoe (see Shoe).
+     * @param poolSize    The number of shuffled shoes to keep ready for each table.
+     * @param seeds       The source each table's seed source is split from.
+     */
+    public ShoePool(int decks, double penetration, int poolSize, SplittableShuffleSource seeds) {
+        this.seeds = seeds;
+        this.decks = decks;
+        this.penetration = penetration;
+        this.poolSize = poolSize;
+        // Fail now, rather than on the background thread, if the shoe settings are invalid
+        recycledQueue.add(newShoe());
+    }
+
+    /**
+     * Creates a pool without a background thread, whose shoes are a single deck with the cut card
+     * on top. This shuffles a fresh deck for every round, as the game always used to.
+     *
+     * @return The pool.
+     */
+    public static ShoePool freshDeckEachRound() {
+        return new ShoePool(1, 1.0 / Card.DECK_SIZE, 0);
+    }
+
+    /**
+     * Starts the background thread which keeps the tables' queues full. It is a daemon, so it
+     * never keeps the JVM alive alone. Does nothing if the pool size is zero.
+     */
+    public void start() {
+        if (poolSize <= 0 || started) {
+            return;
+        }
+        started = true;
+
+        Thread shuffler = new Thread(() -> {
+            try {
+                while (true) {
+                    refillQueue.take().refill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "shoe-shuffler");
+        shuffler.setDaemon(true);
+        shuffler.start();
+    }
+
+    /**
+     * Opens the shoes for a new table, with a seed source of its own split from the pool's. Tables
+     * created in the same order from pools with the same seed get the same shoes.
+     *
+     * @return The table's shoes.
+     */
+    public TableShoes forTable() {
+        SplittableShuffleSource tableSeeds;
+        seedLock.lock();
+        try {
+            tableSeeds = seeds.split();
+        } finally {
+            seedLock.unlock();
+        }
+        TableShoes tableShoes = new TableShoes(tableSeeds);
+        tableShoes.requestRefill();
+        return tableShoes;
+    }
+
+    /**
+     * @return The number of times take() found no shoe ready, over every table.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Shoe nextShoe() {
+        Shoe shoe = recycledQueue.poll();
+        return shoe != null ? shoe : newShoe();
+    }
+
+    private Shoe newShoe() {
+        return new Shoe(decks, penetration);
+    }
+
+    /**
+     * One table's shoes, shuffled in order from the table's own seed source.
+     */
+    public final class TableShoes {
+        private final SplittableShuffleSource seeds;
+        // Shuffled shoes, in the order of their seeds. Guarded by the lock, as is the source.
+        private final Queue<Shoe> readyQueue = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean closed = false;
+
+        private TableShoes(SplittableShuffleSource seeds) {
+            this.seeds = seeds;
+        }
+
+        /**
+         * Takes the table's next shuffled shoe. Never waits for the background thread: if none
+         * are ready, the shoe is shuffled on this thread, from the same seed it would have had.
+         *
+         * @return The shoe.
+         */
+        public Shoe take() {
+            Shoe shoe;
+            lock.lock();
+            try {
+                shoe = readyQueue.poll();
+                if (shoe == null) {
+                    misses.increment();
+                    shoe = shuffleNext();
+                }
+            } finally {
+                lock.unlock();
+            }
+            requestRefill();
+            return shoe;
+        }
+
+        /**
+         * Hands back a finished shoe, to be shuffled and reused by any table.
+         *
+         * @param shoe The shoe, which must no longer be used by its round.
+         */
+        public void recycle(Shoe shoe) {
+            recycledQueue.add(shoe);
+        }
+
+        /**
+         * Stops keeping shoes ready for the table, once it is retired, and hands back any that
+         * were.
+         */
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                recycledQueue.addAll(readyQueue);
+                readyQueue.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return The number of shuffled shoes ready for the table.
+         */
+        public int getReadyCount() {
+            lock.lock();
+            try {
+                return readyQueue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void requestRefill() {
+            if (started) {
+                refillQueue.offer(this);
+            }
+        }
+
+        // Tops the ready queue up, on the background thread. Shuffling under the lock keeps the
+        // shoes in seed order; take() waits for at most the one shuffle in progress.
+        private void refill() {
+            while (true) {
+                lock.lock();
+                try {
+                    if (closed || readyQueue.size() >= poolSize) {
+                        return;
+                    }
+                    readyQueue.add(shuffleNext());
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        // Must hold the lock
+        private Shoe shuffleNext() {
+            return nextShoe().shuffle(seeds.nextLong());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package tech.hootlab.core;
+
+/*
+ * ShuffleSource.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The randomness used to shuffle decks. Kept apart from java.util.Random so each shuffler can have
+ * its own fast, unshared generator (see SplittableShuffleSource) and so a shuffle can be replayed
+ * from a seed. Any java.util.Random can still be used, as 'random::nextInt'.
+ *
+ * Implementations need not be thread safe, so each should belong to a single thread.
+ */
+@FunctionalInterface
+public interface ShuffleSource {
+
+    /**
+     * @param bound The upper bound (exclusive), which must be positive.
+     * @return A random int from 0 (inclusive) to the bound (exclusive).
+     */
+    int nextInt(int bound);
+}
@@ -0,0 +1,169 @@
+package tech.hootlab.core;
+
+/*
+ * SimulationStats.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Outcome counts from simulated rounds (see RoundSimulator). Each simulator fills in its own, as
+ * plain counters, and they are merged once the simulators are done.
+ *
+ * This is NOT thread safe.
+ */
+public class SimulationStats {
+
+    private long rounds;
+    // Rounds settled straight after the deal, and those won by a lone blackjack
+    private long dealWins;
+    private long loneBlackjacks;
+    private long dealerChanges;
+    // Hands played against the dealer (so not including the dealer's own)
+    private long hands;
+    private long wins;
+    private long losses;
+    private long draws;
+    private long busts;
+    private long dealerBusts;
+    // Tokens won (or, if negative, lost) by the dealer's seat
+    private long dealerTakings;
+    private long shuffles;
+    // Seats which went broke and were given a fresh bankroll
+    private long rebuys;
+
+    void recordRound() {
+        rounds++;
+    }
+
+    void recordDealWin(boolean lone, boolean dealerChanged) {
+        dealWins++;
+        if (lone) {
+            loneBlackjacks++;
+        }
+        if (dealerChanged) {
+            dealerChanges++;
+        }
+    }
+
+    void recordWin() {
+        hands++;
+        wins++;
+    }
+
+    void recordLoss(boolean bust) {
+        hands++;
+        losses++;
+        if (bust) {
+            busts++;
+        }
+    }
+
+    void recordDraw() {
+        hands++;
+        draws++;
+    }
+
+    void recordDealerBust() {
+        dealerBusts++;
+    }
+
+    void recordDealerTakings(long tokens) {
+        dealerTakings += tokens;
+    }
+
+    void recordShuffle() {
+        shuffles++;
+    }
+
+    void recordRebuy() {
+        rebuys++;
+    }
+
+    /**
+     * Adds another simulator's counts to these.
+     *
+     * @param other The other counts.
+     */
+    public void merge(SimulationStats other) {
+        rounds += other.rounds;
+        dealWins += other.dealWins;
+        loneBlackjacks += other.loneBlackjacks;
+        dealerChanges += other.dealerChanges;
+        hands += other.hands;
+        wins += other.wins;
+        losses += other.losses;
+        draws += other.draws;
+        busts += other.busts;
+        dealerBusts += other.dealerBusts;
+        dealerTakings += other.dealerTakings;
+        shuffles += other.shuffles;
+        rebuys += other.rebuys;
+    }
+
+    public long getRounds() {
+        return rounds;
+    }
+
+    public long getDealWins() {
+        return dealWins;
+    }
+
+    public long getLoneBlackjacks() {
+        return loneBlackjacks;
+    }
+
+    public long getDealerChanges() {
+        return dealerChanges;
+    }
+
+    public long getHands() {
+        return hands;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getBusts() {
+        return busts;
+    }
+
+    public long getDealerBusts() {
+        return dealerBusts;
+    }
+
+    public long getDealerTakings() {
+        return dealerTakings;
+    }
+
+    public long getShuffles() {
+        return shuffles;
+    }
+
+    public long getRebuys() {
+        return rebuys;
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "rounds=%d settledOnDeal=%.2f%% loneBlackjacks=%.2f%% dealerChanges=%d%n"
+                        + "hands=%d won=%.2f%% lost=%.2f%% (bust %.2f%%) drawn=%.2f%%%n"
+                        + "dealerBusts=%.2f%% dealerTakings/round=%.3f shuffles=%d rebuys=%d",
+                rounds, percent(dealWins, rounds), percent(loneBlackjacks, rounds),
+                dealerChanges, hands, percent(wins, hands), percent(losses, hands),
+                percent(busts, hands), percent(draws, hands), percent(dealerBusts, rounds),
+                rounds == 0 ? 0 : (double) dealerTakings / rounds, shuffles, rebuys);
+    }
+}
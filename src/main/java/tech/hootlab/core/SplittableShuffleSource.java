@@ -0,0 +1,64 @@
+package tech.hootlab.core;
+
+import java.util.SplittableRandom;
+
+/*
+ * SplittableShuffleSource.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A ShuffleSource backed by a SplittableRandom. Unlike a shared java.util.Random, it holds no
+ * atomic state, so shufflers on different cores never contend on it. Each shuffler should have its
+ * own, made with split() or from a seed.
+ *
+ * Given a seed, the sequence it produces is always the same, so a shuffle (and the deck order it
+ * gives) can be replayed exactly.
+ *
+ * This is NOT thread safe.
+ */
+public class SplittableShuffleSource implements ShuffleSource {
+
+    private final SplittableRandom random;
+
+    /**
+     * Creates a source with an unpredictable seed.
+     */
+    public SplittableShuffleSource() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a source which always produces the same sequence for the same seed.
+     *
+     * @param seed The seed.
+     */
+    public SplittableShuffleSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableShuffleSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * @return A random long, e.g. to seed another source.
+     */
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    /**
+     * Creates a new, independent source for another thread. If this source was seeded, so is the
+     * new one.
+     *
+     * @return The new source.
+     */
+    public SplittableShuffleSource split() {
+        return new SplittableShuffleSource(random.split());
+    }
+}
@@ -0,0 +1,83 @@
+package tech.hootlab.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * TokenLedger.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * The token balances of a round's players, held in an AtomicLongArray with one slot per player.
+ * Transfers are lock-free compare-and-set updates of the slots, so no locks are ordered or held.
+ *
+ * As before, a player who owes more than they have pays what they have.
+ *
+ * Designed to be thread-safe, though each Round only uses its own.
+ */
+public class TokenLedger {
+
+    private final AtomicLongArray balances;
+
+    /**
+     * Creates a ledger.
+     *
+     * @param openingBalances The balance of each slot.
+     */
+    public TokenLedger(long... openingBalances) {
+        this.balances = new AtomicLongArray(openingBalances);
+    }
+
+    public int size() {
+        return balances.length();
+    }
+
+    public long getBalance(int slot) {
+        return balances.get(slot);
+    }
+
+    /**
+     * Moves tokens from one slot to another.
+     *
+     * @param from   The paying slot.
+     * @param to     The receiving slot.
+     * @param amount The amount owed.
+     * @return The amount actually paid, which is less if the payer could not cover it.
+     */
+    public long transfer(int from, int to, long amount) {
+        if (from == to) {
+            return 0;
+        }
+        long paid = debit(from, amount);
+        balances.addAndGet(to, paid);
+        return paid;
+    }
+
+    /**
+     * Adds to (or, if negative, takes from) a slot's balance. Used to apply a settlement worked
+     * out elsewhere (see RoundSettlement), which has already made sure nobody pays more than they
+     * have.
+     *
+     * @param slot   The slot.
+     * @param change The change in balance.
+     */
+    public void adjust(int slot, long change) {
+        if (change != 0) {
+            balances.addAndGet(slot, change);
+        }
+    }
+
+    /**
+     * Takes up to the given amount from a slot.
+     *
+     * @return The amount taken.
+     */
+    private long debit(int slot, long amount) {
+        while (true) {
+            long balance = balances.get(slot);
+            long paid = Math.min(amount, balance);
+            if (balances.compareAndSet(slot, balance, balance - paid)) {
+                return paid;
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package tech.hootlab.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import tech.hootlab.GameSnapshot;
+import tech.hootlab.MessageCodecs;
+import tech.hootlab.PlayerSnapshot;
+import tech.hootlab.Server;
+import tech.hootlab.SocketMessage;
+import tech.hootlab.SocketMessageFrames;
+import tech.hootlab.client.ClientSettings;
+
+/*
+ * ConnectionLoadTest.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * A comparison run for the server's thread modes. For each mode, a fresh server process is started
+ * and loaded with many idle clients (connected spectators which never join) and a few active
+ * clients which play rounds. It reports the server's resident memory and thread count, and the
+ * latency of each round from the dealer's DEAL to ROUND_FINISHED. Active clients are spread across
+ * as many tables as the server's seat limit requires (-DmaxSeats), which all play at once.
+ *
+ * All clients are driven from a single selector thread here, so the harness itself stays small.
+ *
+ * Run with: gradle loadTest -Dclients=10000 -Dactive=20 -Drounds=50
+ * Server write batching can be tuned with -DwriteBatchSize, -DwriteLingerMicros and -DtcpNoDelay.
+ * The server admits at most -DacceptRate new clients a second, so raise it (or set it to zero) to
+ * connect large numbers of clients quickly.
+ * The server's per-client command limit (-DcommandRate) is lifted unless set, as the active clients
+ * play flat out.
+ * A mode which does not admit every client or finish its rounds within ten minutes is marked
+ * INCOMPLETE in the report.
+ *
+ * Linux only (memory is read from /proc). Remember to raise the open file limit (ulimit -n) above
+ * the client count. Virtual threads need a JDK 21+ runtime, otherwise the server falls back to
+ * platform threads and says so on stderr.
+ */
+public class ConnectionLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("clients", 10000);
+    private static final int ACTIVE_CLIENTS = Integer.getInteger("active", 20);
+    private static final int ROUNDS = Integer.getInteger("rounds", 50);
+    private static final int PORT = Integer.getInteger("port", 14337);
+    private static final String[] MODES =
+            System.getProperty("modes", "platform,virtual").split(",");
+    private static final String TRANSPORT = System.getProperty("transport", "blocking");
+    // Server write tuning, passed on to the server if set
+    private static final String[] SERVER_SETTINGS = {"writeBatchSize", "writeLingerMicros",
+            "tcpNoDelay", "outboundQueueCapacity", "overflowPolicy", "maxSeats", "tableThreads",
+            "shoeDecks", "shoePenetration", "shoePoolSize", "shuffleSeed", "turnTimeoutMillis",
+            "autoDealDelayMillis", "timerTickMillis", "heartbeatIntervalMillis",
+            "heartbeatTimeoutMillis", "maxConnections", "acceptRate", "acceptBurst",
+            "acceptBacklog", "commandRate", "commandBurst"};
+
+    private static final int STARTING_TOKENS = 1_000_000;
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    public static void main(String[] args) throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %12s %9s %12s %9s %10s %10s %10s", "mode", "idle RSS MB",
+                "threads", "active RSS MB", "threads", "p50 ms", "p99 ms", "max ms"));
+
+        for (String mode : MODES) {
+            report.add(run(mode.trim()));
+        }
+
+        System.out.printf("%n%d clients (%d active), %d rounds, %s transport%n", CLIENTS,
+                ACTIVE_CLIENTS, ROUNDS, TRANSPORT);
+        report.forEach(System.out::println);
+    }
+
+    private static String run(String mode) throws Exception {
+        Process server = startServer(mode);
+        try (Selector selector = Selector.open()) {
+            List<LoadClient> clients = new ArrayList<>();
+            List<LoadClient> activeClients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                SocketChannel channel =
+                        SocketChannel.open(new InetSocketAddress("127.0.0.1", PORT));
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                LoadClient client = new LoadClient(channel, i < ACTIVE_CLIENTS);
+                channel.register(selector, SelectionKey.OP_READ, client);
+                clients.add(client);
+                if (client.active) {
+                    activeClients.add(client);
+                }
+            }
+
+            // Wait for every client to be admitted (see -DacceptRate), then let the server settle
+            // before measuring the cost of idle connections.
+            boolean admitted = pump(selector, TIMEOUT_MILLIS,
+                    () -> clients.stream().allMatch(client -> client.clientID != null));
+            pump(selector, TimeUnit.SECONDS.toMillis(2), () -> false);
+            long idleRSS = readStatus(server, "VmRSS");
+            long idleThreads = readStatus(server, "Threads");
+
+            // The first active client counts the rounds.
+            LoadClient observer = activeClients.get(0);
+            boolean finished = pump(selector, TIMEOUT_MILLIS,
+                    () -> observer.roundsFinished >= ROUNDS);
+            long activeRSS = readStatus(server, "VmRSS");
+            long activeThreads = readStatus(server, "Threads");
+
+            List<Long> latencies = new ArrayList<>();
+            activeClients.forEach(c -> latencies.addAll(c.roundLatencies));
+            Collections.sort(latencies);
+
+            String row = String.format("%-10s %12d %9d %12d %9d %10.1f %10.1f %10.1f", mode,
+                    idleRSS / 1024, idleThreads, activeRSS / 1024, activeThreads,
+                    percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    percentile(latencies, 1.0));
+            // A run which timed out is reported, but its figures are not comparable
+            if (!admitted) {
+                long connected = clients.stream().filter(c -> c.clientID != null).count();
+                row += String.format("  INCOMPLETE: %d of %d clients admitted", connected,
+                        CLIENTS);
+            } else if (!finished) {
+                row += String.format("  INCOMPLETE: %d of %d rounds", observer.roundsFinished,
+                        ROUNDS);
+            }
+            return row;
+        } finally {
+            server.destroyForcibly().waitFor();
+        }
+    }
+
+    private static Process startServer(String mode) throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp",
+                System.getProperty("java.class.path"), "-Dtwentyone.port=" + PORT,
+                "-Dtwentyone.threads=" + mode, "-Dtwentyone.transport=" + TRANSPORT));
+        for (String setting : SERVER_SETTINGS) {
+            if (System.getProperty(setting) != null) {
+                command.add("-Dtwentyone." + setting + "=" + System.getProperty(setting));
+            }
+        }
+        if (System.getProperty("commandRate") == null) {
+            // Active clients play as fast as they can, far faster than the limit meant for people
+            command.add("-Dtwentyone.commandRate=0");
+        }
+        command.add(Server.class.getName());
+        Process process = new ProcessBuilder(command).inheritIO()
+                .redirectOutput(new File("/dev/null")).start();
+
+        // Wait for the server to listen
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (true) {
+            try {
+                new Socket("127.0.0.1", PORT).close();
+                break;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+        return process;
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    // Returns whether the condition was met before the time ran out
+    private static boolean pump(Selector selector, long millis, Condition condition)
+            throws IOException {
+        long deadline = System.currentTimeMillis() + millis;
+        while (!condition.isMet() && System.currentTimeMillis() < deadline) {
+            selector.select(100);
+            Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+            while (keyIterator.hasNext()) {
+                SelectionKey key = keyIterator.next();
+                keyIterator.remove();
+                ((LoadClient) key.attachment()).onReadable();
+            }
+        }
+        return condition.isMet();
+    }
+
+    // Reads a value (in kB for memory) from /proc/<pid>/status
+    private static long readStatus(Process process, String field) throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc", "" + process.pid(), "status"))) {
+            if (line.startsWith(field + ":")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return -1;
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1e6;
+    }
+
+    /**
+     * A scripted client. Idle clients only answer pings, so they are not reaped as dead. Active
+     * clients join the game, deal when they are the dealer and stick whenever it is their turn.
+     */
+    private static class LoadClient {
+        private final SocketChannel channel;
+        private final boolean active;
+        private ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+
+        private String clientID;
+        private long dealTime;
+        // Whether a round has started and not yet been counted as finished
+        private boolean inRound;
+        private int roundsFinished;
+        private final List<Long> roundLatencies = new ArrayList<>();
+
+        LoadClient(SocketChannel channel, boolean active) {
+            this.channel = channel;
+            this.active = active;
+        }
+
+        void onReadable() throws IOException {
+            channel.read(readBuffer);
+            readBuffer.flip();
+            while (readBuffer.remaining() >= SocketMessageFrames.HEADER_LENGTH) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (readBuffer.remaining() < SocketMessageFrames.HEADER_LENGTH + length) {
+                    break;
+                }
+                readBuffer.position(readBuffer.position() + SocketMessageFrames.HEADER_LENGTH);
+                handle(SocketMessageFrames.decode(readBuffer.array(), readBuffer.position(),
+                        length));
+                readBuffer.position(readBuffer.position() + length);
+            }
+            readBuffer.compact();
+            if (!readBuffer.hasRemaining()) {
+                ByteBuffer largerBuffer = ByteBuffer.allocate(readBuffer.capacity() * 2);
+                readBuffer.flip();
+                largerBuffer.put(readBuffer);
+                readBuffer = largerBuffer;
+            }
+        }
+
+        private void handle(SocketMessage message) throws IOException {
+            switch (message.getCommand()) {
+                case SocketMessage.CONNECT:
+                    clientID = (String) message.getPayload();
+                    if (active) {
+                        send(SocketMessage.CONNECT,
+                                new ClientSettings("load-" + clientID, STARTING_TOKENS));
+                    }
+                    break;
+
+                case SocketMessage.PING:
+                    send(SocketMessage.PONG, null);
+                    break;
+
+                case SocketMessage.ROUND_STARTED:
+                    roundStarted((PlayerSnapshot) message.getPayload());
+                    break;
+
+                case SocketMessage.ROUND_IN_PROGRESS:
+                    inRound = true;
+                    break;
+
+                case SocketMessage.ROUND_PLAYER_CHANGE:
+                    playerChanged((PlayerSnapshot) message.getPayload());
+                    break;
+
+                case SocketMessage.ROUND_FINISHED:
+                    roundFinished();
+                    break;
+
+                case SocketMessage.SNAPSHOT:
+                    applySnapshot((GameSnapshot) message.getPayload());
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        // Sent in place of the frames dropped when this client's queue overflowed, so it acts on
+        // the round's state as the game client does.
+        private void applySnapshot(GameSnapshot snapshot) throws IOException {
+            if (!active || snapshot.getState() == null) {
+                return;
+            }
+            switch (snapshot.getState()) {
+                case READY:
+                    roundStarted(snapshot.getDealer());
+                    break;
+
+                case IN_PROGRESS:
+                    inRound = true;
+                    playerChanged(snapshot.getCurrentPlayer());
+                    break;
+
+                case FINISHED:
+                    roundFinished();
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        private void roundStarted(PlayerSnapshot dealer) throws IOException {
+            inRound = true;
+            if (dealer != null && clientID.equals(dealer.getID())) {
+                dealTime = System.nanoTime();
+                send(SocketMessage.DEAL, null);
+            }
+        }
+
+        private void playerChanged(PlayerSnapshot currentPlayer) throws IOException {
+            if (currentPlayer != null && clientID.equals(currentPlayer.getID())) {
+                send(SocketMessage.STICK, null);
+            }
+        }
+
+        private void roundFinished() {
+            // A snapshot of a finished round may follow its ROUND_FINISHED, so count it once
+            if (!inRound) {
+                return;
+            }
+            inRound = false;
+            if (dealTime != 0) {
+                roundLatencies.add(System.nanoTime() - dealTime);
+                dealTime = 0;
+            }
+            roundsFinished++;
+        }
+
+        private void send(int command, ClientSettings payload) throws IOException {
+            ByteBuffer frame = ByteBuffer.wrap(SocketMessageFrames
+                    .encode(new SocketMessage(command, payload), MessageCodecs.BINARY));
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tech.hootlab.perf;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.HandSummary;
+import tech.hootlab.core.OddsEngine;
+import tech.hootlab.core.OddsHint;
+import tech.hootlab.core.Shoe;
+
+/*
+ * OddsBenchmark.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Measures working out an OddsHint from a six deck shoe, against a dealer with a low hand (so
+ * with the most ways to play out), both from an empty cache, as on the first turn after a card is
+ * dealt, and from a full one, as for the next player after a stick.
+ *
+ * Run with: gradle jmh -Djmh.include=OddsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OddsBenchmark {
+
+    private OddsEngine engine;
+    private int[] rankCounts;
+    private HandSummary hand;
+    private HandSummary dealerHand;
+
+    @Setup
+    public void setUp() {
+        // A cache of its own, small enough that clearing it costs little next to the work
+        engine = new OddsEngine(4096);
+        rankCounts = new int[CardRanks.values().length];
+        Shoe shoe = new Shoe(6, 0.75).shuffle(21);
+        for (int i = 0; i < 40; i++) {
+            shoe.deal();
+        }
+        shoe.countRemaining(rankCounts);
+        hand = HandSummary.EMPTY.add(Card.of(CardSuits.HEARTS, CardRanks.TEN))
+                .add(Card.of(CardSuits.CLUBS, CardRanks.FOUR));
+        dealerHand = HandSummary.EMPTY.add(Card.of(CardSuits.SPADES, CardRanks.THREE))
+                .add(Card.of(CardSuits.DIAMONDS, CardRanks.TWO));
+    }
+
+    @Benchmark
+    public OddsHint coldCache() {
+        engine.clearCache();
+        return engine.getHint(hand, dealerHand, rankCounts, 6);
+    }
+
+    @Benchmark
+    public OddsHint warmCache() {
+        return engine.getHint(hand, dealerHand, rankCounts, 6);
+    }
+}
@@ -0,0 +1,99 @@
+package tech.hootlab.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.hootlab.core.Deck;
+import tech.hootlab.core.PackedDeck;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.Round;
+import tech.hootlab.core.SplittableShuffleSource;
+
+/*
+ * RoundSetupBenchmark.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Compares the cost of getting a deck ready and dealing a round's opening hands with the old
+ * linked list Deck (52 new cards and list nodes, shuffled, every round) and the PackedDeck (reset
+ * and reshuffled in place), plus a whole Round reset and start for reference. The PackedDeck is
+ * also shuffled with one java.util.Random shared by every thread, to show its contention when run
+ * with several JMH threads (-t).
+ *
+ * Run with: gradle jmh -Djmh.include=RoundSetupBenchmark
+ * The GC profiler's gc.alloc.rate.norm column is the allocation per round.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundSetupBenchmark {
+
+    private static final int NUM_DEALT_CARDS = 2;
+    private static final Random SHARED_RANDOM = new Random();
+
+    @Param({"2", "7"})
+    private int players;
+
+    private PackedDeck packedDeck;
+    private SplittableShuffleSource shuffleSource;
+    private Round round;
+    private List<Player> playerList;
+
+    @Setup
+    public void setUp() {
+        packedDeck = new PackedDeck();
+        shuffleSource = new SplittableShuffleSource(21);
+        round = new Round();
+        playerList = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            playerList.add(new Player("player-" + i, Integer.MAX_VALUE));
+        }
+    }
+
+    @Benchmark
+    public void linkedDeck(Blackhole blackhole) {
+        Deck deck = Deck.getStandardDeck().shuffle();
+        for (int i = 0; i < players * NUM_DEALT_CARDS; i++) {
+            blackhole.consume(deck.deal());
+        }
+    }
+
+    @Benchmark
+    public void packedDeck(Blackhole blackhole) {
+        packedDeck.reset().shuffle(shuffleSource);
+        for (int i = 0; i < players * NUM_DEALT_CARDS; i++) {
+            blackhole.consume(packedDeck.deal());
+        }
+    }
+
+    @Benchmark
+    public void packedDeckSharedRandom(Blackhole blackhole) {
+        packedDeck.reset().shuffle(SHARED_RANDOM);
+        for (int i = 0; i < players * NUM_DEALT_CARDS; i++) {
+            blackhole.consume(packedDeck.deal());
+        }
+    }
+
+    @Benchmark
+    public Round roundSetup() {
+        round.reset(playerList, playerList.get(0), 20);
+        round.start();
+        return round;
+    }
+}
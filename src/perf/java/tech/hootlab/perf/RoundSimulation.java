@@ -0,0 +1,77 @@
+package tech.hootlab.perf;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import tech.hootlab.core.RoundSimulator;
+import tech.hootlab.core.Shoe;
+import tech.hootlab.core.SimulationStats;
+import tech.hootlab.core.SplittableShuffleSource;
+
+/*
+ * RoundSimulation.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Plays a large number of headless rounds (see RoundSimulator) across every core, then reports
+ * rounds per second and the combined outcomes, for balance testing and capacity planning.
+ *
+ * The rounds are split into many chunks, each with its own simulator, shoe and seed, which a
+ * fork/join pool works through as a parallel stream. The chunk seeds are all drawn from the main
+ * seed up front, so the same seed always gives the same outcomes, whatever the thread count.
+ *
+ * Run with: gradle simulate -Drounds=10000000 -Dseats=4 -Dthreads=8 -Dseed=21
+ */
+public class RoundSimulation {
+
+    private static final long ROUNDS = Long.getLong("rounds", 10_000_000L);
+    private static final int SEATS = Integer.getInteger("seats", 4);
+    private static final int STAKE = Integer.getInteger("stake", 20);
+    private static final long BANKROLL = Long.getLong("bankroll", 1000L);
+    private static final int STAND_ON = Integer.getInteger("standOn", 17);
+    private static final int DECKS = Integer.getInteger("decks", 6);
+    private static final double PENETRATION =
+            Double.parseDouble(System.getProperty("penetration", "0.75"));
+    private static final int THREADS =
+            Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+    private static final Long SEED = Long.getLong("seed");
+
+    // Enough chunks to keep every core busy to the end. Fixed, rather than per thread, so the
+    // outcomes do not depend on the thread count.
+    private static final int CHUNKS = Integer.getInteger("chunks", 256);
+
+    public static void main(String[] args) throws Exception {
+        int chunks = CHUNKS;
+        SplittableShuffleSource seeds =
+                SEED == null ? new SplittableShuffleSource() : new SplittableShuffleSource(SEED);
+        long[] chunkSeeds = new long[chunks];
+        for (int i = 0; i < chunks; i++) {
+            chunkSeeds[i] = seeds.nextLong();
+        }
+
+        System.out.printf("%d rounds, %d seats, %d threads%n", ROUNDS, SEATS, THREADS);
+
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        long start = System.nanoTime();
+        SimulationStats stats = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .mapToObj(i -> playChunk(chunkSeeds[i], chunkRounds(i, chunks)))
+                .collect(SimulationStats::new, SimulationStats::merge, SimulationStats::merge))
+                .get();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("%.2f seconds, %.0f rounds/sec%n", elapsed, stats.getRounds() / elapsed);
+        System.out.println(stats);
+    }
+
+    // Splits the rounds evenly, the first chunks taking any remainder
+    private static long chunkRounds(int chunk, int chunks) {
+        return ROUNDS / chunks + (chunk < ROUNDS % chunks ? 1 : 0);
+    }
+
+    private static SimulationStats playChunk(long seed, long rounds) {
+        SimulationStats stats = new SimulationStats();
+        new RoundSimulator(SEATS, STAKE, BANKROLL, STAND_ON, new Shoe(DECKS, PENETRATION),
+                new SplittableShuffleSource(seed)).play(rounds, stats);
+        return stats;
+    }
+}
@@ -0,0 +1,74 @@
+package tech.hootlab.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.hootlab.core.HandSummary;
+import tech.hootlab.core.PackedDeck;
+import tech.hootlab.core.PlayerState;
+import tech.hootlab.core.RoundSettlement;
+import tech.hootlab.core.RoundSettlement.Seat;
+import tech.hootlab.core.SplittableShuffleSource;
+
+/*
+ * SettlementBenchmark.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Measures settling the end of a round with RoundSettlement, for a full and a two player table,
+ * over a spread of random hands. The hands are dealt from a seeded source, so every run settles the
+ * same tables.
+ *
+ * Run with: gradle jmh -Djmh.include=SettlementBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SettlementBenchmark {
+
+    // Distinct tables to cycle through, so no one set of hands is learned
+    private static final int TABLES = 256;
+
+    @Param({"2", "7"})
+    private int players;
+
+    private List<List<Seat>> tables;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        PackedDeck deck = new PackedDeck();
+        SplittableShuffleSource shuffleSource = new SplittableShuffleSource(21);
+        tables = new ArrayList<>(TABLES);
+        for (int t = 0; t < TABLES; t++) {
+            deck.reset().shuffle(shuffleSource);
+            List<Seat> seats = new ArrayList<>(players);
+            for (int i = 0; i < players; i++) {
+                HandSummary hand = HandSummary.EMPTY.add(deck.deal()).add(deck.deal());
+                PlayerState status = hand.isBust() ? PlayerState.LOSER : PlayerState.PLAYING;
+                seats.add(new Seat("player-" + i, hand, status, 1000, 1000));
+            }
+            tables.add(seats);
+        }
+    }
+
+    @Benchmark
+    public RoundSettlement settleRound() {
+        next = (next + 1) % TABLES;
+        return RoundSettlement.settleRound(tables.get(next), players - 1, 20);
+    }
+}
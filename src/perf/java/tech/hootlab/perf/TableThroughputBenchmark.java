@@ -0,0 +1,212 @@
+package tech.hootlab.perf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import tech.hootlab.ClientConnection;
+import tech.hootlab.MessageCodec;
+import tech.hootlab.MessageCodecs;
+import tech.hootlab.OutboundFrame;
+import tech.hootlab.PlayerSnapshot;
+import tech.hootlab.ServerController;
+import tech.hootlab.ServerThreads;
+import tech.hootlab.ServerThreads.ThreadMode;
+import tech.hootlab.SocketMessage;
+import tech.hootlab.client.ClientSettings;
+
+/*
+ * TableThroughputBenchmark.java
+ *
+ * Gareth Sears - 2493194S
+ *
+ * Measures how many game commands (and so rounds) the tables can get through, without any sockets
+ * in the way. Each player is an in-memory ClientConnection which encodes the frames it is sent, as
+ * a real connection would, and answers them: the dealer deals and every player sticks on their
+ * turn. Answers are sent from a pool of 'reader' threads, like the ClientRunner readers or the NIO
+ * event loops, so commands for a table arrive from many threads at once.
+ *
+ * Each table count is run in turn, with a short warm up, and reports commands and rounds per
+ * second. The table threads are the same as the server's (-Dtwentyone.threads and
+ * -Dtwentyone.tableThreads).
+ *
+ * Run with: gradle tableBenchmark -Dtables=1,4,16,64 -Dseats=4 -Dseconds=5 -DreaderThreads=8
+ */
+public class TableThroughputBenchmark {
+
+    private static final String[] TABLES = System.getProperty("tables", "1,4,16,64").split(",");
+    private static final int SEATS = Integer.getInteger("seats", 4);
+    private static final int SECONDS = Integer.getInteger("seconds", 5);
+    private static final int WARM_UP_SECONDS = Integer.getInteger("warmUpSeconds", 2);
+    private static final int READER_THREADS =
+            Integer.getInteger("readerThreads", Runtime.getRuntime().availableProcessors());
+
+    private static final int STARTING_TOKENS = 1_000_000_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%d seats per table, %d reader threads, %d second runs%n", SEATS,
+                READER_THREADS, SECONDS);
+        System.out.printf("%8s %16s %14s%n", "tables", "commands/sec", "rounds/sec");
+
+        for (String tables : TABLES) {
+            run(Integer.parseInt(tables.trim()));
+        }
+    }
+
+    private static void run(int tableCount) throws InterruptedException {
+        ServerController controller = new ServerController(SEATS,
+                ServerThreads.newExecutor(ThreadMode.valueOf(System
+                        .getProperty("twentyone.threads", "platform").toUpperCase()), "table-",
+                        Integer.getInteger("twentyone.tableThreads",
+                                Runtime.getRuntime().availableProcessors())));
+        ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS);
+        Counters counters = new Counters();
+
+        List<BotConnection> bots = new ArrayList<>();
+        for (int i = 0; i < tableCount * SEATS; i++) {
+            BotConnection bot = new BotConnection("bot-" + i, controller, readers, counters);
+            bots.add(bot);
+            controller.addClient(bot);
+            ClientSettings settings =
+                    new ClientSettings(bot.getID(), STARTING_TOKENS, MessageCodecs.BINARY.getID());
+            controller.handleMessage(bot.getID(),
+                    new SocketMessage(SocketMessage.CONNECT, settings));
+        }
+
+        // Warm up, then count from zero
+        Thread.sleep(TimeUnit.SECONDS.toMillis(WARM_UP_SECONDS));
+        counters.reset();
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(SECONDS));
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long commands = counters.commands.sum();
+        // Every table is full, so each round is finished for SEATS players
+        long rounds = counters.finishes.sum() / SEATS;
+
+        bots.forEach(bot -> bot.stop());
+        readers.shutdown();
+        readers.awaitTermination(10, TimeUnit.SECONDS);
+        bots.forEach(bot -> controller.removePlayer(bot.getID()));
+
+        System.out.printf("%8d %16.0f %14.0f%n", tableCount, commands / elapsed,
+                rounds / elapsed);
+    }
+
+    private static class Counters {
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder finishes = new LongAdder();
+
+        private void reset() {
+            commands.reset();
+            finishes.reset();
+        }
+    }
+
+    /**
+     * A player which is only ever sent frames in memory, and plays by dealing when dealer and
+     * sticking on every turn.
+     */
+    private static class BotConnection implements ClientConnection {
+
+        private final String ID;
+        private final ServerController controller;
+        private final ExecutorService readers;
+        private final Counters counters;
+
+        private volatile MessageCodec codec = MessageCodecs.SERIALIZED;
+        private volatile boolean running = true;
+
+        private BotConnection(String ID, ServerController controller, ExecutorService readers,
+                Counters counters) {
+            this.ID = ID;
+            this.controller = controller;
+            this.readers = readers;
+            this.counters = counters;
+        }
+
+        @Override
+        public String getID() {
+            return ID;
+        }
+
+        @Override
+        public long getLastSeen() {
+            // Always alive
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            try {
+                // Encoded as a connection would, though nothing is written
+                frame.encode(codec);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            SocketMessage message = frame.getMessage();
+            switch (message.getCommand()) {
+                case SocketMessage.ROUND_STARTED:
+                    if (isMe(message.getPayload())) {
+                        reply(SocketMessage.DEAL);
+                    }
+                    break;
+
+                case SocketMessage.ROUND_PLAYER_CHANGE:
+                    if (isMe(message.getPayload())) {
+                        reply(SocketMessage.STICK);
+                    }
+                    break;
+
+                case SocketMessage.ROUND_FINISHED:
+                    // Every player at the table hears this
+                    counters.finishes.increment();
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void sendSnapshot(OutboundFrame frame) {
+            sendFrame(frame);
+        }
+
+        @Override
+        public void setCodec(MessageCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public void disconnect() {
+            stop();
+        }
+
+        private void stop() {
+            running = false;
+        }
+
+        private boolean isMe(Object payload) {
+            return payload instanceof PlayerSnapshot
+                    && ID.equals(((PlayerSnapshot) payload).getID());
+        }
+
+        private void reply(int command) {
+            if (!running) {
+                return;
+            }
+            counters.commands.increment();
+            try {
+                readers.execute(
+                        () -> controller.handleMessage(ID, new SocketMessage(command, null)));
+            } catch (RejectedExecutionException e) {
+                // The run is over
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * BinaryMessageCodecTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.client.ClientSettings;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.OddsHint;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.PlayerState;
+import tech.hootlab.core.RoundState;
+
+class BinaryMessageCodecTest {
+
+    private SocketMessage roundTrip(SocketMessage message, MessageCodec codec) throws IOException {
+        byte[] frame = SocketMessageFrames.encode(message, codec);
+        int headerLength = SocketMessageFrames.HEADER_LENGTH;
+        return SocketMessageFrames.decode(frame, headerLength, frame.length - headerLength);
+    }
+
+    private Player createPlayer() {
+        Player player = new Player("Gareth", 100);
+        player.addCardToHand(Card.of(CardSuits.HEARTS, CardRanks.ACE));
+        player.addCardToHand(Card.of(CardSuits.CLUBS, CardRanks.KING));
+        player.setStatus(PlayerState.WINNER);
+        return player;
+    }
+
+    private void assertPlayerEquals(PlayerSnapshot expected, PlayerSnapshot actual) {
+        assertEquals(expected.getID(), actual.getID());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getTokens(), actual.getTokens());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.toPlayer().getHandValue(), actual.toPlayer().getHandValue());
+        assertEquals(expected.getCards().toString(), actual.getCards().toString());
+    }
+
+    @DisplayName("Every card encodes to a unique byte and back")
+    @Test
+    void cardCodesRoundTrip() {
+        for (CardSuits suit : CardSuits.values()) {
+            for (CardRanks rank : CardRanks.values()) {
+                Card card = Card.fromCode(Card.of(suit, rank).toCode());
+                assertEquals(suit, card.getSuit());
+                assertEquals(rank, card.getRank());
+            }
+        }
+    }
+
+    @DisplayName("Player payloads survive a round trip")
+    @Test
+    void playerRoundTrip() throws IOException {
+        PlayerSnapshot player = PlayerSnapshot.of(createPlayer());
+        SocketMessage decoded =
+                roundTrip(new SocketMessage(SocketMessage.SET_USER, player), MessageCodecs.BINARY);
+
+        assertEquals(SocketMessage.SET_USER, decoded.getCommand());
+        assertPlayerEquals(player, (PlayerSnapshot) decoded.getPayload());
+    }
+
+    @DisplayName("Table snapshot payloads survive a round trip")
+    @Test
+    void playerListRoundTrip() throws IOException {
+        TableSnapshot table =
+                TableSnapshot.of(12, Arrays.asList(createPlayer(), new Player("Empty", 5)));
+        SocketMessage decoded = roundTrip(new SocketMessage(SocketMessage.SET_PLAYERS, table),
+                MessageCodecs.BINARY);
+
+        TableSnapshot decodedTable = (TableSnapshot) decoded.getPayload();
+        List<PlayerSnapshot> decodedList = decodedTable.getPlayers();
+        assertEquals(12, decodedTable.getSequence());
+        assertEquals(2, decodedList.size());
+        assertPlayerEquals(table.getPlayers().get(0), decodedList.get(0));
+        assertPlayerEquals(table.getPlayers().get(1), decodedList.get(1));
+    }
+
+    @DisplayName("Null and settings payloads survive a round trip")
+    @Test
+    void simplePayloadRoundTrip() throws IOException {
+        assertNull(roundTrip(new SocketMessage(SocketMessage.HIT, null), MessageCodecs.BINARY)
+                .getPayload());
+
+        ClientSettings settings = (ClientSettings) roundTrip(
+                new SocketMessage(SocketMessage.CONNECT, new ClientSettings("Gareth", 42)),
+                MessageCodecs.BINARY).getPayload();
+        assertEquals("Gareth", settings.getName());
+        assertEquals(42, settings.getTokens());
+        assertEquals(BinaryMessageCodec.ID, settings.getCodecID());
+    }
+
+    @DisplayName("Binary frames are much smaller than serialized frames")
+    @Test
+    void binaryIsSmaller() throws IOException {
+        SocketMessage message =
+                new SocketMessage(SocketMessage.SET_USER, PlayerSnapshot.of(createPlayer()));
+        int binaryLength = SocketMessageFrames.encode(message, MessageCodecs.BINARY).length;
+        int serializedLength = SocketMessageFrames.encode(message, MessageCodecs.SERIALIZED).length;
+        assertTrue(binaryLength * 5 < serializedLength,
+                binaryLength + " bytes vs " + serializedLength + " bytes");
+    }
+
+    @DisplayName("Player deltas survive a round trip and are far smaller than players")
+    @Test
+    void playerDeltaRoundTrip() throws IOException {
+        Player player = createPlayer();
+        Card card = Card.of(CardSuits.SPADES, CardRanks.SEVEN);
+        SocketMessage message = new SocketMessage(SocketMessage.HAND_UPDATE,
+                PlayerDelta.cardDealt(player.getID(), 7, card));
+
+        PlayerDelta delta =
+                (PlayerDelta) roundTrip(message, MessageCodecs.BINARY).getPayload();
+        assertEquals(PlayerDelta.Kind.CARD_DEALT, delta.getKind());
+        assertEquals(player.getID(), delta.getPlayerID());
+        assertEquals(7, delta.getSequence());
+        assertEquals(card.toString(), delta.getCard().toString());
+
+        int deltaLength = SocketMessageFrames.encode(message, MessageCodecs.BINARY).length;
+        int playerLength =
+                SocketMessageFrames.encode(new SocketMessage(SocketMessage.HAND_UPDATE, player),
+                        MessageCodecs.SERIALIZED).length;
+        assertTrue(deltaLength * 10 < playerLength,
+                deltaLength + " bytes vs " + playerLength + " bytes");
+    }
+
+    @DisplayName("Game snapshots survive a round trip")
+    @Test
+    void gameSnapshotRoundTrip() throws IOException {
+        Player player = createPlayer();
+        TableSnapshot table = TableSnapshot.of(42, Arrays.asList(player, new Player("Empty", 5)));
+        GameSnapshot snapshot = new GameSnapshot(table, table.getPlayers().get(0), null,
+                RoundState.IN_PROGRESS);
+
+        GameSnapshot decoded = (GameSnapshot) roundTrip(
+                new SocketMessage(SocketMessage.SNAPSHOT, snapshot), MessageCodecs.BINARY)
+                        .getPayload();
+        assertEquals(42, decoded.getSequence());
+        assertEquals(RoundState.IN_PROGRESS, decoded.getState());
+        assertEquals(2, decoded.getPlayers().size());
+        assertPlayerEquals(snapshot.getDealer(), decoded.getPlayers().get(0));
+        assertPlayerEquals(snapshot.getDealer(), decoded.getDealer());
+        assertNull(decoded.getCurrentPlayer());
+    }
+
+    @DisplayName("Table updates drop redundant changes and survive a round trip")
+    @Test
+    void tableUpdateRoundTrip() throws IOException {
+        Card card = Card.of(CardSuits.SPADES, CardRanks.TEN);
+        TableUpdate update = new TableUpdate(7, Arrays.asList(
+                PlayerDelta.cardDealt("a", 7, card),
+                PlayerDelta.tokens("a", 7, 80),
+                PlayerDelta.handCleared("a", 7),
+                PlayerDelta.cardDealt("a", 7, card),
+                PlayerDelta.tokens("b", 7, 120),
+                PlayerDelta.tokens("a", 7, 60)));
+        assertEquals(4, update.getDeltas().size());
+
+        TableUpdate decoded = (TableUpdate) roundTrip(
+                new SocketMessage(SocketMessage.TABLE_UPDATE, update), MessageCodecs.BINARY)
+                        .getPayload();
+        assertEquals(7, decoded.getSequence());
+        assertEquals(update.getDeltas().toString(), decoded.getDeltas().toString());
+        assertEquals(PlayerDelta.Kind.HAND_CLEARED, decoded.getDeltas().get(0).getKind());
+        assertEquals(60, decoded.getDeltas().get(3).getTokens());
+    }
+
+    @DisplayName("Odds hints survive a round trip, with or without odds against the dealer")
+    @Test
+    void oddsHintRoundTrip() throws IOException {
+        OddsHint hint = (OddsHint) roundTrip(new SocketMessage(SocketMessage.ODDS_HINT,
+                new OddsHint(0.25, 0.5, 0.125, 0.375)), MessageCodecs.BINARY).getPayload();
+        assertTrue(hint.isAgainstDealer());
+        assertEquals(0.25, hint.getBustProbability());
+        assertEquals(0.375, hint.getLoseProbability());
+
+        hint = (OddsHint) roundTrip(new SocketMessage(SocketMessage.ODDS_HINT, new OddsHint(0.5)),
+                MessageCodecs.BINARY).getPayload();
+        assertFalse(hint.isAgainstDealer());
+        assertEquals(0.5, hint.getBustProbability());
+    }
+
+    @DisplayName("Unknown codecs fall back to Java serialization")
+    @Test
+    void negotiationFallsBack() {
+        assertEquals(MessageCodecs.SERIALIZED, MessageCodecs.negotiate((byte) 99));
+        assertEquals(MessageCodecs.BINARY, MessageCodecs.negotiate(BinaryMessageCodec.ID));
+    }
+
+    @DisplayName("Bad ordinals, lengths and card codes are rejected")
+    @Test
+    void malformedFramesAreRejected() throws IOException {
+        // A player whose status is out of range
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(BinaryMessageCodec.ID);
+        out.writeByte(SocketMessage.SET_USER);
+        out.writeByte(3);
+        out.writeUTF("ID");
+        out.writeUTF("Gareth");
+        out.writeInt(100);
+        out.writeByte(9);
+        byte[] badStatus = bytes.toByteArray();
+        assertThrows(StreamCorruptedException.class,
+                () -> SocketMessageFrames.decode(badStatus, 0, badStatus.length));
+
+        // A serialized payload longer than the frame
+        bytes.reset();
+        out.writeByte(BinaryMessageCodec.ID);
+        out.writeByte(SocketMessage.SET_USER);
+        out.writeByte(127);
+        out.writeInt(Integer.MAX_VALUE);
+        byte[] badLength = bytes.toByteArray();
+        assertThrows(StreamCorruptedException.class,
+                () -> SocketMessageFrames.decode(badLength, 0, badLength.length));
+
+        // A card code outside the deck
+        bytes.reset();
+        out.writeByte(BinaryMessageCodec.ID);
+        out.writeByte(SocketMessage.HAND_UPDATE);
+        out.writeByte(5);
+        out.writeUTF("ID");
+        out.writeLong(1);
+        out.writeByte(PlayerDelta.Kind.CARD_DEALT.ordinal());
+        out.writeByte(Card.DECK_SIZE);
+        byte[] badCard = bytes.toByteArray();
+        assertThrows(StreamCorruptedException.class,
+                () -> SocketMessageFrames.decode(badCard, 0, badCard.length));
+    }
+
+    @DisplayName("Serialized payloads are limited to the game's message classes")
+    @Test
+    void serializedPayloadsAreFiltered() throws IOException {
+        SocketMessage message = new SocketMessage(SocketMessage.SET_USER, new HashMap<>());
+        assertThrows(InvalidClassException.class,
+                () -> roundTrip(message, MessageCodecs.BINARY));
+        assertThrows(InvalidClassException.class,
+                () -> roundTrip(message, MessageCodecs.SERIALIZED));
+
+        SocketMessage settings =
+                new SocketMessage(SocketMessage.CONNECT, new ClientSettings("Gareth", 42));
+        assertEquals("Gareth", ((ClientSettings) roundTrip(settings, MessageCodecs.SERIALIZED)
+                .getPayload()).getName());
+    }
+}
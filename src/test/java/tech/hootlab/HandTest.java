@@ -0,0 +1,53 @@
+/*
+ * HandTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.Hand;
+import tech.hootlab.core.HandSummary;
+
+class HandTest {
+
+    private Hand handOf(CardRanks... ranks) {
+        Hand hand = new Hand();
+        for (CardRanks rank : ranks) {
+            hand.add(Card.of(CardSuits.CLUBS, rank));
+        }
+        return hand;
+    }
+
+    @DisplayName("Aces count as 11 until that would go bust, one at a time")
+    @Test
+    void acesSoftenOneAtATime() {
+        HandSummary summary = handOf(CardRanks.ACE, CardRanks.ACE).getSummary();
+        assertEquals(12, summary.getTotal());
+        assertTrue(summary.isSoft());
+
+        summary = handOf(CardRanks.ACE, CardRanks.ACE, CardRanks.KING).getSummary();
+        assertEquals(12, summary.getTotal());
+        assertFalse(summary.isSoft());
+
+        summary = handOf(CardRanks.KING, CardRanks.QUEEN, CardRanks.FIVE).getSummary();
+        assertTrue(summary.isBust());
+    }
+
+    @DisplayName("Only 21 from two cards is a blackjack, and hands compare by total")
+    @Test
+    void blackjacksAndComparisons() {
+        Hand blackjack = handOf(CardRanks.ACE, CardRanks.KING);
+        Hand threeCard = handOf(CardRanks.SEVEN, CardRanks.SEVEN, CardRanks.SEVEN);
+        assertTrue(blackjack.getSummary().isBlackjack());
+        assertFalse(threeCard.getSummary().isBlackjack());
+        assertEquals(0, blackjack.compareTo(threeCard));
+        assertTrue(handOf(CardRanks.ACE, CardRanks.NINE).compareTo(blackjack) < 0);
+        assertEquals(3, threeCard.getSummary().getCardCount());
+    }
+}
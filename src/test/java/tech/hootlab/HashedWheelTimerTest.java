@@ -0,0 +1,82 @@
+/*
+ * HashedWheelTimerTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.HashedWheelTimer.Timeout;
+
+class HashedWheelTimerTest {
+
+    private HashedWheelTimer createTimer() {
+        // A small wheel, so the timeouts below need more than one turn of it
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, TimeUnit.MILLISECONDS, 4);
+        timer.start();
+        return timer;
+    }
+
+    @DisplayName("Timeouts fire after their delay, and cancelled ones never do")
+    @Test
+    void timeoutsFireUnlessCancelled() throws InterruptedException {
+        HashedWheelTimer timer = createTimer();
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        CountDownLatch fired = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        Timeout cancelled =
+                timer.newTimeout(cancelledRuns::incrementAndGet, 40, TimeUnit.MILLISECONDS);
+        Timeout timeout = timer.newTimeout(fired::countDown, 60, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(60));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, cancelledRuns.get());
+        timer.stop();
+    }
+
+    @DisplayName("Table timers only run the action they were last armed with")
+    @Test
+    void tableTimersDropReplacedActions() throws InterruptedException {
+        HashedWheelTimer timer = createTimer();
+        TurnScheduler scheduler = new TurnScheduler(timer, 20, 20);
+        // Runs actions straight away on the timer thread, standing in for a table's mailbox
+        TurnScheduler.TableTimer tableTimer = scheduler.newTableTimer(Runnable::run);
+        AtomicInteger stale = new AtomicInteger();
+        CountDownLatch dealt = new CountDownLatch(1);
+
+        tableTimer.armTurn(stale::incrementAndGet);
+        tableTimer.armDeal(dealt::countDown);
+
+        assertTrue(dealt.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(0, stale.get());
+        timer.stop();
+    }
+
+    @DisplayName("A closed table timer drops what it was waiting for and is never armed again")
+    @Test
+    void closedTableTimersNeverFire() throws InterruptedException {
+        HashedWheelTimer timer = createTimer();
+        TurnScheduler scheduler = new TurnScheduler(timer, 20, 20);
+        TurnScheduler.TableTimer tableTimer = scheduler.newTableTimer(Runnable::run);
+        AtomicInteger runs = new AtomicInteger();
+
+        tableTimer.armDeal(runs::incrementAndGet);
+        tableTimer.close();
+        tableTimer.armTurn(runs::incrementAndGet);
+
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+        timer.stop();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * HeartbeatMonitorTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HeartbeatMonitorTest {
+
+    // A connection last heard from at a fixed time, which records what it is sent
+    private static class QuietConnection implements ClientConnection {
+        private final String ID;
+        private final long lastSeen;
+        private final List<Integer> sent = new ArrayList<>();
+
+        QuietConnection(String ID, long lastSeenMillis) {
+            this.ID = ID;
+            this.lastSeen = TimeUnit.MILLISECONDS.toNanos(lastSeenMillis);
+        }
+
+        @Override
+        public String getID() {
+            return ID;
+        }
+
+        @Override
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            sent.add(frame.getMessage().getCommand());
+        }
+
+        @Override
+        public void sendSnapshot(OutboundFrame frame) {
+            sendFrame(frame);
+        }
+
+        @Override
+        public void setCodec(MessageCodec codec) {}
+
+        @Override
+        public void disconnect() {}
+    }
+
+    @DisplayName("Quiet clients are pinged and silent ones are reaped")
+    @Test
+    void quietClientsArePingedAndSilentOnesReaped() {
+        QuietConnection live = new QuietConnection("live", 9000);
+        QuietConnection quiet = new QuietConnection("quiet", 5000);
+        QuietConnection dead = new QuietConnection("dead", 1000);
+        List<String> reaped = new ArrayList<>();
+
+        HeartbeatMonitor monitor = new HeartbeatMonitor(Arrays.asList(live, quiet, dead),
+                connection -> reaped.add(connection.getID()), 2000, 6000);
+
+        assertEquals(1, monitor.sweep(TimeUnit.MILLISECONDS.toNanos(10000)));
+        assertEquals(Arrays.asList("dead"), reaped);
+        assertEquals(0, live.sent.size());
+        assertEquals(Arrays.asList(SocketMessage.PING), quiet.sent);
+        assertEquals(0, dead.sent.size());
+    }
+
+    @DisplayName("The timeout must be longer than the interval")
+    @Test
+    void timeoutMustExceedInterval() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HeartbeatMonitor(new ArrayList<>(), connection -> {
+                }, 2000, 2000));
+    }
+}
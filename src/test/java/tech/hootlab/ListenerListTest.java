@@ -0,0 +1,65 @@
+/*
+ * ListenerListTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.PlayerState;
+
+class ListenerListTest {
+
+    @DisplayName("A listener removed while an event fires still hears that event, but no more")
+    @Test
+    void removedDuringFire() {
+        Player player = new Player("Gareth", 100);
+        List<PlayerState> heard = new ArrayList<>();
+        Player.StatusListener[] self = new Player.StatusListener[1];
+        self[0] = (changedPlayer, status) -> {
+            heard.add(status);
+            changedPlayer.removeStatusListener(self[0]);
+        };
+        player.addStatusListener(self[0]);
+        player.addStatusListener((changedPlayer, status) -> heard.add(status));
+
+        player.setStatus(PlayerState.WINNER);
+        player.setStatus(PlayerState.LOSER);
+        assertEquals(3, heard.size());
+        assertEquals(PlayerState.LOSER, heard.get(2));
+    }
+
+    @DisplayName("A serialized player leaves its listeners behind, but can still fire events")
+    @Test
+    void listenersNotSerialized() throws IOException, ClassNotFoundException {
+        Player player = new Player("Gareth", 100);
+        List<Card> dealt = new ArrayList<>();
+        player.addHandListener((changedPlayer, card) -> dealt.add(card));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(player);
+        }
+        Player copy;
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Player) in.readObject();
+        }
+
+        copy.addCardToHand(Card.of(CardSuits.SPADES, CardRanks.ACE));
+        assertEquals(0, dealt.size());
+        player.addCardToHand(Card.of(CardSuits.SPADES, CardRanks.ACE));
+        assertEquals(1, dealt.size());
+    }
+}
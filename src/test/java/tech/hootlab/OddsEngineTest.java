@@ -0,0 +1,103 @@
+/*
+ * OddsEngineTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.HandSummary;
+import tech.hootlab.core.OddsEngine;
+import tech.hootlab.core.OddsHint;
+import tech.hootlab.core.Shoe;
+
+class OddsEngineTest {
+
+    private static final double DELTA = 1e-9;
+
+    private HandSummary hand(CardRanks... ranks) {
+        HandSummary hand = HandSummary.EMPTY;
+        for (CardRanks rank : ranks) {
+            hand = hand.add(Card.of(CardSuits.SPADES, rank));
+        }
+        return hand;
+    }
+
+    private int[] rankCounts(CardRanks... ranks) {
+        int[] rankCounts = new int[CardRanks.values().length];
+        for (CardRanks rank : ranks) {
+            rankCounts[rank.ordinal()]++;
+        }
+        return rankCounts;
+    }
+
+    @DisplayName("Odds are exact for a shoe of a five and a king")
+    @Test
+    void smallShoeOdds() {
+        OddsHint hint = new OddsEngine().getHint(hand(CardRanks.KING, CardRanks.TWO),
+                hand(CardRanks.TEN, CardRanks.SIX), rankCounts(CardRanks.FIVE, CardRanks.KING));
+
+        assertEquals(0.5, hint.getBustProbability(), DELTA);
+        assertTrue(hint.isAgainstDealer());
+        // The dealer makes 21 with the five, or busts with the king
+        assertEquals(0.5, hint.getWinProbability(), DELTA);
+        assertEquals(0, hint.getDrawProbability(), DELTA);
+        assertEquals(0.5, hint.getLoseProbability(), DELTA);
+    }
+
+    @DisplayName("A soft hand cannot bust on one card, and the dealer only gets bust odds")
+    @Test
+    void softHandOdds() {
+        OddsHint hint = new OddsEngine().getHint(hand(CardRanks.ACE, CardRanks.SIX), null,
+                rankCounts(CardRanks.KING, CardRanks.QUEEN, CardRanks.NINE));
+
+        assertEquals(0, hint.getBustProbability(), DELTA);
+        assertFalse(hint.isAgainstDealer());
+    }
+
+    @DisplayName("Cached and uncached odds agree over a full shoe")
+    @Test
+    void cachedOddsAgree() {
+        int[] rankCounts = new int[CardRanks.values().length];
+        new Shoe(6, 0.75).countRemaining(rankCounts);
+        HandSummary hand = hand(CardRanks.NINE, CardRanks.SIX);
+        HandSummary dealerHand = hand(CardRanks.FOUR, CardRanks.TWO);
+
+        OddsEngine engine = new OddsEngine();
+        OddsHint cached = engine.getHint(hand, dealerHand, rankCounts);
+        OddsHint again = engine.getHint(hand, dealerHand, rankCounts);
+        OddsHint uncached = new OddsEngine(0).getHint(hand, dealerHand, rankCounts);
+
+        assertEquals(1, cached.getWinProbability() + cached.getDrawProbability()
+                + cached.getLoseProbability(), DELTA);
+        assertEquals(uncached.getWinProbability(), cached.getWinProbability(), DELTA);
+        assertEquals(cached.getLoseProbability(), again.getLoseProbability(), DELTA);
+        // 7, 8, 9 and all 10s bust a hard 15
+        assertEquals(3 * 24 + 96, cached.getBustProbability() * 312, 1e-6);
+    }
+
+    @DisplayName("An empty shoe is taken to be replaced by a new shoe of as many decks")
+    @Test
+    void emptyShoeOdds() {
+        int[] sixDecks = new int[CardRanks.values().length];
+        new Shoe(6, 0.75).countRemaining(sixDecks);
+        int[] empty = new int[CardRanks.values().length];
+        HandSummary hand = hand(CardRanks.TEN, CardRanks.SEVEN);
+        HandSummary dealerHand = hand(CardRanks.FIVE, CardRanks.SIX);
+
+        OddsEngine engine = new OddsEngine(0);
+        OddsHint fresh = engine.getHint(hand, dealerHand, sixDecks, 6);
+        OddsHint replaced = engine.getHint(hand, dealerHand, empty, 6);
+        OddsHint singleDeck = engine.getHint(hand, dealerHand, empty, 1);
+
+        assertEquals(fresh.getBustProbability(), replaced.getBustProbability(), DELTA);
+        assertEquals(fresh.getWinProbability(), replaced.getWinProbability(), DELTA);
+        assertEquals(fresh.getLoseProbability(), replaced.getLoseProbability(), DELTA);
+        assertTrue(Math.abs(fresh.getWinProbability() - singleDeck.getWinProbability()) > 1e-6);
+    }
+}
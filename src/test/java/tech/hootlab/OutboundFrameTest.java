@@ -0,0 +1,31 @@
+/*
+ * OutboundFrameTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OutboundFrameTest {
+
+    @DisplayName("A frame is encoded once per codec and shared by every client")
+    @Test
+    void encodedOnce() throws IOException {
+        OutboundFrame frame = new OutboundFrame(new SocketMessage(SocketMessage.HIT, "payload"));
+        byte[] bytes = frame.encode(MessageCodecs.BINARY);
+        assertSame(bytes, frame.encode(MessageCodecs.BINARY));
+
+        // Each view has its own position over the same bytes
+        ByteBuffer first = frame.encodeBuffer(MessageCodecs.BINARY);
+        ByteBuffer second = frame.encodeBuffer(MessageCodecs.BINARY);
+        first.position(first.limit());
+        assertEquals(bytes.length, second.remaining());
+        assertEquals(bytes[0], second.get(0));
+        assertTrue(second.isReadOnly());
+    }
+}
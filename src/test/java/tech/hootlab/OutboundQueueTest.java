@@ -0,0 +1,80 @@
+/*
+ * OutboundQueueTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.OutboundQueue.OverflowPolicy;
+
+class OutboundQueueTest {
+
+    private ServerMetrics metrics = new ServerMetrics();
+
+    @DisplayName("A full queue refuses messages but never control messages")
+    @Test
+    void fullQueueRefuses() {
+        OutboundQueue<String> queue = new OutboundQueue<>(2, OverflowPolicy.DISCONNECT, metrics);
+        assertTrue(queue.offer("a", SocketMessage.HAND_UPDATE));
+        assertTrue(queue.offer("b", SocketMessage.HAND_UPDATE));
+        assertFalse(queue.offer("c", SocketMessage.HAND_UPDATE));
+        assertTrue(queue.offer("poison", SocketMessage.POISON));
+        assertEquals(3, queue.size());
+    }
+
+    @DisplayName("Superseded messages are dropped to make room, but deltas are not")
+    @Test
+    void supersededMessagesDropped() {
+        OutboundQueue<String> queue =
+                new OutboundQueue<>(3, OverflowPolicy.DROP_SUPERSEDED, metrics);
+        queue.offer("players 1", SocketMessage.SET_PLAYERS);
+        queue.offer("delta", SocketMessage.HAND_UPDATE);
+        queue.offer("current 1", SocketMessage.ROUND_PLAYER_CHANGE);
+
+        // Nothing is made redundant by another delta
+        assertFalse(queue.offer("delta", SocketMessage.TOKEN_UPDATE));
+
+        // The new player list makes the old one redundant
+        assertTrue(queue.offer("players 2", SocketMessage.SET_PLAYERS));
+        assertEquals(1, metrics.getSupersededDrops());
+        assertEquals("delta", queue.poll());
+        assertEquals("current 1", queue.poll());
+        assertEquals("players 2", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @DisplayName("Resetting replaces the backlog but keeps control messages")
+    @Test
+    void resetKeepsControlMessages() {
+        OutboundQueue<String> queue = new OutboundQueue<>(10, OverflowPolicy.SNAPSHOT, metrics);
+        queue.offer("delta", SocketMessage.HAND_UPDATE);
+        queue.offer("disconnect", SocketMessage.DISCONNECT);
+        queue.offer("delta", SocketMessage.STATUS_UPDATE);
+
+        queue.reset("snapshot", SocketMessage.SNAPSHOT);
+        assertEquals("snapshot", queue.poll());
+        assertEquals("disconnect", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @DisplayName("Queue depths are reported deepest first")
+    @Test
+    void laggingClientsReported() {
+        OutboundQueue<String> shallow = new OutboundQueue<>(10, OverflowPolicy.SNAPSHOT, metrics);
+        OutboundQueue<String> deep = new OutboundQueue<>(10, OverflowPolicy.SNAPSHOT, metrics);
+        metrics.registerQueue("shallow", shallow);
+        metrics.registerQueue("deep", deep);
+        shallow.offer("delta", SocketMessage.HAND_UPDATE);
+        deep.offer("delta", SocketMessage.HAND_UPDATE);
+        deep.offer("delta", SocketMessage.HAND_UPDATE);
+
+        assertEquals("deep", metrics.getLaggingClients(5).get(0).getKey());
+        assertEquals(2, metrics.getQueueDepth("deep"));
+        metrics.unregisterQueue("deep");
+        assertEquals(1, metrics.getLaggingClients(5).size());
+    }
+}
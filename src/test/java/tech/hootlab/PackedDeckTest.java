@@ -0,0 +1,49 @@
+/*
+ * PackedDeckTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.PackedDeck;
+
+class PackedDeckTest {
+
+    @DisplayName("A shuffled deck deals all 52 shared cards once, and again after a reset")
+    @Test
+    void dealsEveryCardOnce() {
+        PackedDeck deck = new PackedDeck().shuffle(new Random(21));
+        for (int round = 0; round < 2; round++) {
+            Set<Card> dealt = new HashSet<>();
+            for (int i = 0; i < 52; i++) {
+                Card card = deck.deal();
+                assertSame(Card.of(card.getSuit(), card.getRank()), card);
+                dealt.add(card);
+            }
+            assertEquals(52, dealt.size());
+            assertNull(deck.deal());
+            deck.reset().shuffle(new Random(round));
+        }
+    }
+
+    @DisplayName("Shuffling only moves the cards left in the deck")
+    @Test
+    void shuffleKeepsDealtCards() {
+        PackedDeck deck = new PackedDeck();
+        assertSame(Card.of(CardSuits.SPADES, CardRanks.ACE), deck.deal());
+        deck.shuffle(new Random(21));
+        assertEquals(51, deck.size());
+
+        deck.reset();
+        assertSame(Card.of(CardSuits.SPADES, CardRanks.ACE), deck.deal());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * RosterTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.Roster;
+
+class RosterTest {
+
+    private Roster createRoster(int numPlayers) {
+        Roster roster = new Roster(2);
+        for (int i = 0; i < numPlayers; i++) {
+            roster.add(new Player("player-" + i, "Player " + i, 100));
+        }
+        return roster;
+    }
+
+    @DisplayName("Removed players keep their seat but are skipped")
+    @Test
+    void removedSeatsAreSkipped() {
+        Roster roster = createRoster(5);
+        assertEquals("player-1", roster.remove("player-1").getID());
+        assertEquals("player-2", roster.remove("player-2").getID());
+        assertNull(roster.remove("player-2"));
+
+        assertEquals(5, roster.size());
+        assertEquals(3, roster.activeCount());
+        assertEquals(1, roster.seatOf("player-1"));
+        assertTrue(roster.isRemoved(1));
+        assertNull(roster.get("player-1"));
+        assertEquals("player-1", roster.get(1).getID());
+
+        assertEquals(0, roster.nextActiveSeat(0));
+        assertEquals(3, roster.nextActiveSeat(1));
+        assertEquals(-1, roster.nextActiveSeat(5));
+        assertEquals(3, roster.getActivePlayers().size());
+        assertEquals(5, roster.asList().size());
+    }
+
+    @DisplayName("Compacting drops removed seats and renumbers the rest")
+    @Test
+    void compactRenumbersSeats() {
+        Roster roster = createRoster(4);
+        roster.remove("player-0");
+        roster.remove("player-2");
+        roster.compactIfSparse();
+        assertEquals(4, roster.size());
+
+        roster.remove("player-3");
+        roster.compactIfSparse();
+        assertEquals(1, roster.size());
+        assertEquals(0, roster.seatOf("player-1"));
+        assertEquals(-1, roster.seatOf("player-3"));
+    }
+
+    @DisplayName("Players can only be seated once, unless they have left")
+    @Test
+    void playersAreSeatedOnce() {
+        Roster roster = createRoster(3);
+        Player player = roster.get("player-0");
+        assertThrows(IllegalArgumentException.class, () -> roster.add(player));
+
+        roster.remove("player-0");
+        assertEquals(2, roster.add(player));
+        assertEquals(3, roster.activeCount());
+        assertEquals("player-1", roster.get(0).getID());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * RoundSettlementTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.HandSummary;
+import tech.hootlab.core.PlayerState;
+import tech.hootlab.core.RoundSettlement;
+import tech.hootlab.core.RoundSettlement.Seat;
+
+class RoundSettlementTest {
+
+    private Seat seat(String ID, PlayerState status, long balance, CardRanks... ranks) {
+        HandSummary hand = HandSummary.EMPTY;
+        for (CardRanks rank : ranks) {
+            hand = hand.add(Card.of(CardSuits.HEARTS, rank));
+        }
+        return new Seat(ID, hand, status, balance, balance);
+    }
+
+    @DisplayName("Seats are settled with the dealer one at a time, in seat order")
+    @Test
+    void roundSettledAgainstDealer() {
+        List<Seat> seats = Arrays.asList(
+                seat("winner", PlayerState.PLAYING, 0, CardRanks.KING, CardRanks.NINE),
+                seat("loser", PlayerState.PLAYING, 100, CardRanks.KING, CardRanks.SEVEN),
+                seat("draw", PlayerState.PLAYING, 100, CardRanks.KING, CardRanks.EIGHT),
+                seat("bust", PlayerState.LOSER, 100, CardRanks.KING, CardRanks.KING),
+                seat("late winner", PlayerState.PLAYING, 0, CardRanks.KING, CardRanks.TEN),
+                seat("dealer", PlayerState.PLAYING, 0, CardRanks.TEN, CardRanks.EIGHT));
+
+        RoundSettlement settlement = RoundSettlement.settleRound(seats, 5, 20);
+        assertTrue(settlement.isRoundOver());
+        assertEquals(PlayerState.WINNER, settlement.getStatus(0));
+        assertEquals(PlayerState.LOSER, settlement.getStatus(1));
+        assertEquals(PlayerState.PLAYING, settlement.getStatus(2));
+        assertFalse(settlement.isStatusChanged(3));
+        assertEquals(PlayerState.WINNER, settlement.getStatus(4));
+
+        // The dealer had nothing when the first winner was settled, so only the winner after the
+        // loser is paid, with the loser's stake
+        assertEquals(0, settlement.getBalance(0));
+        assertEquals(80, settlement.getBalance(1));
+        assertEquals(20, settlement.getBalance(4));
+        assertEquals(0, settlement.getBalance(5));
+        assertFalse(settlement.isTokensChanged(0));
+        assertFalse(settlement.isTokensChanged(2));
+    }
+
+    @DisplayName("A lone blackjack on the deal takes double stakes and the deal")
+    @Test
+    void loneBlackjackSettled() {
+        List<Seat> seats = Arrays.asList(
+                seat("blackjack", PlayerState.PLAYING, 100, CardRanks.ACE, CardRanks.KING),
+                seat("broke", PlayerState.PLAYING, 30, CardRanks.TWO, CardRanks.THREE),
+                seat("dealer", PlayerState.PLAYING, 100, CardRanks.TEN, CardRanks.NINE));
+
+        RoundSettlement settlement = RoundSettlement.settleDeal(seats, 2, 20);
+        assertTrue(settlement.isRoundOver());
+        assertEquals(0, settlement.getDealer());
+        assertEquals(170, settlement.getBalance(0));
+        assertEquals(0, settlement.getBalance(1));
+        assertEquals(PlayerState.LOSER, settlement.getStatus(2));
+
+        seats = Arrays.asList(seats.get(1), seats.get(2));
+        assertFalse(RoundSettlement.settleDeal(seats, 1, 20).isRoundOver());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * RoundSimulatorTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.Round;
+import tech.hootlab.core.RoundState;
+import tech.hootlab.core.RoundSimulator;
+import tech.hootlab.core.Shoe;
+import tech.hootlab.core.ShoePool;
+import tech.hootlab.core.SimulationStats;
+import tech.hootlab.core.SplittableShuffleSource;
+
+class RoundSimulatorTest {
+
+    private static final int SEATS = 4;
+    private static final int STAKE = 20;
+    private static final int BANKROLL = 1_000_000;
+    private static final int STAND_ON = 17;
+    private static final int DECKS = 2;
+    private static final double PENETRATION = 0.5;
+    private static final long SEED = 21;
+
+    @DisplayName("The simulator settles the same tokens and dealers as Round, from the same seed")
+    @Test
+    void matchesRound() {
+        // The table's seeds are the first split of the pool's
+        Round round = new Round(new ShoePool(DECKS, PENETRATION, 0,
+                new SplittableShuffleSource(SEED)).forTable());
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < SEATS; i++) {
+            players.add(new Player("player-" + i, BANKROLL));
+        }
+        RoundSimulator simulator = new RoundSimulator(SEATS, STAKE, BANKROLL, STAND_ON,
+                new Shoe(DECKS, PENETRATION), new SplittableShuffleSource(SEED).split());
+        SimulationStats stats = new SimulationStats();
+
+        Player dealer = players.get(0);
+        for (int r = 0; r < 500; r++) {
+            round.reset(players, dealer, STAKE);
+            round.start();
+            while (round.getState() == RoundState.IN_PROGRESS) {
+                if (round.getCurrentPlayer().getHandSummary().getTotal() < STAND_ON) {
+                    round.hitWithCurrentPlayer();
+                } else {
+                    round.stickWithCurrentPlayer();
+                }
+            }
+            dealer = round.getDealer();
+            simulator.playRound(stats);
+
+            assertEquals(players.indexOf(dealer), simulator.getDealer());
+            for (int i = 0; i < SEATS; i++) {
+                assertEquals(players.get(i).getTokens(), simulator.getBalance(i));
+            }
+        }
+        assertEquals(500, stats.getRounds());
+    }
+
+    @DisplayName("A round's shoe seed and offset deal its cards again")
+    @Test
+    void roundReplaysFromShoeSeed() {
+        Round round = new Round(new ShoePool(DECKS, PENETRATION, 0,
+                new SplittableShuffleSource(SEED)).forTable());
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < SEATS; i++) {
+            players.add(new Player("player-" + i, BANKROLL));
+        }
+
+        for (int r = 0; r < 20; r++) {
+            round.reset(players, players.get(0), STAKE);
+            Shoe replay = new Shoe(DECKS, PENETRATION).shuffle(round.getShoeSeed());
+            for (int i = 0; i < round.getShoeOffset(); i++) {
+                replay.deal();
+            }
+            round.start();
+
+            List<String> dealt = new ArrayList<>();
+            List<String> replayed = new ArrayList<>();
+            for (Player player : players) {
+                for (Card card : PlayerSnapshot.of(player).getCards()) {
+                    dealt.add(card.toString());
+                    replayed.add(replay.deal().toString());
+                }
+            }
+            Collections.sort(dealt);
+            Collections.sort(replayed);
+            assertEquals(dealt, replayed);
+
+            while (round.getState() == RoundState.IN_PROGRESS) {
+                round.stickWithCurrentPlayer();
+            }
+        }
+    }
+}
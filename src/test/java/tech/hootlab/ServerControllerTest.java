@@ -0,0 +1,53 @@
+/*
+ * ServerControllerTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.client.ClientSettings;
+
+class ServerControllerTest {
+
+    // A connection which discards everything sent to it
+    private static class SilentConnection implements ClientConnection {
+        @Override
+        public String getID() {
+            return "client";
+        }
+
+        @Override
+        public long getLastSeen() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {}
+
+        @Override
+        public void sendSnapshot(OutboundFrame frame) {}
+
+        @Override
+        public void setCodec(MessageCodec codec) {}
+
+        @Override
+        public void disconnect() {}
+    }
+
+    @DisplayName("Unknown commands and CONNECTs without settings are ignored")
+    @Test
+    void malformedMessagesAreIgnored() {
+        ServerController controller = new ServerController(2, Runnable::run);
+        controller.addClient(new SilentConnection());
+
+        controller.handleMessage("client", new SocketMessage(99, null));
+        controller.handleMessage("client", new SocketMessage(SocketMessage.CONNECT, null));
+        controller.handleMessage("client", new SocketMessage(SocketMessage.CONNECT, "settings"));
+        assertEquals(0, controller.getTableCount());
+
+        controller.handleMessage("client",
+                new SocketMessage(SocketMessage.CONNECT, new ClientSettings("Player", 100)));
+        assertEquals(1, controller.getTableCount());
+    }
+}
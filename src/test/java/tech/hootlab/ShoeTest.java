@@ -0,0 +1,89 @@
+/*
+ * ShoeTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.Shoe;
+import tech.hootlab.core.ShoePool;
+import tech.hootlab.core.SplittableShuffleSource;
+
+class ShoeTest {
+
+    @DisplayName("A shoe holds every deck and reaches its cut card at the penetration")
+    @Test
+    void cutCardReached() {
+        Shoe shoe = new Shoe(6, 0.75);
+        assertEquals(312, shoe.size());
+        for (int i = 0; i < 233; i++) {
+            shoe.deal();
+        }
+        assertFalse(shoe.isCutCardReached());
+        shoe.deal();
+        assertTrue(shoe.isCutCardReached());
+
+        assertThrows(IllegalArgumentException.class, () -> new Shoe(1, 0));
+    }
+
+    @DisplayName("Shoes shuffled from the same seed deal the same cards, whatever came before")
+    @Test
+    void seededShuffleReplays() {
+        Shoe shoe = new Shoe(2, 0.75).shuffle(42);
+        Shoe replay = new Shoe(2, 0.75).shuffle(7);
+        replay.deal();
+        replay.shuffle(42);
+        assertEquals(42, replay.getSeed());
+        while (shoe.size() > 0) {
+            assertEquals(shoe.deal(), replay.deal());
+        }
+    }
+
+    @DisplayName("A pool with nothing ready shuffles on take and counts the miss")
+    @Test
+    void emptyPoolShufflesOnTake() {
+        ShoePool pool = new ShoePool(2, 0.5, 0);
+        ShoePool.TableShoes shoes = pool.forTable();
+        Shoe first = shoes.take();
+        Shoe second = shoes.take();
+        assertFalse(first == second);
+        assertEquals(104, first.size());
+        assertEquals(2, pool.getMisses());
+    }
+
+    @DisplayName("A table gets the same shoes from a seeded pool whether take hits or misses")
+    @Test
+    void tableShoesReplay() throws InterruptedException {
+        // Nothing is ever ready in the first pool, while the second shuffles ahead
+        ShoePool missing = new ShoePool(2, 0.5, 0, new SplittableShuffleSource(42));
+        ShoePool ready = new ShoePool(2, 0.5, 2, new SplittableShuffleSource(42));
+        ready.start();
+
+        // Tables take their sources in the order they open
+        missing.forTable();
+        ready.forTable();
+        ShoePool.TableShoes missed = missing.forTable();
+        ShoePool.TableShoes hit = ready.forTable();
+
+        for (int i = 0; i < 5; i++) {
+            for (int wait = 0; hit.getReadyCount() < 2 && wait < 500; wait++) {
+                Thread.sleep(10);
+            }
+            Shoe expected = missed.take();
+            Shoe actual = hit.take();
+            assertEquals(expected.getSeed(), actual.getSeed());
+            for (Card card = expected.deal(); card != null; card = expected.deal()) {
+                assertEquals(card, actual.deal());
+            }
+            missed.recycle(expected);
+            hit.recycle(actual);
+        }
+        assertEquals(5, missing.getMisses());
+        assertEquals(0, ready.getMisses());
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * TableManagerTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TableManagerTest {
+
+    @DisplayName("Players fill a table before a new one is opened")
+    @Test
+    void tablesFillUp() {
+        TableManager tableManager = new TableManager(2, 20, Runnable::run);
+        Table first = tableManager.seat();
+        assertSame(first, tableManager.seat());
+
+        Table second = tableManager.seat();
+        assertNotEquals(first, second);
+        assertEquals(2, tableManager.getTableCount());
+    }
+
+    @DisplayName("Free seats are reused and empty tables are retired")
+    @Test
+    void seatsReusedAndTablesRetired() {
+        TableManager tableManager = new TableManager(2, 20, Runnable::run);
+        Table first = tableManager.seat();
+        tableManager.seat();
+        Table second = tableManager.seat();
+
+        // A seat comes free at the first table, so it is filled before the second
+        tableManager.leave(first);
+        assertSame(first, tableManager.seat());
+
+        tableManager.leave(second);
+        assertEquals(1, tableManager.getTableCount());
+    }
+}
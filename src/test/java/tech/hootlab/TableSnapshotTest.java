@@ -0,0 +1,52 @@
+/*
+ * TableSnapshotTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Card;
+import tech.hootlab.core.CardRanks;
+import tech.hootlab.core.CardSuits;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.PlayerState;
+
+class TableSnapshotTest {
+
+    @DisplayName("Snapshots keep the state the players had when they were taken")
+    @Test
+    void snapshotsAreUnaffectedByLaterChanges() {
+        Player player = new Player("Gareth", 100);
+        player.addCardToHand(Card.of(CardSuits.HEARTS, CardRanks.ACE));
+        TableSnapshot snapshot = TableSnapshot.of(3, Arrays.asList(player));
+
+        player.addCardToHand(Card.of(CardSuits.CLUBS, CardRanks.KING));
+        player.setTokens(50);
+        player.setStatus(PlayerState.LOSER);
+
+        PlayerSnapshot playerSnapshot = snapshot.getPlayers().get(0);
+        assertEquals(1, playerSnapshot.getCards().size());
+        assertEquals(100, playerSnapshot.getTokens());
+        assertEquals(PlayerState.PLAYING, playerSnapshot.getStatus());
+        assertEquals(11, playerSnapshot.toPlayer().getHandValue());
+    }
+
+    @DisplayName("Snapshots are only current for the same sequence and players")
+    @Test
+    void snapshotsAreCurrentUntilTheTableChanges() {
+        Player first = new Player("Gareth", 100);
+        Player second = new Player("Empty", 5);
+        List<Player> players = Arrays.asList(first, second);
+        TableSnapshot snapshot = TableSnapshot.of(3, players);
+
+        assertTrue(snapshot.isCurrent(3, players));
+        assertFalse(snapshot.isCurrent(4, players));
+        assertFalse(snapshot.isCurrent(3, Arrays.asList(second, first)));
+        assertFalse(snapshot.isCurrent(3, Arrays.asList(first)));
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * TableViewTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.Player;
+import tech.hootlab.core.RoundState;
+
+class TableViewTest {
+
+    private final Player dealer = new Player("dealer", "Dealer", 100);
+    private final Player player = new Player("player", "Player", 100);
+
+    @DisplayName("Only the current player can play, and only while the round is in progress")
+    @Test
+    void onlyCurrentPlayerCanPlay() {
+        TableView view = TableView.of(RoundState.IN_PROGRESS, player, dealer);
+        assertTrue(view.canPlay("player"));
+        assertFalse(view.canPlay("dealer"));
+        assertFalse(view.canDeal("dealer"));
+
+        assertFalse(TableView.of(RoundState.FINISHED, player, dealer).canPlay("player"));
+        assertFalse(TableView.EMPTY.canPlay("player"));
+    }
+
+    @DisplayName("Only the dealer can deal, and only while the round is ready")
+    @Test
+    void onlyDealerCanDeal() {
+        TableView view = TableView.of(RoundState.READY, null, dealer);
+        assertTrue(view.canDeal("dealer"));
+        assertFalse(view.canDeal("player"));
+        assertFalse(view.canPlay("dealer"));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * TokenBucketTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @DisplayName("A full bucket allows a burst, then refills at its rate")
+    @Test
+    void burstThenRefill() {
+        // One token every 10ms, up to 3 at once
+        TokenBucket bucket = new TokenBucket(100, 3);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+        assertFalse(bucket.tryAcquire(now));
+        assertEquals(10 * MILLIS, bucket.nanosUntilAvailable(now));
+
+        assertFalse(bucket.tryAcquire(now + 9 * MILLIS));
+        assertTrue(bucket.tryAcquire(now + 10 * MILLIS));
+        assertFalse(bucket.tryAcquire(now + 10 * MILLIS));
+    }
+
+    @DisplayName("An idle bucket never holds more than its capacity")
+    @Test
+    void idleBucketIsCapped() {
+        TokenBucket bucket = new TokenBucket(100, 2);
+        long later = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        assertEquals(0, bucket.nanosUntilAvailable(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @DisplayName("The rate and capacity must be positive")
+    @Test
+    void rejectsBadLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * TokenLedgerTest.java Gareth Sears - 2493194S
+ */
+package tech.hootlab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.hootlab.core.TokenLedger;
+
+class TokenLedgerTest {
+
+    @DisplayName("Payers who cannot cover a debt pay what they have")
+    @Test
+    void payersPayWhatTheyHave() {
+        TokenLedger ledger = new TokenLedger(100, 30, 5);
+        assertEquals(30, ledger.transfer(1, 0, 50));
+        assertEquals(130, ledger.getBalance(0));
+        assertEquals(0, ledger.getBalance(1));
+
+        assertEquals(20, ledger.transfer(0, 2, 20));
+        assertEquals(0, ledger.transfer(2, 2, 50));
+        assertEquals(25, ledger.getBalance(2));
+    }
+
+    @DisplayName("Adjustments apply a settlement's changes")
+    @Test
+    void adjustmentsApply() {
+        TokenLedger ledger = new TokenLedger(50, 0);
+        ledger.adjust(0, -20);
+        ledger.adjust(1, 20);
+        assertEquals(30, ledger.getBalance(0));
+        assertEquals(20, ledger.getBalance(1));
+    }
+}